@@ -7,17 +7,30 @@ import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 
 public class AesGcmNoPaddingMechanism implements CipherMechanism {
 
 	private static final String ENCRYPTION_MECHANISM = "AES/GCM/NoPadding";
 	private static final int GCM_IV_SIZE = 12;
 	private static final int AUTH_TAG_SIZE = 128;
+	private static final int AUTH_TAG_BYTES = AUTH_TAG_SIZE / Byte.SIZE;
+
+	private final CipherPool cipherPool = new CipherPool(ENCRYPTION_MECHANISM);
+	private final InitialVectorGenerator initialVectorGenerator;
+
+	public AesGcmNoPaddingMechanism() {
+		this(new SecureRandomInitialVectorGenerator());
+	}
+
+	public AesGcmNoPaddingMechanism(InitialVectorGenerator initialVectorGenerator) {
+		this.initialVectorGenerator = initialVectorGenerator;
+	}
 
 	@Override
 	public String getType() {
@@ -25,63 +38,93 @@ public class AesGcmNoPaddingMechanism implements CipherMechanism {
 	}
 
 	@Override
-	public byte[] encrypt(byte[] content, SecretKey secretKey) {
-		try {
-			byte[] iv = generateInitialVector();
-			byte[] cipherContent = cipher(content, iv, secretKey);
-			byte[] ivAndContent = new byte[iv.length + cipherContent.length];
+	public int getEncryptedSize(int contentLength) {
+		return GCM_IV_SIZE + contentLength + AUTH_TAG_BYTES;
+	}
 
-			System.arraycopy(iv, 0, ivAndContent, 0, iv.length);
-			System.arraycopy(cipherContent, 0, ivAndContent, iv.length, cipherContent.length);
+	@Override
+	public int getDecryptedSize(int cipherContentLength) {
+		return Math.max(0, cipherContentLength - GCM_IV_SIZE - AUTH_TAG_BYTES);
+	}
 
-			return ivAndContent;
+	@Override
+	public byte[] encrypt(byte[] content, SecretKey secretKey) {
+		byte[] ivAndContent = new byte[getEncryptedSize(content.length)];
+		encrypt(ByteBuffer.wrap(content), ByteBuffer.wrap(ivAndContent), secretKey);
 
-		} catch (NoSuchAlgorithmException | BadPaddingException | InvalidKeyException | InvalidAlgorithmParameterException |
-				NoSuchPaddingException | IllegalBlockSizeException e) {
-			throw new EncryptionException(e.getMessage(), e);
-		}
+		return ivAndContent;
 	}
 
-	private byte[] cipher(byte[] plainValue, byte[] iv, SecretKey secretKey) throws NoSuchAlgorithmException,
-																					NoSuchPaddingException, InvalidKeyException,
-																					InvalidAlgorithmParameterException, IllegalBlockSizeException,
-																					BadPaddingException {
-		GCMParameterSpec parameterSpec = new GCMParameterSpec(AUTH_TAG_SIZE, iv);
-		Cipher cipher = Cipher.getInstance(ENCRYPTION_MECHANISM);
-		cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
-		return cipher.doFinal(plainValue);
+	@Override
+	public byte[] encrypt(byte[] content, EncryptionKey encryptionKey) {
+		byte[] ivAndContent = new byte[getEncryptedSize(content.length)];
+		encrypt(ByteBuffer.wrap(content), ByteBuffer.wrap(ivAndContent), encryptionKey);
+
+		return ivAndContent;
 	}
 
-	private byte[] generateInitialVector() {
+	@Override
+	public int encrypt(ByteBuffer content, ByteBuffer destination, SecretKey secretKey) {
+		checkDestinationSize(content, destination);
 		byte[] iv = new byte[GCM_IV_SIZE];
-		SecureRandom secureRandom = new SecureRandom();
-		secureRandom.nextBytes(iv);
-		return iv;
+		initialVectorGenerator.generate(iv, secretKey);
+
+		return encrypt(content, destination, secretKey, iv);
 	}
 
 	@Override
-	public byte[] decrypt(byte[] ivAndCipherContent, SecretKey secretKey) {
+	public int encrypt(ByteBuffer content, ByteBuffer destination, EncryptionKey encryptionKey) {
+		checkDestinationSize(content, destination);
+		byte[] iv = new byte[GCM_IV_SIZE];
+		initialVectorGenerator.generate(iv, encryptionKey);
+
+		return encrypt(content, destination, encryptionKey.getSecretKey(), iv);
+	}
+
+	private void checkDestinationSize(ByteBuffer content, ByteBuffer destination) {
+		if (destination.remaining() < getEncryptedSize(content.remaining())) {
+			throw new EncryptionException("Destination buffer too small, " + getEncryptedSize(content.remaining()) + " bytes required");
+		}
+	}
+
+	private int encrypt(ByteBuffer content, ByteBuffer destination, SecretKey secretKey, byte[] iv) {
 		try {
-			byte[] iv = new byte[GCM_IV_SIZE];
-			System.arraycopy(ivAndCipherContent, 0, iv, 0, GCM_IV_SIZE);
-			byte[] cipherContent = new byte[ivAndCipherContent.length - GCM_IV_SIZE];
-			System.arraycopy(ivAndCipherContent, GCM_IV_SIZE, cipherContent, 0, ivAndCipherContent.length - GCM_IV_SIZE);
+			Cipher cipher = cipherPool.get();
+			cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(AUTH_TAG_SIZE, iv));
+			destination.put(iv);
 
-			return decipher(cipherContent, iv, secretKey);
+			return GCM_IV_SIZE + cipher.doFinal(content, destination);
 
 		} catch (NoSuchAlgorithmException | BadPaddingException | InvalidKeyException | InvalidAlgorithmParameterException |
-				NoSuchPaddingException | IllegalBlockSizeException e) {
+				NoSuchPaddingException | IllegalBlockSizeException | ShortBufferException e) {
 			throw new EncryptionException(e.getMessage(), e);
 		}
+	}
+
+	@Override
+	public byte[] decrypt(byte[] ivAndCipherContent, SecretKey secretKey) {
+		byte[] content = new byte[getDecryptedSize(ivAndCipherContent.length)];
+		decrypt(ByteBuffer.wrap(ivAndCipherContent), ByteBuffer.wrap(content), secretKey);
 
+		return content;
 	}
 
-	private byte[] decipher(byte[] cipherText, byte[] iv, SecretKey secretKey) throws NoSuchAlgorithmException,
-																					  NoSuchPaddingException, InvalidKeyException,
-																					  InvalidAlgorithmParameterException, IllegalBlockSizeException,
-																					  BadPaddingException {
-		Cipher cipher = Cipher.getInstance(ENCRYPTION_MECHANISM);
-		cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(AUTH_TAG_SIZE, iv));
-		return cipher.doFinal(cipherText);
+	@Override
+	public int decrypt(ByteBuffer ivAndCipherContent, ByteBuffer destination, SecretKey secretKey) {
+		if (ivAndCipherContent.remaining() < GCM_IV_SIZE + AUTH_TAG_BYTES) {
+			throw new EncryptionException("Cipher content too short to contain IV and authentication tag");
+		}
+		try {
+			byte[] iv = new byte[GCM_IV_SIZE];
+			ivAndCipherContent.get(iv);
+			Cipher cipher = cipherPool.get();
+			cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(AUTH_TAG_SIZE, iv));
+
+			return cipher.doFinal(ivAndCipherContent, destination);
+
+		} catch (NoSuchAlgorithmException | BadPaddingException | InvalidKeyException | InvalidAlgorithmParameterException |
+				NoSuchPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+			throw new EncryptionException(e.getMessage(), e);
+		}
 	}
 }
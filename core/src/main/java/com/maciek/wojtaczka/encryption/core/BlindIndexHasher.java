@@ -0,0 +1,57 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Computes blind indices with the latest key of a given name.
+ */
+public class BlindIndexHasher {
+
+	private final Map<String, HashMechanism> hashMechanisms;
+	private final EncryptionKeyProvider keyProvider;
+
+	public BlindIndexHasher(Set<HashMechanism> hashMechanisms, EncryptionKeyProvider keyProvider) {
+		this.hashMechanisms = hashMechanisms.stream()
+			.collect(Collectors.toMap(
+				HashMechanism::getType,
+				Function.identity()
+			));
+		this.keyProvider = keyProvider;
+	}
+
+	public byte[] hash(byte[] content, String keyName, String algorithm) {
+
+		HashMechanism hashMechanism = getHashMechanism(algorithm);
+
+		EncryptionKey latestKey = keyProvider.getLatestKey(keyName, algorithm);
+
+		return hashMechanism.hash(content, latestKey.getSecretKey());
+	}
+
+	/**
+	 * Hashes all the contents with the latest key, which is resolved only once for the whole batch.
+	 *
+	 * @return hashes in the order of the contents
+	 */
+	public List<byte[]> hashAll(List<byte[]> contents, String keyName, String algorithm) {
+
+		HashMechanism hashMechanism = getHashMechanism(algorithm);
+
+		EncryptionKey latestKey = keyProvider.getLatestKey(keyName, algorithm);
+
+		return hashMechanism.hashAll(contents, latestKey.getSecretKey());
+	}
+
+	private HashMechanism getHashMechanism(String algorithm) {
+		HashMechanism hashMechanism = hashMechanisms.get(algorithm);
+		if (hashMechanism == null)
+			throw new EncryptionException(algorithm + " not found in the registry");
+		return hashMechanism;
+	}
+}
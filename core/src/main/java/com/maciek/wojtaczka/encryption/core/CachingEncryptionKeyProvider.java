@@ -0,0 +1,248 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Decorates an {@link EncryptionKeyProvider} with an in-memory cache.
+ * Keys of a given version are immutable, so they are kept until evicted by the size bound.
+ * Latest keys expire after the ttl and are reloaded in the background shortly before that.
+ * Concurrent misses for the same key are coalesced into a single load.
+ */
+public class CachingEncryptionKeyProvider implements EncryptionKeyProvider {
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+	public static final Duration DEFAULT_LATEST_KEY_TTL = Duration.ofMinutes(1);
+	public static final Duration DEFAULT_REFRESH_AHEAD_TIME = Duration.ofSeconds(10);
+
+	private final EncryptionKeyProvider delegate;
+	private final long latestKeyTtlNanos;
+	private final long refreshAheadNanos;
+	private final Executor refreshExecutor;
+	private final LongSupplier nanoTime;
+
+	private final LruCache<LatestKeyId> latestKeys;
+	private final LruCache<VersionedKeyId> versionedKeys;
+	private final Map<Object, CompletableFuture<EncryptionKey>> loadsInFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder loadCount = new LongAdder();
+	private final LongAdder loadFailureCount = new LongAdder();
+	private final LongAdder totalLoadTimeNanos = new LongAdder();
+
+	public CachingEncryptionKeyProvider(EncryptionKeyProvider delegate) {
+		this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_LATEST_KEY_TTL, DEFAULT_REFRESH_AHEAD_TIME, ForkJoinPool.commonPool());
+	}
+
+	public CachingEncryptionKeyProvider(EncryptionKeyProvider delegate, int maximumSize, Duration latestKeyTtl,
+										Duration refreshAheadTime, Executor refreshExecutor) {
+		this(delegate, maximumSize, latestKeyTtl, refreshAheadTime, refreshExecutor, System::nanoTime);
+	}
+
+	CachingEncryptionKeyProvider(EncryptionKeyProvider delegate, int maximumSize, Duration latestKeyTtl,
+								 Duration refreshAheadTime, Executor refreshExecutor, LongSupplier nanoTime) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("Maximum size must be positive");
+		}
+		if (refreshAheadTime.compareTo(latestKeyTtl) > 0) {
+			throw new IllegalArgumentException("Refresh ahead time must not exceed the latest key ttl");
+		}
+		this.delegate = delegate;
+		this.latestKeys = new LruCache<>(maximumSize);
+		this.versionedKeys = new LruCache<>(maximumSize);
+		this.latestKeyTtlNanos = latestKeyTtl.toNanos();
+		this.refreshAheadNanos = refreshAheadTime.toNanos();
+		this.refreshExecutor = refreshExecutor;
+		this.nanoTime = nanoTime;
+	}
+
+	@Override
+	public EncryptionKey getLatestKey(String name, String algorithm) {
+		LatestKeyId id = LatestKeyId.of(name, algorithm);
+		Supplier<EncryptionKey> loader = () -> delegate.getLatestKey(name, algorithm);
+
+		long now = nanoTime.getAsLong();
+		CachedKey cached = latestKeys.get(id);
+		if (cached != null && now - cached.loadedAt < latestKeyTtlNanos) {
+			hitCount.increment();
+			if (now - cached.loadedAt >= latestKeyTtlNanos - refreshAheadNanos && cached.refreshing.compareAndSet(false, true)) {
+				refreshAsync(id, loader, cached);
+			}
+			return cached.key;
+		}
+
+		missCount.increment();
+		return load(id, loader);
+	}
+
+	@Override
+	public EncryptionKey getKey(String name, int version, String algorithm) {
+		VersionedKeyId id = VersionedKeyId.of(name, version, algorithm);
+
+		CachedKey cached = versionedKeys.get(id);
+		if (cached != null) {
+			hitCount.increment();
+			return cached.key;
+		}
+
+		missCount.increment();
+		return load(id, () -> delegate.getKey(name, version, algorithm));
+	}
+
+	public Stats getStats() {
+		return Stats.of(hitCount.sum(), missCount.sum(), loadCount.sum(), loadFailureCount.sum(), totalLoadTimeNanos.sum());
+	}
+
+	/**
+	 * Drops all cached keys, e.g. right after a key rotation which should be picked up before the ttl passes.
+	 */
+	public void invalidateAll() {
+		latestKeys.clear();
+		versionedKeys.clear();
+	}
+
+	private void refreshAsync(LatestKeyId id, Supplier<EncryptionKey> loader, CachedKey stale) {
+		try {
+			refreshExecutor.execute(() -> {
+				try {
+					load(id, loader);
+				} catch (RuntimeException e) {
+					//keep serving the cached key until it expires
+					stale.refreshing.set(false);
+				}
+			});
+		} catch (RuntimeException e) {
+			stale.refreshing.set(false);
+		}
+	}
+
+	private EncryptionKey load(Object id, Supplier<EncryptionKey> loader) {
+		CompletableFuture<EncryptionKey> ownLoad = new CompletableFuture<>();
+		CompletableFuture<EncryptionKey> runningLoad = loadsInFlight.putIfAbsent(id, ownLoad);
+		if (runningLoad != null) {
+			return await(runningLoad);
+		}
+
+		long start = nanoTime.getAsLong();
+		try {
+			EncryptionKey key = loader.get();
+			long loadedAt = nanoTime.getAsLong();
+			loadCount.increment();
+			totalLoadTimeNanos.add(loadedAt - start);
+			store(id, key, loadedAt);
+			ownLoad.complete(key);
+			return key;
+		} catch (RuntimeException e) {
+			loadFailureCount.increment();
+			ownLoad.completeExceptionally(e);
+			throw e;
+		} finally {
+			loadsInFlight.remove(id, ownLoad);
+		}
+	}
+
+	private void store(Object id, EncryptionKey key, long loadedAt) {
+		if (key == null) {
+			return;
+		}
+		if (id instanceof LatestKeyId) {
+			LatestKeyId latestKeyId = (LatestKeyId) id;
+			latestKeys.put(latestKeyId, new CachedKey(key, loadedAt));
+			VersionedKeyId versionedKeyId = VersionedKeyId.of(latestKeyId.getName(), key.getVersion(), latestKeyId.getAlgorithm());
+			versionedKeys.put(versionedKeyId, new CachedKey(key, loadedAt));
+		} else {
+			versionedKeys.put((VersionedKeyId) id, new CachedKey(key, loadedAt));
+		}
+	}
+
+	private static EncryptionKey await(CompletableFuture<EncryptionKey> runningLoad) {
+		try {
+			return runningLoad.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static final class CachedKey {
+
+		private final EncryptionKey key;
+		private final long loadedAt;
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private CachedKey(EncryptionKey key, long loadedAt) {
+			this.key = key;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	/**
+	 * Access ordered map dropping its least recently used entry once the size bound is exceeded, in constant time.
+	 */
+	private static final class LruCache<K> {
+
+		private final Map<K, CachedKey> entries;
+
+		private LruCache(int maximumSize) {
+			this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<K, CachedKey> eldest) {
+					return size() > maximumSize;
+				}
+			};
+		}
+
+		synchronized CachedKey get(K id) {
+			return entries.get(id);
+		}
+
+		synchronized void put(K id, CachedKey cachedKey) {
+			entries.put(id, cachedKey);
+		}
+
+		synchronized void clear() {
+			entries.clear();
+		}
+	}
+
+	@Value(staticConstructor = "of")
+	private static class LatestKeyId {
+		String name;
+		String algorithm;
+	}
+
+	@Value(staticConstructor = "of")
+	private static class VersionedKeyId {
+		String name;
+		int version;
+		String algorithm;
+	}
+
+	@Value(staticConstructor = "of")
+	public static class Stats {
+		long hitCount;
+		long missCount;
+		long loadCount;
+		long loadFailureCount;
+		long totalLoadTimeNanos;
+
+		public double getAverageLoadTimeNanos() {
+			return loadCount == 0 ? 0 : (double) totalLoadTimeNanos / loadCount;
+		}
+	}
+}
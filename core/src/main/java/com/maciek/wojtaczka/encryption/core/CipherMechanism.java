@@ -1,6 +1,9 @@
 package com.maciek.wojtaczka.encryption.core;
 
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 
 public interface CipherMechanism {
 
@@ -10,4 +13,64 @@ public interface CipherMechanism {
 
 	byte[] decrypt(byte[] cipherContent, SecretKey secretKey);
 
+	/**
+	 * Encrypts the content like {@link #encrypt(byte[], SecretKey)}, mechanisms generating initial vectors per key
+	 * may identify it by its name and version.
+	 */
+	default byte[] encrypt(byte[] content, EncryptionKey encryptionKey) {
+		return encrypt(content, encryptionKey.getSecretKey());
+	}
+
+	/**
+	 * @param contentLength length of the plain content
+	 * @return exact number of bytes {@link #encrypt(ByteBuffer, ByteBuffer, SecretKey)} writes for the content of given length
+	 */
+	int getEncryptedSize(int contentLength);
+
+	/**
+	 * @param cipherContentLength length of the cipher content
+	 * @return upper bound of bytes {@link #decrypt(ByteBuffer, ByteBuffer, SecretKey)} writes for the cipher content of given length
+	 */
+	int getDecryptedSize(int cipherContentLength);
+
+	/**
+	 * Encrypts all remaining bytes of the content and writes the result at the position of the destination buffer.
+	 * Both buffers may be heap or direct ones.
+	 *
+	 * @return number of bytes written into the destination
+	 */
+	default int encrypt(ByteBuffer content, ByteBuffer destination, SecretKey secretKey) {
+		byte[] contentBytes = new byte[content.remaining()];
+		content.get(contentBytes);
+		return putInto(destination, encrypt(contentBytes, secretKey));
+	}
+
+	/**
+	 * Encrypts the content like {@link #encrypt(ByteBuffer, ByteBuffer, SecretKey)}, mechanisms generating initial vectors
+	 * per key may identify it by its name and version.
+	 */
+	default int encrypt(ByteBuffer content, ByteBuffer destination, EncryptionKey encryptionKey) {
+		return encrypt(content, destination, encryptionKey.getSecretKey());
+	}
+
+	/**
+	 * Decrypts all remaining bytes of the cipher content and writes the result at the position of the destination buffer.
+	 * Both buffers may be heap or direct ones.
+	 *
+	 * @return number of bytes written into the destination
+	 */
+	default int decrypt(ByteBuffer cipherContent, ByteBuffer destination, SecretKey secretKey) {
+		byte[] cipherContentBytes = new byte[cipherContent.remaining()];
+		cipherContent.get(cipherContentBytes);
+		return putInto(destination, decrypt(cipherContentBytes, secretKey));
+	}
+
+	private static int putInto(ByteBuffer destination, byte[] result) {
+		if (destination.remaining() < result.length) {
+			throw new EncryptionException("Destination buffer too small, " + result.length + " bytes required");
+		}
+		destination.put(result);
+		return result.length;
+	}
+
 }
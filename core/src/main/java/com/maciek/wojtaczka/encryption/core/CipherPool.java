@@ -0,0 +1,29 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keeps one {@link Cipher} per thread for the given transformation, so that the provider lookup of
+ * {@link Cipher#getInstance(String)} is paid once per thread instead of once per field.
+ * Returned instance has to be (re)initialized by the caller before every operation.
+ */
+class CipherPool {
+
+	private final String transformation;
+	private final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+
+	CipherPool(String transformation) {
+		this.transformation = transformation;
+	}
+
+	Cipher get() throws NoSuchAlgorithmException, NoSuchPaddingException {
+		Cipher cipher = ciphers.get();
+		if (cipher == null) {
+			cipher = Cipher.getInstance(transformation);
+			ciphers.set(cipher);
+		}
+		return cipher;
+	}
+}
@@ -0,0 +1,12 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class CipherRecordHeader {
+
+	String cipherMechanismType;
+	String encryptionKeyName;
+	int encryptionKeyVersion;
+
+}
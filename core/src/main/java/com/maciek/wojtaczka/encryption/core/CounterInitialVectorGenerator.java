@@ -0,0 +1,103 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic construction of 96 bit IVs: 32 bit prefix unique per thread followed by 64 bit counter.
+ * Within one generator IVs never repeat. Prefixes start at a random value and counters start at a random offset,
+ * so generators in different processes sharing a key are very unlikely to overlap, but it is not guaranteed.
+ * Number of IVs generated per key is guarded, after reaching the limit the key has to be rotated. Keys are counted
+ * by their name and version, keys passed without them are counted only as long as they are reachable.
+ */
+public class CounterInitialVectorGenerator implements InitialVectorGenerator {
+
+	private static final int IV_SIZE = 12;
+	private static final int PREFIX_SIZE = 4;
+	private static final long DEFAULT_MAX_INVOCATIONS_PER_KEY = 1L << 32;
+
+	private final long maxInvocationsPerKey;
+	private final SecureRandom secureRandom = new SecureRandom();
+	private final AtomicInteger nextPrefix = new AtomicInteger(secureRandom.nextInt());
+	private final ThreadLocal<ThreadCounter> counters = ThreadLocal.withInitial(this::newThreadCounter);
+	private final Map<Map.Entry<String, Integer>, AtomicLong> invocationsPerKeyVersion = new ConcurrentHashMap<>();
+	private final Map<SecretKey, AtomicLong> invocationsPerSecretKey = Collections.synchronizedMap(new WeakHashMap<>());
+
+	public CounterInitialVectorGenerator() {
+		this(DEFAULT_MAX_INVOCATIONS_PER_KEY);
+	}
+
+	public CounterInitialVectorGenerator(long maxInvocationsPerKey) {
+		this.maxInvocationsPerKey = maxInvocationsPerKey;
+	}
+
+	@Override
+	public void generate(byte[] iv, SecretKey secretKey) {
+		checkSize(iv);
+		countInvocation(invocationsPerSecretKey.computeIfAbsent(secretKey, key -> new AtomicLong()));
+		fill(iv);
+	}
+
+	@Override
+	public void generate(byte[] iv, EncryptionKey encryptionKey) {
+		checkSize(iv);
+		countInvocation(invocationsPerKeyVersion.computeIfAbsent(Map.entry(encryptionKey.getName(), encryptionKey.getVersion()),
+																 key -> new AtomicLong()));
+		fill(iv);
+	}
+
+	private static void checkSize(byte[] iv) {
+		if (iv.length != IV_SIZE) {
+			throw new EncryptionException("Counter based IV requires " + IV_SIZE + " bytes, but " + iv.length + " requested");
+		}
+	}
+
+	private void countInvocation(AtomicLong invocationsPerKey) {
+		if (invocationsPerKey.incrementAndGet() > maxInvocationsPerKey) {
+			throw new EncryptionException("Invocation limit of " + maxInvocationsPerKey + " reached for the key, the key must be rotated");
+		}
+	}
+
+	private void fill(byte[] iv) {
+		ThreadCounter counter = counters.get();
+		writeInt(iv, 0, counter.prefix);
+		writeLong(iv, PREFIX_SIZE, counter.next++);
+	}
+
+	private ThreadCounter newThreadCounter() {
+		return new ThreadCounter(nextPrefix.getAndIncrement(), secureRandom.nextLong());
+	}
+
+	private static void writeInt(byte[] target, int offset, int value) {
+		for (int i = 3; i >= 0; i--) {
+			target[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+
+	private static void writeLong(byte[] target, int offset, long value) {
+		for (int i = 7; i >= 0; i--) {
+			target[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+
+	private static class ThreadCounter {
+
+		private final int prefix;
+		private long next;
+
+		private ThreadCounter(int prefix, long next) {
+			this.prefix = prefix;
+			this.next = next;
+		}
+	}
+}
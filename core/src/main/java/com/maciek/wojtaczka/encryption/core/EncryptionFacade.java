@@ -2,9 +2,15 @@ package com.maciek.wojtaczka.encryption.core;
 
 import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
 
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 public class EncryptionFacade {
@@ -23,25 +29,159 @@ public class EncryptionFacade {
 
 	public CipherRecord encryptBytes(byte[] content, String keyName, String mechanismType) {
 
-		CipherMechanism cipherMechanism = cipherMechanisms.get(mechanismType);
-		if (cipherMechanism == null)
-			throw new EncryptionException(mechanismType + " not found in the registry");
+		CipherMechanism cipherMechanism = getCipherMechanism(mechanismType);
 
 		EncryptionKey latestKey = keyProvider.getLatestKey(keyName, mechanismType);
-		byte[] cipherResult = cipherMechanism.encrypt(content, latestKey.getSecretKey());
+		byte[] cipherResult = cipherMechanism.encrypt(content, latestKey);
 
 		return CipherRecord.of(cipherResult, mechanismType, latestKey);
 	}
 
 	public byte[] decryptRecord(CipherRecord cipherRecord, String keyName, String mechanismType) {
 
-		CipherMechanism cipherMechanism = cipherMechanisms.get(mechanismType);
-		if (cipherMechanism == null)
-			throw new EncryptionException(mechanismType + " not found in the registry");
+		CipherMechanism cipherMechanism = getCipherMechanism(mechanismType);
 
 		EncryptionKey latestKey = keyProvider.getKey(keyName, cipherRecord.getEncryptionKeyVersion(), mechanismType);
 
 		return cipherMechanism.decrypt(cipherRecord.getCipherContent(), latestKey.getSecretKey());
 	}
 
+	/**
+	 * Encrypts all the contents with the latest key, which is resolved only once for the whole batch.
+	 *
+	 * @return cipher records in the order of the contents
+	 */
+	public List<CipherRecord> encryptBatch(List<byte[]> contents, String keyName, String mechanismType) {
+
+		CipherMechanism cipherMechanism = getCipherMechanism(mechanismType);
+
+		EncryptionKey latestKey = keyProvider.getLatestKey(keyName, mechanismType);
+
+		List<CipherRecord> cipherRecords = new ArrayList<>(contents.size());
+		for (byte[] content : contents) {
+			cipherRecords.add(CipherRecord.of(cipherMechanism.encrypt(content, latestKey), mechanismType, latestKey));
+		}
+		return cipherRecords;
+	}
+
+	/**
+	 * Decrypts all the records, resolving each distinct key version only once for the whole batch.
+	 *
+	 * @return decrypted contents in the order of the records
+	 */
+	public List<byte[]> decryptBatch(List<CipherRecord> cipherRecords, String keyName, String mechanismType) {
+		return decryptBatch(cipherRecords, keyName, mechanismType, null);
+	}
+
+	/**
+	 * Decrypts all the records like {@link #decryptBatch(List, String, String)}, passing the positions of the records
+	 * encrypted with an older version of their key to staleRecords. The latest version of each key is resolved only once
+	 * for the whole batch.
+	 *
+	 * @return decrypted contents in the order of the records
+	 */
+	public List<byte[]> decryptBatch(List<CipherRecord> cipherRecords, String keyName, String mechanismType,
+									 IntConsumer staleRecords) {
+
+		CipherMechanism cipherMechanism = getCipherMechanism(mechanismType);
+
+		Map<Integer, SecretKey> keysByVersion = new HashMap<>();
+		Map<Map.Entry<String, String>, Integer> latestVersions = new HashMap<>();
+		List<byte[]> contents = new ArrayList<>(cipherRecords.size());
+		for (CipherRecord cipherRecord : cipherRecords) {
+			SecretKey secretKey = keysByVersion.computeIfAbsent(
+				cipherRecord.getEncryptionKeyVersion(),
+				version -> keyProvider.getKey(keyName, version, mechanismType).getSecretKey()
+			);
+			contents.add(cipherMechanism.decrypt(cipherRecord.getCipherContent(), secretKey));
+			if (staleRecords != null && isOlderThanLatest(cipherRecord.getEncryptionKeyName(), cipherRecord.getCipherMechanismType(),
+														 cipherRecord.getEncryptionKeyVersion(), latestVersions)) {
+				staleRecords.accept(contents.size() - 1);
+			}
+		}
+		return contents;
+	}
+
+	/**
+	 * Passes the positions of the headers encrypted with an older version of their key to staleRecords, the same way
+	 * {@link #decryptBatch(List, String, String, IntConsumer)} does. The latest version of each key is resolved only once
+	 * for all the headers.
+	 */
+	public void findStale(List<CipherRecordHeader> headers, IntConsumer staleRecords) {
+
+		Map<Map.Entry<String, String>, Integer> latestVersions = new HashMap<>();
+		for (int i = 0; i < headers.size(); i++) {
+			CipherRecordHeader header = headers.get(i);
+			if (isOlderThanLatest(header.getEncryptionKeyName(), header.getCipherMechanismType(),
+								  header.getEncryptionKeyVersion(), latestVersions)) {
+				staleRecords.accept(i);
+			}
+		}
+	}
+
+	private boolean isOlderThanLatest(String keyName, String mechanismType, int keyVersion,
+									  Map<Map.Entry<String, String>, Integer> latestVersions) {
+
+		int latestVersion = latestVersions.computeIfAbsent(
+			Map.entry(keyName, mechanismType),
+			key -> keyProvider.getLatestKey(key.getKey(), key.getValue()).getVersion()
+		);
+
+		return keyVersion < latestVersion;
+	}
+
+	public int getEncryptedSize(int contentLength, String mechanismType) {
+		return getCipherMechanism(mechanismType).getEncryptedSize(contentLength);
+	}
+
+	public int getDecryptedSize(int cipherContentLength, String mechanismType) {
+		return getCipherMechanism(mechanismType).getDecryptedSize(cipherContentLength);
+	}
+
+	/**
+	 * Encrypts remaining bytes of the content with the latest key straight into the destination buffer.
+	 *
+	 * @return header describing how the content has been encrypted
+	 */
+	public CipherRecordHeader encrypt(ByteBuffer content, ByteBuffer destination, String keyName, String mechanismType) {
+
+		CipherMechanism cipherMechanism = getCipherMechanism(mechanismType);
+
+		EncryptionKey latestKey = keyProvider.getLatestKey(keyName, mechanismType);
+		cipherMechanism.encrypt(content, destination, latestKey);
+
+		return CipherRecordHeader.of(mechanismType, latestKey.getName(), latestKey.getVersion());
+	}
+
+	/**
+	 * Decrypts remaining bytes of the cipher content straight into the destination buffer.
+	 *
+	 * @return number of bytes written into the destination
+	 */
+	public int decrypt(ByteBuffer cipherContent, ByteBuffer destination, String keyName, int keyVersion, String mechanismType) {
+
+		CipherMechanism cipherMechanism = getCipherMechanism(mechanismType);
+
+		EncryptionKey key = keyProvider.getKey(keyName, keyVersion, mechanismType);
+
+		return cipherMechanism.decrypt(cipherContent, destination, key.getSecretKey());
+	}
+
+	/**
+	 * @return true when the record has been encrypted with the latest version of its key
+	 */
+	public boolean isEncryptedWithLatestKey(CipherRecordHeader header) {
+
+		EncryptionKey latestKey = keyProvider.getLatestKey(header.getEncryptionKeyName(), header.getCipherMechanismType());
+
+		return header.getEncryptionKeyVersion() >= latestKey.getVersion();
+	}
+
+	private CipherMechanism getCipherMechanism(String mechanismType) {
+		CipherMechanism cipherMechanism = cipherMechanisms.get(mechanismType);
+		if (cipherMechanism == null)
+			throw new EncryptionException(mechanismType + " not found in the registry");
+		return cipherMechanism;
+	}
+
 }
@@ -0,0 +1,26 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyed one-way function used for blind indices.
+ */
+public interface HashMechanism {
+
+	String getType();
+
+	byte[] hash(byte[] content, SecretKey secretKey);
+
+	/**
+	 * @return hashes in the order of the contents
+	 */
+	default List<byte[]> hashAll(List<byte[]> contents, SecretKey secretKey) {
+		List<byte[]> hashes = new ArrayList<>(contents.size());
+		for (byte[] content : contents) {
+			hashes.add(hash(content, secretKey));
+		}
+		return hashes;
+	}
+}
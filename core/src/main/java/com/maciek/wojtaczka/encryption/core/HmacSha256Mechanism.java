@@ -6,30 +6,40 @@ import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 
-public class HmacSha256Mechanism implements CipherMechanism{
+public class HmacSha256Mechanism implements HashMechanism {
 
 	public static final String HMAC_SHA_256 = "HmacSHA256";
 
+	private final MacPool macPool = new MacPool(HMAC_SHA_256);
+
 	@Override
 	public String getType() {
 		return HMAC_SHA_256;
 	}
 
 	@Override
-	public byte[] encrypt(byte[] content, SecretKey secretKey) {
-		try {
-			Mac sha256Hmac = Mac.getInstance(HMAC_SHA_256);
-			sha256Hmac.init(secretKey);
+	public byte[] hash(byte[] content, SecretKey secretKey) {
+		return getMac(secretKey).doFinal(content);
+	}
 
-			return sha256Hmac.doFinal(content);
-		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
-			throw new EncryptionException(e.getMessage(), e);
+	@Override
+	public List<byte[]> hashAll(List<byte[]> contents, SecretKey secretKey) {
+		Mac sha256Hmac = getMac(secretKey);
+		List<byte[]> hashes = new ArrayList<>(contents.size());
+		for (byte[] content : contents) {
+			hashes.add(sha256Hmac.doFinal(content));
 		}
+		return hashes;
 	}
 
-	@Override
-	public byte[] decrypt(byte[] cipherContent, SecretKey secretKey) {
-		throw new UnsupportedOperationException("Decrypting not available for " + HMAC_SHA_256);
+	private Mac getMac(SecretKey secretKey) {
+		try {
+			return macPool.get(secretKey);
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			throw new EncryptionException(e.getMessage(), e);
+		}
 	}
 }
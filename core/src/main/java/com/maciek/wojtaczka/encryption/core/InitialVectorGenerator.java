@@ -0,0 +1,22 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import javax.crypto.SecretKey;
+
+public interface InitialVectorGenerator {
+
+	/**
+	 * Fills passed array with a fresh initial vector that is going to be used together with the given key.
+	 *
+	 * @param iv        array to be filled, its length is the IV size required by the mechanism
+	 * @param secretKey key the IV is generated for
+	 */
+	void generate(byte[] iv, SecretKey secretKey);
+
+	/**
+	 * Fills passed array with a fresh initial vector like {@link #generate(byte[], SecretKey)}, generators keeping state
+	 * per key may keep it by the key name and version instead of the key material.
+	 */
+	default void generate(byte[] iv, EncryptionKey encryptionKey) {
+		generate(iv, encryptionKey.getSecretKey());
+	}
+}
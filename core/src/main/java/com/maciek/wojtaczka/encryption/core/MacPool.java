@@ -0,0 +1,66 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps per thread a small LRU of {@link Mac} instances already initialized with a given key.
+ * {@link Mac#doFinal(byte[])} resets the instance to its initialized state, so it can be reused right away.
+ * New per thread instances are cloned from a shared prototype initialized once per key, when the provider supports it.
+ */
+class MacPool {
+
+	private static final int MAX_KEYS_PER_THREAD = 16;
+	private static final int MAX_PROTOTYPES = 64;
+
+	private final String algorithm;
+	private final ThreadLocal<Map<SecretKey, Mac>> macs = ThreadLocal.withInitial(() -> newLruMap(MAX_KEYS_PER_THREAD));
+	private final Map<SecretKey, Mac> prototypes = Collections.synchronizedMap(newLruMap(MAX_PROTOTYPES));
+
+	MacPool(String algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	Mac get(SecretKey secretKey) throws NoSuchAlgorithmException, InvalidKeyException {
+		Map<SecretKey, Mac> initializedMacs = macs.get();
+		Mac mac = initializedMacs.get(secretKey);
+		if (mac == null) {
+			mac = cloneOrInit(secretKey);
+			initializedMacs.put(secretKey, mac);
+		}
+		return mac;
+	}
+
+	private Mac cloneOrInit(SecretKey secretKey) throws NoSuchAlgorithmException, InvalidKeyException {
+		Mac prototype = prototypes.get(secretKey);
+		if (prototype == null) {
+			prototype = init(secretKey);
+			prototypes.put(secretKey, prototype);
+		}
+		try {
+			return (Mac) prototype.clone();
+		} catch (CloneNotSupportedException e) {
+			return init(secretKey);
+		}
+	}
+
+	private Mac init(SecretKey secretKey) throws NoSuchAlgorithmException, InvalidKeyException {
+		Mac mac = Mac.getInstance(algorithm);
+		mac.init(secretKey);
+		return mac;
+	}
+
+	private static <V> Map<SecretKey, V> newLruMap(int maxSize) {
+		return new LinkedHashMap<>(maxSize, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<SecretKey, V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+}
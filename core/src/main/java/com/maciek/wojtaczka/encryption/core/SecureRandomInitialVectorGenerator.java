@@ -0,0 +1,29 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Generates random IVs from a DRBG kept per thread, so the generator is seeded once per thread
+ * and threads do not contend on a shared instance.
+ */
+public class SecureRandomInitialVectorGenerator implements InitialVectorGenerator {
+
+	private static final String DRBG = "DRBG";
+
+	private final ThreadLocal<SecureRandom> secureRandoms = ThreadLocal.withInitial(SecureRandomInitialVectorGenerator::newSecureRandom);
+
+	@Override
+	public void generate(byte[] iv, SecretKey secretKey) {
+		secureRandoms.get().nextBytes(iv);
+	}
+
+	private static SecureRandom newSecureRandom() {
+		try {
+			return SecureRandom.getInstance(DRBG);
+		} catch (NoSuchAlgorithmException e) {
+			return new SecureRandom();
+		}
+	}
+}
@@ -1,15 +1,26 @@
 package com.maciek.wojtaczka.encryption.core;
 
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.nio.charset.StandardCharsets.UTF_16;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 class AesGcmNoPaddingMechanismTest {
 
@@ -55,6 +66,91 @@ class AesGcmNoPaddingMechanismTest {
 		assertThat(cipherResult1).isNotEqualTo(cipherResult2);
 	}
 
+	@Test
+	void shouldEncryptAndDecryptInput_whenDirectBuffersUsed() {
+		byte[] toBeEncrypted = "foo_boo".getBytes(CHARSET);
+		SecretKey secretKey = generateAesSecretKey();
+		ByteBuffer content = ByteBuffer.allocateDirect(toBeEncrypted.length).put(toBeEncrypted).flip();
+		ByteBuffer encrypted = ByteBuffer.allocateDirect(cipherMechanism.getEncryptedSize(toBeEncrypted.length));
+		ByteBuffer decrypted = ByteBuffer.allocateDirect(cipherMechanism.getDecryptedSize(encrypted.capacity()));
+
+		int encryptedLength = cipherMechanism.encrypt(content, encrypted, secretKey);
+		int decryptedLength = cipherMechanism.decrypt(encrypted.flip(), decrypted, secretKey);
+
+		byte[] decryptedContent = new byte[decryptedLength];
+		decrypted.flip().get(decryptedContent);
+		assertThat(encryptedLength).isEqualTo(encrypted.limit());
+		assertThat(decryptedContent).isEqualTo(toBeEncrypted);
+	}
+
+	@Test
+	void shouldDecryptBytes_whenEncryptedIntoReusedHeapBufferAtOffset() {
+		byte[] toBeEncrypted = "foo_boo".getBytes(CHARSET);
+		SecretKey secretKey = generateAesSecretKey();
+		ByteBuffer reused = ByteBuffer.allocate(64);
+		reused.put((byte) 7);
+
+		int encryptedLength = cipherMechanism.encrypt(ByteBuffer.wrap(toBeEncrypted), reused, secretKey);
+
+		byte[] cipherResult = Arrays.copyOfRange(reused.array(), 1, 1 + encryptedLength);
+		assertThat(cipherMechanism.decrypt(cipherResult, secretKey)).isEqualTo(toBeEncrypted);
+	}
+
+	@Test
+	void shouldThrowEncryptionException_whenDestinationBufferTooSmall() {
+		byte[] toBeEncrypted = "foo_boo".getBytes(CHARSET);
+		ByteBuffer tooSmall = ByteBuffer.allocate(cipherMechanism.getEncryptedSize(toBeEncrypted.length) - 1);
+
+		Throwable thrown = catchThrowable(() -> cipherMechanism.encrypt(ByteBuffer.wrap(toBeEncrypted), tooSmall, generateAesSecretKey()));
+
+		assertThat(thrown).isInstanceOf(EncryptionException.class);
+	}
+
+	@Test
+	void shouldEncryptAndDecryptInput_whenCounterInitialVectorsUsed() {
+		AesGcmNoPaddingMechanism counterIvMechanism = new AesGcmNoPaddingMechanism(new CounterInitialVectorGenerator());
+		String toBeEncrypted = "foo_boo";
+		SecretKey secretKey = generateAesSecretKey();
+
+		byte[] cipherResult1 = counterIvMechanism.encrypt(toBeEncrypted.getBytes(CHARSET), secretKey);
+		byte[] cipherResult2 = counterIvMechanism.encrypt(toBeEncrypted.getBytes(CHARSET), secretKey);
+
+		assertThat(cipherResult1).isNotEqualTo(cipherResult2);
+		assertThat(counterIvMechanism.decrypt(cipherResult1, secretKey)).isEqualTo(toBeEncrypted.getBytes(CHARSET));
+		assertThat(counterIvMechanism.decrypt(cipherResult2, secretKey)).isEqualTo(toBeEncrypted.getBytes(CHARSET));
+	}
+
+	@Test
+	void shouldDecryptInput_whenPreviousDecryptionOnTheSameThreadFailed() {
+		String toBeEncrypted = "foo_boo";
+		SecretKey secretKey = generateAesSecretKey();
+		byte[] cipherResult = cipherMechanism.encrypt(toBeEncrypted.getBytes(CHARSET), secretKey);
+
+		Throwable thrown = catchThrowable(() -> cipherMechanism.decrypt(cipherResult, generateAesSecretKey()));
+		byte[] decryptedContent = cipherMechanism.decrypt(cipherResult, secretKey);
+
+		assertThat(thrown).isInstanceOf(EncryptionException.class);
+		assertThat(decryptedContent).isEqualTo(toBeEncrypted.getBytes(CHARSET));
+	}
+
+	@Test
+	void shouldEncryptAndDecryptInput_whenCalledConcurrently() throws Exception {
+		SecretKey secretKey = generateAesSecretKey();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Callable<String>> tasks = IntStream.range(0, 100)
+												.mapToObj(i -> (Callable<String>) () -> {
+													byte[] cipherResult = cipherMechanism.encrypt(("value" + i).getBytes(CHARSET), secretKey);
+													return new String(cipherMechanism.decrypt(cipherResult, secretKey), CHARSET);
+												})
+												.collect(Collectors.toList());
+
+		List<Future<String>> results = executor.invokeAll(tasks);
+		executor.shutdown();
+
+		for (int i = 0; i < results.size(); i++) {
+			assertThat(results.get(i).get()).isEqualTo("value" + i);
+		}
+	}
 
 	private SecretKey generateAesSecretKey() {
 		SecureRandom secureRandom = new SecureRandom();
@@ -0,0 +1,75 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BlindIndexHasherTest {
+
+	private static final Charset CHARSET = UTF_16;
+
+	@Mock
+	private EncryptionKeyProvider keyProvider;
+
+	private BlindIndexHasher blindIndexHasher;
+
+	@BeforeEach
+	void setup() {
+		blindIndexHasher = new BlindIndexHasher(Set.of(new HmacSha256Mechanism()), keyProvider);
+	}
+
+	@Test
+	void shouldHashWithTheLatestKey() {
+		SecretKey secretKey = generateAesSecretKey();
+		when(keyProvider.getLatestKey("blind_id_key", "HmacSHA256")).thenReturn(EncryptionKey.of("blind_id_key", secretKey, 1));
+
+		byte[] hash = blindIndexHasher.hash("foo_boo".getBytes(CHARSET), "blind_id_key", "HmacSHA256");
+
+		assertThat(hash).isEqualTo(new HmacSha256Mechanism().hash("foo_boo".getBytes(CHARSET), secretKey));
+	}
+
+	@Test
+	void shouldHashAllResolvingLatestKeyOnce() {
+		SecretKey secretKey = generateAesSecretKey();
+		when(keyProvider.getLatestKey("blind_id_key", "HmacSHA256")).thenReturn(EncryptionKey.of("blind_id_key", secretKey, 1));
+		List<byte[]> contents = List.of("foo".getBytes(CHARSET), "boo".getBytes(CHARSET), "zoo".getBytes(CHARSET));
+
+		List<byte[]> hashes = blindIndexHasher.hashAll(contents, "blind_id_key", "HmacSHA256");
+
+		assertThat(hashes).hasSize(3);
+		assertThat(hashes.get(2)).isEqualTo(blindIndexHasher.hash(contents.get(2), "blind_id_key", "HmacSHA256"));
+		verify(keyProvider, times(2)).getLatestKey("blind_id_key", "HmacSHA256");
+	}
+
+	@Test
+	void shouldThrowEncryptionException_whenAlgorithmNotRegistered() {
+		Throwable thrown = catchThrowable(() -> blindIndexHasher.hash(new byte[1], "blind_id_key", "HmacSHA512"));
+
+		assertThat(thrown).isInstanceOf(EncryptionException.class);
+	}
+
+	private SecretKey generateAesSecretKey() {
+		SecureRandom secureRandom = new SecureRandom();
+		byte[] key = new byte[16];
+		secureRandom.nextBytes(key);
+		return new SecretKeySpec(key, "AES");
+	}
+}
@@ -0,0 +1,176 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingEncryptionKeyProviderTest {
+
+	private static final String ALGORITHM = "AES/GCM/NoPadding";
+
+	@Mock
+	private EncryptionKeyProvider delegate;
+
+	private final AtomicLong now = new AtomicLong();
+
+	private CachingEncryptionKeyProvider keyProvider;
+
+	@BeforeEach
+	void setup() {
+		keyProvider = new CachingEncryptionKeyProvider(delegate, 2, Duration.ofSeconds(60), Duration.ofSeconds(10), Runnable::run, now::get);
+	}
+
+	@Test
+	void shouldLoadVersionedKeyOnlyOnce() {
+		//given
+		EncryptionKey key = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(delegate.getKey("test_key", 1, ALGORITHM)).thenReturn(key);
+
+		//when
+		keyProvider.getKey("test_key", 1, ALGORITHM);
+		now.addAndGet(Duration.ofDays(1).toNanos());
+		EncryptionKey cached = keyProvider.getKey("test_key", 1, ALGORITHM);
+
+		//then
+		assertThat(cached).isEqualTo(key);
+		verify(delegate, times(1)).getKey("test_key", 1, ALGORITHM);
+		assertThat(keyProvider.getStats().getHitCount()).isEqualTo(1);
+		assertThat(keyProvider.getStats().getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldReloadLatestKey_whenTtlPassed() {
+		//given
+		EncryptionKey key1 = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		EncryptionKey key2 = EncryptionKey.of("test_key", generateAesSecretKey(), 2);
+		when(delegate.getLatestKey("test_key", ALGORITHM)).thenReturn(key1, key2);
+		keyProvider.getLatestKey("test_key", ALGORITHM);
+
+		//when
+		EncryptionKey beforeTtl = keyProvider.getLatestKey("test_key", ALGORITHM);
+		now.addAndGet(Duration.ofSeconds(60).toNanos());
+		EncryptionKey afterTtl = keyProvider.getLatestKey("test_key", ALGORITHM);
+
+		//then
+		assertThat(beforeTtl).isEqualTo(key1);
+		assertThat(afterTtl).isEqualTo(key2);
+	}
+
+	@Test
+	void shouldRefreshLatestKeyAhead_andServeCachedOneMeanwhile() {
+		//given
+		EncryptionKey key1 = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		EncryptionKey key2 = EncryptionKey.of("test_key", generateAesSecretKey(), 2);
+		when(delegate.getLatestKey("test_key", ALGORITHM)).thenReturn(key1, key2);
+		keyProvider.getLatestKey("test_key", ALGORITHM);
+
+		//when
+		now.addAndGet(Duration.ofSeconds(55).toNanos());
+		EncryptionKey duringRefresh = keyProvider.getLatestKey("test_key", ALGORITHM);
+		EncryptionKey afterRefresh = keyProvider.getLatestKey("test_key", ALGORITHM);
+
+		//then
+		assertThat(duringRefresh).isEqualTo(key1);
+		assertThat(afterRefresh).isEqualTo(key2);
+		assertThat(keyProvider.getStats().getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldServeVersionedKey_whenLoadedAsLatest() {
+		//given
+		EncryptionKey key = EncryptionKey.of("test_key", generateAesSecretKey(), 7);
+		when(delegate.getLatestKey("test_key", ALGORITHM)).thenReturn(key);
+		keyProvider.getLatestKey("test_key", ALGORITHM);
+
+		//when
+		EncryptionKey versioned = keyProvider.getKey("test_key", 7, ALGORITHM);
+
+		//then
+		assertThat(versioned).isEqualTo(key);
+		verify(delegate, times(0)).getKey("test_key", 7, ALGORITHM);
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedKey_whenMaximumSizeExceeded() {
+		//given
+		when(delegate.getKey("test_key", 1, ALGORITHM)).thenReturn(EncryptionKey.of("test_key", generateAesSecretKey(), 1));
+		when(delegate.getKey("test_key", 2, ALGORITHM)).thenReturn(EncryptionKey.of("test_key", generateAesSecretKey(), 2));
+		when(delegate.getKey("test_key", 3, ALGORITHM)).thenReturn(EncryptionKey.of("test_key", generateAesSecretKey(), 3));
+		keyProvider.getKey("test_key", 1, ALGORITHM);
+		now.incrementAndGet();
+		keyProvider.getKey("test_key", 2, ALGORITHM);
+		now.incrementAndGet();
+		keyProvider.getKey("test_key", 1, ALGORITHM);
+		now.incrementAndGet();
+
+		//when
+		keyProvider.getKey("test_key", 3, ALGORITHM);
+		keyProvider.getKey("test_key", 1, ALGORITHM);
+		keyProvider.getKey("test_key", 2, ALGORITHM);
+
+		//then
+		verify(delegate, times(1)).getKey("test_key", 1, ALGORITHM);
+		verify(delegate, times(2)).getKey("test_key", 2, ALGORITHM);
+	}
+
+	@Test
+	void shouldLoadOnlyOnce_whenConcurrentMissesForTheSameKey() throws Exception {
+		//given
+		EncryptionKey key = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		CountDownLatch loadStarted = new CountDownLatch(1);
+		CountDownLatch releaseLoad = new CountDownLatch(1);
+		when(delegate.getKey("test_key", 1, ALGORITHM)).thenAnswer(invocation -> {
+			loadStarted.countDown();
+			releaseLoad.await(5, TimeUnit.SECONDS);
+			return key;
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Callable<EncryptionKey>> tasks = IntStream.range(0, 8)
+													   .mapToObj(i -> (Callable<EncryptionKey>) () -> keyProvider.getKey("test_key", 1, ALGORITHM))
+													   .collect(Collectors.toList());
+
+		//when
+		List<Future<EncryptionKey>> results = tasks.stream().map(executor::submit).collect(Collectors.toList());
+		loadStarted.await(5, TimeUnit.SECONDS);
+		Thread.sleep(50);
+		releaseLoad.countDown();
+
+		//then
+		for (Future<EncryptionKey> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(key);
+		}
+		executor.shutdown();
+		verify(delegate, times(1)).getKey("test_key", 1, ALGORITHM);
+		assertThat(keyProvider.getStats().getLoadCount()).isEqualTo(1);
+	}
+
+	private SecretKey generateAesSecretKey() {
+		SecureRandom secureRandom = new SecureRandom();
+		byte[] key = new byte[16];
+		secureRandom.nextBytes(key);
+		return new SecretKeySpec(key, "AES");
+	}
+}
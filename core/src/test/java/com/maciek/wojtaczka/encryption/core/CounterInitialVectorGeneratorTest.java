@@ -0,0 +1,106 @@
+package com.maciek.wojtaczka.encryption.core;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class CounterInitialVectorGeneratorTest {
+
+	@Test
+	void shouldGenerateConsecutiveIvsWithTheSamePrefix_whenCalledFromOneThread() {
+		//given
+		CounterInitialVectorGenerator generator = new CounterInitialVectorGenerator();
+		SecretKey secretKey = generateAesSecretKey();
+		byte[] iv1 = new byte[12];
+		byte[] iv2 = new byte[12];
+
+		//when
+		generator.generate(iv1, secretKey);
+		generator.generate(iv2, secretKey);
+
+		//then
+		assertThat(Arrays.copyOf(iv1, 4)).isEqualTo(Arrays.copyOf(iv2, 4));
+		assertThat(ByteBuffer.wrap(iv2, 4, 8).getLong()).isEqualTo(ByteBuffer.wrap(iv1, 4, 8).getLong() + 1);
+	}
+
+	@Test
+	void shouldNotRepeatIvs_whenCalledFromManyThreads() throws Exception {
+		//given
+		CounterInitialVectorGenerator generator = new CounterInitialVectorGenerator();
+		SecretKey secretKey = generateAesSecretKey();
+		Set<ByteBuffer> generated = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Callable<Object>> tasks = IntStream.range(0, 8)
+												.mapToObj(i -> (Callable<Object>) () -> {
+													for (int j = 0; j < 1000; j++) {
+														byte[] iv = new byte[12];
+														generator.generate(iv, secretKey);
+														generated.add(ByteBuffer.wrap(iv));
+													}
+													return null;
+												})
+												.collect(Collectors.toList());
+
+		//when
+		executor.invokeAll(tasks);
+		executor.shutdown();
+
+		//then
+		assertThat(generated).hasSize(8000);
+	}
+
+	@Test
+	void shouldThrowEncryptionException_whenInvocationLimitForKeyReached() {
+		//given
+		CounterInitialVectorGenerator generator = new CounterInitialVectorGenerator(2);
+		SecretKey secretKey = generateAesSecretKey();
+		generator.generate(new byte[12], secretKey);
+		generator.generate(new byte[12], secretKey);
+
+		//when
+		EncryptionException thrown = catchThrowableOfType(() -> generator.generate(new byte[12], secretKey), EncryptionException.class);
+
+		//then
+		assertThat(thrown).hasMessageContaining("must be rotated");
+		generator.generate(new byte[12], generateAesSecretKey());
+	}
+
+	@Test
+	void shouldCountInvocationsPerKeyNameAndVersion_whenKeyInstancesRecreated() {
+		//given
+		CounterInitialVectorGenerator generator = new CounterInitialVectorGenerator(2);
+		generator.generate(new byte[12], EncryptionKey.of("key", generateAesSecretKey(), 1));
+		generator.generate(new byte[12], EncryptionKey.of("key", generateAesSecretKey(), 1));
+
+		//when
+		EncryptionException thrown = catchThrowableOfType(
+			() -> generator.generate(new byte[12], EncryptionKey.of("key", generateAesSecretKey(), 1)), EncryptionException.class);
+
+		//then
+		assertThat(thrown).hasMessageContaining("must be rotated");
+		generator.generate(new byte[12], EncryptionKey.of("key", generateAesSecretKey(), 2));
+	}
+
+	private SecretKey generateAesSecretKey() {
+		SecureRandom secureRandom = new SecureRandom();
+		byte[] key = new byte[16];
+		secureRandom.nextBytes(key);
+		return new SecretKeySpec(key, "AES");
+	}
+}
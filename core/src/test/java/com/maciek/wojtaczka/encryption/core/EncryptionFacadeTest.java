@@ -9,13 +9,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static java.nio.charset.StandardCharsets.UTF_16;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -93,6 +99,85 @@ class EncryptionFacadeTest {
 		assertThat(decrypted).isEqualTo(toBeEncryptedBytes);
 	}
 
+	@Test
+	void shouldEncryptAndDecryptBuffers() {
+
+		byte[] toBeEncryptedBytes = "foo_boo".getBytes(CHARSET);
+		EncryptionKey test_key = EncryptionKey.of("test_key", generateAesSecretKey(), 3);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(test_key);
+		when(keyProvider.getKey("test_key", 3, "AES/GCM/NoPadding")).thenReturn(test_key);
+		ByteBuffer encrypted = ByteBuffer.allocate(encryptionFacade.getEncryptedSize(toBeEncryptedBytes.length, "AES/GCM/NoPadding"));
+		ByteBuffer decrypted = ByteBuffer.allocate(toBeEncryptedBytes.length);
+
+		CipherRecordHeader header = encryptionFacade.encrypt(ByteBuffer.wrap(toBeEncryptedBytes), encrypted, "test_key", "AES/GCM/NoPadding");
+		encryptionFacade.decrypt(encrypted.flip(), decrypted, "test_key", header.getEncryptionKeyVersion(), "AES/GCM/NoPadding");
+
+		assertAll(
+			() -> assertThat(header).isEqualTo(CipherRecordHeader.of("AES/GCM/NoPadding", "test_key", 3)),
+			() -> assertThat(decrypted.array()).isEqualTo(toBeEncryptedBytes)
+		);
+	}
+
+	@Test
+	void shouldEncryptBatchInOrder_resolvingLatestKeyOnce() {
+
+		EncryptionKey test_key = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(test_key);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(test_key);
+		List<byte[]> contents = List.of("foo".getBytes(CHARSET), "boo".getBytes(CHARSET), "zoo".getBytes(CHARSET));
+
+		List<CipherRecord> cipherRecords = encryptionFacade.encryptBatch(contents, "test_key", "AES/GCM/NoPadding");
+
+		assertAll(
+			() -> assertThat(cipherRecords).hasSize(3),
+			() -> assertThat(encryptionFacade.decryptRecord(cipherRecords.get(0), "test_key", "AES/GCM/NoPadding")).isEqualTo(contents.get(0)),
+			() -> assertThat(encryptionFacade.decryptRecord(cipherRecords.get(2), "test_key", "AES/GCM/NoPadding")).isEqualTo(contents.get(2)),
+			() -> verify(keyProvider, times(1)).getLatestKey("test_key", "AES/GCM/NoPadding")
+		);
+	}
+
+	@Test
+	void shouldDecryptBatchInOrder_resolvingEachKeyVersionOnce() {
+
+		EncryptionKey key_v1 = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		EncryptionKey key_v2 = EncryptionKey.of("test_key", generateAesSecretKey(), 2);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(key_v1, key_v2, key_v1);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(key_v1);
+		when(keyProvider.getKey("test_key", 2, "AES/GCM/NoPadding")).thenReturn(key_v2);
+		List<byte[]> contents = List.of("foo".getBytes(CHARSET), "boo".getBytes(CHARSET), "zoo".getBytes(CHARSET));
+		List<CipherRecord> cipherRecords = contents.stream()
+												   .map(content -> encryptionFacade.encryptBytes(content, "test_key", "AES/GCM/NoPadding"))
+												   .collect(Collectors.toList());
+
+		List<byte[]> decrypted = encryptionFacade.decryptBatch(cipherRecords, "test_key", "AES/GCM/NoPadding");
+
+		assertAll(
+			() -> assertThat(decrypted).containsExactlyElementsOf(contents),
+			() -> verify(keyProvider, times(1)).getKey("test_key", 1, "AES/GCM/NoPadding"),
+			() -> verify(keyProvider, times(1)).getKey("test_key", 2, "AES/GCM/NoPadding")
+		);
+	}
+
+	@Test
+	void shouldFindStaleHeaders_resolvingLatestKeyOnce() {
+
+		EncryptionKey key_v2 = EncryptionKey.of("test_key", generateAesSecretKey(), 2);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(key_v2);
+		List<CipherRecordHeader> headers = List.of(
+			CipherRecordHeader.of("AES/GCM/NoPadding", "test_key", 1),
+			CipherRecordHeader.of("AES/GCM/NoPadding", "test_key", 2),
+			CipherRecordHeader.of("AES/GCM/NoPadding", "test_key", 1)
+		);
+		List<Integer> stale = new ArrayList<>();
+
+		encryptionFacade.findStale(headers, stale::add);
+
+		assertAll(
+			() -> assertThat(stale).containsExactly(0, 2),
+			() -> verify(keyProvider, times(1)).getLatestKey("test_key", "AES/GCM/NoPadding")
+		);
+	}
+
 	private SecretKey generateAesSecretKey() {
 		SecureRandom secureRandom = new SecureRandom();
 		byte[] key = new byte[16];
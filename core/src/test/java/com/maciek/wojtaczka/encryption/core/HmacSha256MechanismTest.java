@@ -7,6 +7,7 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.Charset;
 import java.security.SecureRandom;
+import java.util.List;
 
 import static java.nio.charset.StandardCharsets.UTF_16;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -15,11 +16,11 @@ class HmacSha256MechanismTest {
 
 	private static final Charset CHARSET = UTF_16;
 
-	private HmacSha256Mechanism cipherMechanism;
+	private HmacSha256Mechanism hashMechanism;
 
 	@BeforeEach
 	void setup() {
-		cipherMechanism = new HmacSha256Mechanism();
+		hashMechanism = new HmacSha256Mechanism();
 	}
 
 	@Test
@@ -27,7 +28,7 @@ class HmacSha256MechanismTest {
 		String toBeEncrypted = "foo_boo";
 		SecretKey secretKey = generateAesSecretKey();
 
-		byte[] cipherResult = cipherMechanism.encrypt(toBeEncrypted.getBytes(CHARSET), secretKey);
+		byte[] cipherResult = hashMechanism.hash(toBeEncrypted.getBytes(CHARSET), secretKey);
 
 		assertThat(cipherResult).isNotEqualTo(toBeEncrypted.getBytes(CHARSET));
 	}
@@ -37,12 +38,38 @@ class HmacSha256MechanismTest {
 		String toBeEncrypted = "foo_boo";
 		SecretKey secretKey = generateAesSecretKey();
 
-		byte[] cipherResult1 = cipherMechanism.encrypt(toBeEncrypted.getBytes(CHARSET), secretKey);
-		byte[] cipherResult2 = cipherMechanism.encrypt(toBeEncrypted.getBytes(CHARSET), secretKey);
+		byte[] cipherResult1 = hashMechanism.hash(toBeEncrypted.getBytes(CHARSET), secretKey);
+		byte[] cipherResult2 = hashMechanism.hash(toBeEncrypted.getBytes(CHARSET), secretKey);
 
 		assertThat(cipherResult1).isEqualTo(cipherResult2);
 	}
 
+	@Test
+	void shouldHashWithTheKeyPassed_whenKeysAlternate() {
+		String toBeEncrypted = "foo_boo";
+		SecretKey secretKey1 = generateAesSecretKey();
+		SecretKey secretKey2 = generateAesSecretKey();
+
+		byte[] cipherResult1 = hashMechanism.hash(toBeEncrypted.getBytes(CHARSET), secretKey1);
+		byte[] cipherResult2 = hashMechanism.hash(toBeEncrypted.getBytes(CHARSET), secretKey2);
+		byte[] cipherResult3 = hashMechanism.hash(toBeEncrypted.getBytes(CHARSET), secretKey1);
+
+		assertThat(cipherResult1).isNotEqualTo(cipherResult2);
+		assertThat(cipherResult1).isEqualTo(cipherResult3);
+	}
+
+	@Test
+	void shouldHashAllInputsInOrder_likeOneByOne() {
+		SecretKey secretKey = generateAesSecretKey();
+		List<byte[]> contents = List.of("foo".getBytes(CHARSET), "boo".getBytes(CHARSET));
+
+		List<byte[]> hashes = hashMechanism.hashAll(contents, secretKey);
+
+		assertThat(hashes).hasSize(2);
+		assertThat(hashes.get(0)).isEqualTo(hashMechanism.hash(contents.get(0), secretKey));
+		assertThat(hashes.get(1)).isEqualTo(hashMechanism.hash(contents.get(1), secretKey));
+	}
+
 	private SecretKey generateAesSecretKey() {
 		SecureRandom secureRandom = new SecureRandom();
 		byte[] key = new byte[16];
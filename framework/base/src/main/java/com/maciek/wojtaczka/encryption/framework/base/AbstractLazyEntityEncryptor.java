@@ -6,6 +6,19 @@ public abstract class AbstractLazyEntityEncryptor<F> implements EntityEncryptor<
 		StaticDecryptor.initialize(this);
 	}
 
+	/**
+	 * Registers the encryptor for lazy decryption of fields of the given type only,
+	 * so encryptors of different field types can work side by side.
+	 */
+	protected AbstractLazyEntityEncryptor(Class<F> encryptedFieldType) {
+		StaticDecryptor.initialize(this, encryptedFieldType);
+	}
+
+	abstract String resolveKeyName(Object entity);
+
+	/**
+	 * Decrypts the field on its first access only, later calls leave the decrypted value as it is.
+	 */
 	abstract void decryptFieldLazily(Object entity, String fieldName, String keyName);
 
 	abstract void decryptIterableFieldLazily(Object entity, String fieldName, String keyName);
@@ -0,0 +1,52 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
+import com.maciek.wojtaczka.encryption.core.EncryptionKey;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+
+import static java.util.stream.StreamSupport.stream;
+
+abstract class AbstractStaleEncryptionPredicate<F> implements StaleEncryptionPredicate {
+
+	private final FieldExtractor fieldExtractor;
+	private final EncryptionKeyProvider encryptionKeyProvider;
+	private final Class<F> encryptedFieldType;
+
+	AbstractStaleEncryptionPredicate(EncryptionKeyProvider encryptionKeyProvider, Class<F> encryptedFieldType) {
+		this.encryptionKeyProvider = encryptionKeyProvider;
+		this.encryptedFieldType = encryptedFieldType;
+		this.fieldExtractor = new FieldExtractor();
+	}
+
+	abstract CipherRecordHeader readHeader(F encryptedValue);
+
+	@Override
+	public boolean isStale(Object entity) {
+
+		FieldExtractor.FieldsContainer<F> toBeEncryptedContainer = fieldExtractor.getAllFieldsToBeEncrypted(entity, encryptedFieldType);
+		boolean isAnyFieldStale = toBeEncryptedContainer
+								   .getFields()
+								   .stream()
+								   .map(FieldWithContext::getValue)
+								   .map(this::readHeader)
+								   .anyMatch(this::isCipherRecordKeyVersionLowerThenLatestKey);
+
+		boolean isAnyIterableFieldStale = toBeEncryptedContainer
+								   .getIterableFields()
+								   .stream()
+								   .flatMap(iterableFieldWithContext -> stream(iterableFieldWithContext.getValue().spliterator(), false))
+								   .map(this::readHeader)
+								   .anyMatch(this::isCipherRecordKeyVersionLowerThenLatestKey);
+
+		return isAnyFieldStale || isAnyIterableFieldStale;
+	}
+
+	private boolean isCipherRecordKeyVersionLowerThenLatestKey(CipherRecordHeader cipherRecord) {
+
+		String cipherMechanismType = cipherRecord.getCipherMechanismType();
+		String encryptionKeyName = cipherRecord.getEncryptionKeyName();
+		EncryptionKey latestKey = encryptionKeyProvider.getLatestKey(encryptionKeyName, cipherMechanismType);
+
+		return cipherRecord.getEncryptionKeyVersion() < latestKey.getVersion();
+	}
+}
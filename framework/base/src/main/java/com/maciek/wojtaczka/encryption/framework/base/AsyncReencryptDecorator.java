@@ -1,5 +1,7 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public class AsyncReencryptDecorator<F> implements EntityEncryptor<F> {
@@ -26,27 +28,56 @@ public class AsyncReencryptDecorator<F> implements EntityEncryptor<F> {
 		entityEncryptor.encryptObject(entity, keyName);
 	}
 
+	@Override
+	public List<Class<?>> getEncryptedFieldTypes() {
+		return entityEncryptor.getEncryptedFieldTypes();
+	}
+
+	/**
+	 * Staleness of the keys is told by the decorated encryptor while decrypting, the predicate is used only by the ones
+	 * which cannot tell it on their own.
+	 */
 	@Override
 	public void decryptObject(Object entity) {
-		boolean isStale = predicate.isStale(entity);
-		entityEncryptor.decryptObject(entity);
-		CompletableFuture.runAsync(() -> {
-		if (isStale) {
-				encryptObject(entity);
-				entityUpdater.updateEntity(entity);
-			}
-		});
+		boolean isStale = entityEncryptor.decryptObjectAndCheckStale(entity, predicate);
+		reencryptAsync(isStale ? List.of(entity) : List.of());
 	}
 
 	@Override
 	public void decryptObject(Object entity, String keyName) {
-		boolean isStale = predicate.isStale(entity);
-		entityEncryptor.decryptObject(entity, keyName);
+		boolean isStale = entityEncryptor.decryptObjectAndCheckStale(entity, keyName, predicate);
+		reencryptAsync(isStale ? List.of(entity) : List.of());
+	}
+
+	@Override
+	public void encryptAll(Collection<?> entities) {
+		entityEncryptor.encryptAll(entities);
+	}
+
+	@Override
+	public void encryptAll(Collection<?> entities, String keyName) {
+		entityEncryptor.encryptAll(entities, keyName);
+	}
+
+	@Override
+	public void decryptAll(Collection<?> entities) {
+		List<Object> staleEntities = entityEncryptor.decryptAllAndFindStale(entities, predicate);
+		reencryptAsync(staleEntities);
+	}
+
+	@Override
+	public void decryptAll(Collection<?> entities, String keyName) {
+		List<Object> staleEntities = entityEncryptor.decryptAllAndFindStale(entities, keyName, predicate);
+		reencryptAsync(staleEntities);
+	}
+
+	private void reencryptAsync(List<Object> staleEntities) {
+		if (staleEntities.isEmpty()) {
+			return;
+		}
 		CompletableFuture.runAsync(() -> {
-			if (isStale) {
-				encryptObject(entity);
-				entityUpdater.updateEntity(entity);
-			}
+			encryptAll(staleEntities);
+			staleEntities.forEach(entityUpdater::updateEntity);
 		});
 	}
 }
@@ -0,0 +1,242 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary record format:
+ * <pre>
+ * format version | mechanism id | key version (varint) | key name id (varint) | cipher content
+ * </pre>
+ * Mechanism id and key name id equal to 0 are followed by the inline value: varint length and UTF-8 bytes.
+ */
+class BinaryCipherRecordFormat {
+
+	static final int FORMAT_VERSION = 0x01;
+
+	private static final int INLINE_MECHANISM = 0;
+	private static final String[] MECHANISMS_BY_ID = { null, "AES/GCM/NoPadding" };
+
+	private final KeyNameDictionary keyNameDictionary;
+
+	BinaryCipherRecordFormat(KeyNameDictionary keyNameDictionary) {
+		this.keyNameDictionary = keyNameDictionary;
+	}
+
+	byte[] write(CipherRecord cr) {
+		int mechanismId = getMechanismId(cr.getCipherMechanismType());
+		byte[] inlineMechanism = mechanismId == INLINE_MECHANISM ? toUtf8(cr.getCipherMechanismType()) : null;
+		int keyNameId = keyNameDictionary.getId(cr.getEncryptionKeyName());
+		byte[] inlineKeyName = keyNameId == KeyNameDictionary.INLINE ? toUtf8(cr.getEncryptionKeyName()) : null;
+		byte[] cipherContent = cr.getCipherContent();
+
+		int headerLength = 2 + varIntSize(cr.getEncryptionKeyVersion()) + varIntSize(keyNameId)
+				+ inlineSize(inlineMechanism) + inlineSize(inlineKeyName);
+		byte[] bytes = new byte[headerLength + cipherContent.length];
+
+		int position = 0;
+		bytes[position++] = FORMAT_VERSION;
+		bytes[position++] = (byte) mechanismId;
+		position = writeInline(bytes, position, inlineMechanism);
+		position = writeVarInt(bytes, position, cr.getEncryptionKeyVersion());
+		position = writeVarInt(bytes, position, keyNameId);
+		position = writeInline(bytes, position, inlineKeyName);
+		System.arraycopy(cipherContent, 0, bytes, position, cipherContent.length);
+
+		return bytes;
+	}
+
+	CipherRecordHeader readHeader(Reader reader) {
+		int formatVersion = reader.readByte();
+		if (formatVersion != FORMAT_VERSION) {
+			throw new EncryptionException("Unknown cipher record format: " + formatVersion);
+		}
+		int mechanismId = reader.readByte();
+		String cipherMechanismType = mechanismId == INLINE_MECHANISM ? reader.readInline() : getMechanism(mechanismId);
+		int encryptionKeyVersion = reader.readVarInt();
+		int keyNameId = reader.readVarInt();
+		String encryptionKeyName = keyNameId == KeyNameDictionary.INLINE ? reader.readInline() : getKeyName(keyNameId);
+
+		return CipherRecordHeader.of(cipherMechanismType, encryptionKeyName, encryptionKeyVersion);
+	}
+
+	CipherRecord readRecord(Reader reader) {
+		CipherRecordHeader header = readHeader(reader);
+
+		return new CipherRecord(
+				reader.readRemaining(),
+				header.getCipherMechanismType(),
+				header.getEncryptionKeyName(),
+				header.getEncryptionKeyVersion()
+		);
+	}
+
+	private static int getMechanismId(String cipherMechanismType) {
+		for (int id = 1; id < MECHANISMS_BY_ID.length; id++) {
+			if (MECHANISMS_BY_ID[id].equals(cipherMechanismType)) {
+				return id;
+			}
+		}
+		return INLINE_MECHANISM;
+	}
+
+	private static String getMechanism(int mechanismId) {
+		if (mechanismId >= MECHANISMS_BY_ID.length) {
+			throw new EncryptionException("Unknown cipher mechanism id: " + mechanismId);
+		}
+		return MECHANISMS_BY_ID[mechanismId];
+	}
+
+	private String getKeyName(int keyNameId) {
+		String keyName = keyNameDictionary.getName(keyNameId);
+		if (keyName == null) {
+			throw new EncryptionException("Key name id " + keyNameId + " not found in the dictionary");
+		}
+		return keyName;
+	}
+
+	private static byte[] toUtf8(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int inlineSize(byte[] inline) {
+		return inline == null ? 0 : varIntSize(inline.length) + inline.length;
+	}
+
+	private static int writeInline(byte[] bytes, int position, byte[] inline) {
+		if (inline == null) {
+			return position;
+		}
+		position = writeVarInt(bytes, position, inline.length);
+		System.arraycopy(inline, 0, bytes, position, inline.length);
+		return position + inline.length;
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private static int writeVarInt(byte[] bytes, int position, int value) {
+		while ((value & ~0x7F) != 0) {
+			bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[position++] = (byte) value;
+		return position;
+	}
+
+	/**
+	 * Reads a record byte by byte, so the header can be parsed without copying the cipher content.
+	 */
+	abstract static class Reader {
+
+		int position;
+
+		abstract int length();
+
+		abstract int byteAt(int index);
+
+		abstract byte[] copy(int from, int to);
+
+		int readByte() {
+			if (position >= length()) {
+				throw new EncryptionException("Cipher record truncated");
+			}
+			return byteAt(position++);
+		}
+
+		int readVarInt() {
+			int value = 0;
+			for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new EncryptionException("Malformed varint in cipher record");
+		}
+
+		String readInline() {
+			int length = readVarInt();
+			if (length > length() - position) {
+				throw new EncryptionException("Cipher record truncated");
+			}
+			return new String(read(length), StandardCharsets.UTF_8);
+		}
+
+		byte[] readRemaining() {
+			return read(length() - position);
+		}
+
+		private byte[] read(int length) {
+			byte[] bytes = copy(position, position + length);
+			position += length;
+			return bytes;
+		}
+	}
+
+	/**
+	 * Record kept in a string one char per byte (ISO-8859-1).
+	 */
+	static final class StringReader extends Reader {
+
+		private final String record;
+
+		StringReader(String record) {
+			this.record = record;
+		}
+
+		@Override
+		int length() {
+			return record.length();
+		}
+
+		@Override
+		int byteAt(int index) {
+			return record.charAt(index) & 0xFF;
+		}
+
+		@Override
+		byte[] copy(int from, int to) {
+			byte[] bytes = new byte[to - from];
+			for (int i = from; i < to; i++) {
+				bytes[i - from] = (byte) record.charAt(i);
+			}
+			return bytes;
+		}
+	}
+
+	static final class ByteArrayReader extends Reader {
+
+		private final byte[] record;
+
+		ByteArrayReader(byte[] record) {
+			this.record = record;
+		}
+
+		@Override
+		int length() {
+			return record.length;
+		}
+
+		@Override
+		int byteAt(int index) {
+			return record[index] & 0xFF;
+		}
+
+		@Override
+		byte[] copy(int from, int to) {
+			return Arrays.copyOfRange(record, from, to);
+		}
+	}
+}
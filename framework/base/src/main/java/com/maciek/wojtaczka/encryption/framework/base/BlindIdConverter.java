@@ -1,18 +1,123 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
+import com.maciek.wojtaczka.encryption.core.CachingEncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 public class BlindIdConverter <C> {
 
 	private final FieldEncryptor<C> fieldEncryptor;
 	private final KeyNameResolver keyNameResolver;
 	private final String hashingAlgorithm;
+	private final BlindIdFormat blindIdFormat;
+	private final EncryptionKeyProvider keyProvider;
+	private final BlindIdMemo memo;
 
 	public BlindIdConverter(FieldEncryptor<C> fieldEncryptor, KeyNameResolver keyNameResolver, String hashingAlgorithm) {
+		this(fieldEncryptor, keyNameResolver, hashingAlgorithm, BlindIdFormat.legacy());
+	}
+
+	public BlindIdConverter(FieldEncryptor<C> fieldEncryptor, KeyNameResolver keyNameResolver, String hashingAlgorithm,
+							BlindIdFormat blindIdFormat) {
+		this.fieldEncryptor = fieldEncryptor;
+		this.keyNameResolver = keyNameResolver;
+		this.hashingAlgorithm = hashingAlgorithm;
+		this.blindIdFormat = blindIdFormat;
+		this.keyProvider = null;
+		this.memo = null;
+	}
+
+	/**
+	 * Blind ids of up to memoSize values are remembered, e.g. for the statuses or surnames queried over and over.
+	 * The key provider tells the version of the latest blind id key, so the memo moves on once the key rotates.
+	 * It is wrapped with a {@link CachingEncryptionKeyProvider} unless it is one, so a memo hit costs no provider call.
+	 */
+	public BlindIdConverter(FieldEncryptor<C> fieldEncryptor, KeyNameResolver keyNameResolver, String hashingAlgorithm,
+							BlindIdFormat blindIdFormat, EncryptionKeyProvider keyProvider, int memoSize) {
+		if (memoSize < 1) {
+			throw new EncryptionException("Blind id memo size has to be at least 1, was: " + memoSize);
+		}
 		this.fieldEncryptor = fieldEncryptor;
 		this.keyNameResolver = keyNameResolver;
 		this.hashingAlgorithm = hashingAlgorithm;
+		this.blindIdFormat = blindIdFormat;
+		this.keyProvider = keyProvider instanceof CachingEncryptionKeyProvider ? keyProvider : new CachingEncryptionKeyProvider(keyProvider);
+		this.memo = new BlindIdMemo(memoSize);
+	}
+
+	/**
+	 * @return blind id of the type matching the configured {@link BlindIdEncoding}
+	 */
+	public Object hash(C value) {
+		String keyName = keyNameResolver.resolveBlindIdKeyName();
+		if (memo == null) {
+			return blindIdFormat.encode(fieldEncryptor.hash(value, keyName, hashingAlgorithm));
+		}
+		BlindIdMemo.Key key = BlindIdMemo.keyOf(keyName, latestKeyVersion(keyName), hashingAlgorithm, value);
+		Object blindId = memo.get(key);
+		if (blindId == null) {
+			blindId = blindIdFormat.encode(fieldEncryptor.hash(value, keyName, hashingAlgorithm));
+			memo.put(key, blindId);
+		}
+		return copyOf(blindId);
+	}
+
+	/**
+	 * Equal values are hashed once per batch, and not at all when their blind ids are remembered.
+	 */
+	public List<Object> hashAll(Collection<C> values) {
+		String keyName = keyNameResolver.resolveBlindIdKeyName();
+		Integer keyVersion = memo == null ? null : latestKeyVersion(keyName);
+		Map<Object, Object> blindIdsByValue = new LinkedHashMap<>();
+		Map<Object, C> toBeHashed = new LinkedHashMap<>();
+		for (C value : values) {
+			Object comparableValue = comparable(value);
+			if (blindIdsByValue.containsKey(comparableValue) || toBeHashed.containsKey(comparableValue)) {
+				continue;
+			}
+			Object blindId = memo == null ? null : memo.get(BlindIdMemo.keyOf(keyName, keyVersion, hashingAlgorithm, value));
+			if (blindId == null) {
+				toBeHashed.put(comparableValue, value);
+			} else {
+				blindIdsByValue.put(comparableValue, blindId);
+			}
+		}
+		if (!toBeHashed.isEmpty()) {
+			List<byte[]> hashes = fieldEncryptor.hashAll(new ArrayList<>(toBeHashed.values()), keyName, hashingAlgorithm);
+			int i = 0;
+			for (Map.Entry<Object, C> entry : toBeHashed.entrySet()) {
+				Object blindId = blindIdFormat.encode(hashes.get(i++));
+				blindIdsByValue.put(entry.getKey(), blindId);
+				if (memo != null) {
+					memo.put(BlindIdMemo.keyOf(keyName, keyVersion, hashingAlgorithm, entry.getValue()), blindId);
+				}
+			}
+		}
+		return values.stream()
+					 .map(value -> copyOf(blindIdsByValue.get(comparable(value))))
+					 .collect(Collectors.toList());
+	}
+
+	private int latestKeyVersion(String keyName) {
+		return keyProvider.getLatestKey(keyName, hashingAlgorithm).getVersion();
+	}
+
+	private static Object comparable(Object value) {
+		return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value;
 	}
 
-	public String hash(C value) {
-		return fieldEncryptor.hash(value, keyNameResolver.resolveBlindIdKeyName(), hashingAlgorithm);
+	/**
+	 * Blind ids encoded as byte arrays are copied, so the remembered or shared ones cannot be changed through entities.
+	 */
+	private static Object copyOf(Object blindId) {
+		return blindId instanceof byte[] ? ((byte[]) blindId).clone() : blindId;
 	}
 }
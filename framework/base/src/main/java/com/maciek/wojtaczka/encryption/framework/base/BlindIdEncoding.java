@@ -0,0 +1,66 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * How the hash behind a blind id is stored. The blind id field has to be of the matching type.
+ */
+public enum BlindIdEncoding {
+
+	/**
+	 * Hash bytes decoded as UTF-16 into a {@link String}. Lossy and hard to index, kept only for blind ids already stored.
+	 */
+	UTF_16 {
+		@Override
+		Object encode(byte[] hash) {
+			return new String(hash, StandardCharsets.UTF_16);
+		}
+	},
+	/**
+	 * Lower case hexadecimal {@link String}, two chars per byte.
+	 */
+	HEX {
+		@Override
+		Object encode(byte[] hash) {
+			char[] chars = new char[hash.length * 2];
+			for (int i = 0; i < hash.length; i++) {
+				chars[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+				chars[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+			}
+			return new String(chars);
+		}
+	},
+	/**
+	 * URL safe Base64 {@link String} without padding, four chars per three bytes.
+	 */
+	BASE64_URL {
+		@Override
+		Object encode(byte[] hash) {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+		}
+	},
+	/**
+	 * Raw bytes, for BINARY/VARBINARY columns.
+	 */
+	BYTES {
+		@Override
+		Object encode(byte[] hash) {
+			return hash;
+		}
+	},
+	/**
+	 * First 8 bytes of the hash as a {@link Long}, for BIGINT columns.
+	 */
+	LONG {
+		@Override
+		Object encode(byte[] hash) {
+			return ByteBuffer.wrap(hash, 0, Long.BYTES).getLong();
+		}
+	};
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	abstract Object encode(byte[] hash);
+}
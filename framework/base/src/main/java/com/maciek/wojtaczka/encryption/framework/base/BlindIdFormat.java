@@ -0,0 +1,59 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import lombok.Value;
+
+import java.util.Arrays;
+
+/**
+ * Encoding and length of blind ids.
+ * <p>
+ * Truncating the hash makes blind ids and their indexes smaller, at the cost of collisions:
+ * with n bits kept, a column of N distinct values holds a colliding pair with probability of about N^2 / 2^(n+1).
+ * For a million distinct values that is ~3e-8 with 8 bytes (also the {@link BlindIdEncoding#LONG} form) and negligible with 16 bytes.
+ * A collision makes a search by blind id return rows of the other value too, so callers needing exact matches
+ * should compare the decrypted values.
+ */
+@Value
+public class BlindIdFormat {
+
+	/**
+	 * Keeps the whole hash.
+	 */
+	public static final int FULL_LENGTH = 0;
+
+	BlindIdEncoding encoding;
+	int length;
+
+	private BlindIdFormat(BlindIdEncoding encoding, int length) {
+		if (length < FULL_LENGTH) {
+			throw new IllegalArgumentException("Blind id length must not be negative");
+		}
+		if (encoding == BlindIdEncoding.LONG && length != FULL_LENGTH && length != Long.BYTES) {
+			throw new IllegalArgumentException("Blind id encoded as LONG is always " + Long.BYTES + " bytes long");
+		}
+		this.encoding = encoding;
+		this.length = length;
+	}
+
+	public static BlindIdFormat of(BlindIdEncoding encoding, int length) {
+		return new BlindIdFormat(encoding, length);
+	}
+
+	public static BlindIdFormat of(BlindIdEncoding encoding) {
+		return new BlindIdFormat(encoding, FULL_LENGTH);
+	}
+
+	/**
+	 * Format of blind ids written before the encoding became configurable.
+	 */
+	public static BlindIdFormat legacy() {
+		return of(BlindIdEncoding.UTF_16);
+	}
+
+	Object encode(byte[] hash) {
+		if (length == FULL_LENGTH || length >= hash.length) {
+			return encoding.encode(hash);
+		}
+		return encoding.encode(Arrays.copyOf(hash, length));
+	}
+}
@@ -0,0 +1,83 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded concurrent memo of blind ids keyed by the key name, key version, algorithm and the plain value.
+ * Once a newer version of a key is seen the blind ids of its older versions are dropped, while lookups and puts of an
+ * older version seen later, e.g. by a thread still holding it during a rotation, are ignored.
+ * When full, an arbitrary entry is dropped, which is enough for the few thousand values repeated in queries.
+ */
+final class BlindIdMemo {
+
+	private final int maximumSize;
+	private final Map<Key, Object> blindIds = new ConcurrentHashMap<>();
+	private final Map<String, Integer> latestVersions = new ConcurrentHashMap<>();
+
+	BlindIdMemo(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	Object get(Key key) {
+		if (isOlderThanLatest(key)) {
+			return null;
+		}
+		return blindIds.get(key);
+	}
+
+	void put(Key key, Object blindId) {
+		if (isOlderThanLatest(key)) {
+			return;
+		}
+		if (blindIds.size() >= maximumSize) {
+			Iterator<Key> keys = blindIds.keySet().iterator();
+			if (keys.hasNext()) {
+				keys.next();
+				keys.remove();
+			}
+		}
+		blindIds.put(key, blindId);
+	}
+
+	/**
+	 * Moves the latest version of the key forward only, dropping the blind ids of the older versions when it moves.
+	 */
+	private boolean isOlderThanLatest(Key key) {
+		String keyName = key.getKeyName();
+		int keyVersion = key.getKeyVersion();
+		Integer previousVersion = latestVersions.get(keyName);
+		if (previousVersion != null && previousVersion == keyVersion) {
+			return false;
+		}
+		int latestVersion = latestVersions.merge(keyName, keyVersion, Math::max);
+		if (keyVersion < latestVersion) {
+			return true;
+		}
+		if (previousVersion != null) {
+			blindIds.keySet().removeIf(memoized -> memoized.getKeyName().equals(keyName) && memoized.getKeyVersion() < keyVersion);
+		}
+		return false;
+	}
+
+	int size() {
+		return blindIds.size();
+	}
+
+	static Key keyOf(String keyName, int keyVersion, String algorithm, Object value) {
+		Object comparableValue = value instanceof byte[] ? ByteBuffer.wrap(((byte[]) value).clone()) : value;
+		return new Key(keyName, keyVersion, algorithm, comparableValue);
+	}
+
+	@Value
+	static class Key {
+		String keyName;
+		int keyVersion;
+		String algorithm;
+		Object value;
+	}
+}
@@ -0,0 +1,31 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
+
+/**
+ * Keeps records of {@link BinaryCipherRecordFormat} as raw bytes, for binary columns.
+ */
+class ByteArrayCipherRecordConverter {
+
+	private final BinaryCipherRecordFormat format;
+
+	ByteArrayCipherRecordConverter(KeyNameDictionary keyNameDictionary) {
+		this.format = new BinaryCipherRecordFormat(keyNameDictionary);
+	}
+
+	byte[] convertToBytes(CipherRecord cr) {
+		return format.write(cr);
+	}
+
+	CipherRecord convertToCipherRecord(byte[] record) {
+		return format.readRecord(new BinaryCipherRecordFormat.ByteArrayReader(record));
+	}
+
+	/**
+	 * Reads only the header, without copying the cipher content.
+	 */
+	CipherRecordHeader convertToHeader(byte[] record) {
+		return format.readHeader(new BinaryCipherRecordFormat.ByteArrayReader(record));
+	}
+}
@@ -0,0 +1,109 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
+import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Encrypts binary fields into raw cipher records, meant to be stored in binary columns.
+ */
+public class ByteArrayEncryptor implements FieldEncryptor<byte[]> {
+
+	private final EncryptionFacade encryptionFacade;
+	private final BlindIndexHasher blindIndexHasher;
+	private final ByteArrayCipherRecordConverter converter;
+
+	public ByteArrayEncryptor(EncryptionFacade encryptionFacade, BlindIndexHasher blindIndexHasher) {
+		this(encryptionFacade, blindIndexHasher, KeyNameDictionary.empty());
+	}
+
+	public ByteArrayEncryptor(EncryptionFacade encryptionFacade, BlindIndexHasher blindIndexHasher, KeyNameDictionary keyNameDictionary) {
+		this.encryptionFacade = encryptionFacade;
+		this.blindIndexHasher = blindIndexHasher;
+		this.converter = new ByteArrayCipherRecordConverter(keyNameDictionary);
+	}
+
+	@Override
+	public byte[] encrypt(byte[] content, String keyName, String algorithm) {
+
+		CipherRecord cipherRecord = encryptionFacade.encryptBytes(content, keyName, algorithm);
+
+		return converter.convertToBytes(cipherRecord);
+	}
+
+	@Override
+	public byte[] decrypt(byte[] encryptedContent, String keyName, String algorithm) {
+
+		CipherRecord cipherRecord = converter.convertToCipherRecord(encryptedContent);
+
+		return encryptionFacade.decryptRecord(cipherRecord, keyName, algorithm);
+	}
+
+	@Override
+	public boolean isEncryptedWithLatestKey(byte[] encryptedContent, String keyName, String algorithm) {
+
+		CipherRecordHeader header = converter.convertToHeader(encryptedContent);
+
+		return header.getEncryptionKeyName().equals(keyName)
+			   && header.getCipherMechanismType().equals(algorithm)
+			   && encryptionFacade.isEncryptedWithLatestKey(header);
+	}
+
+	@Override
+	public List<byte[]> encryptAll(List<byte[]> contents, String keyName, String algorithm) {
+
+		return encryptionFacade.encryptBatch(contents, keyName, algorithm)
+							   .stream()
+							   .map(converter::convertToBytes)
+							   .collect(Collectors.toList());
+	}
+
+	@Override
+	public List<byte[]> decryptAll(List<byte[]> encryptedContents, String keyName, String algorithm) {
+
+		List<CipherRecord> cipherRecords = encryptedContents.stream()
+															.map(converter::convertToCipherRecord)
+															.collect(Collectors.toList());
+
+		return encryptionFacade.decryptBatch(cipherRecords, keyName, algorithm);
+	}
+
+	@Override
+	public List<byte[]> decryptAll(List<byte[]> encryptedContents, String keyName, String algorithm, IntConsumer staleValues) {
+
+		List<CipherRecord> cipherRecords = encryptedContents.stream()
+															.map(converter::convertToCipherRecord)
+															.collect(Collectors.toList());
+
+		return encryptionFacade.decryptBatch(cipherRecords, keyName, algorithm, staleValues);
+	}
+
+	@Override
+	public void findStaleValues(List<byte[]> encryptedContents, String keyName, String algorithm, IntConsumer staleValues) {
+
+		List<CipherRecordHeader> headers = encryptedContents.stream()
+															.map(converter::convertToHeader)
+															.collect(Collectors.toList());
+		encryptionFacade.findStale(headers, staleValues);
+	}
+
+	@Override
+	public boolean reportsStaleValues() {
+		return true;
+	}
+
+	@Override
+	public byte[] hash(byte[] content, String keyName, String algorithm) {
+		return blindIndexHasher.hash(content, keyName, algorithm);
+	}
+
+	@Override
+	public List<byte[]> hashAll(List<byte[]> contents, String keyName, String algorithm) {
+		return blindIndexHasher.hashAll(contents, keyName, algorithm);
+	}
+}
@@ -0,0 +1,23 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+
+public class ByteArrayStaleEncryptionPredicate extends AbstractStaleEncryptionPredicate<byte[]> {
+
+	private final ByteArrayCipherRecordConverter converter;
+
+	public ByteArrayStaleEncryptionPredicate(EncryptionKeyProvider encryptionKeyProvider) {
+		this(encryptionKeyProvider, KeyNameDictionary.empty());
+	}
+
+	public ByteArrayStaleEncryptionPredicate(EncryptionKeyProvider encryptionKeyProvider, KeyNameDictionary keyNameDictionary) {
+		super(encryptionKeyProvider, byte[].class);
+		converter = new ByteArrayCipherRecordConverter(keyNameDictionary);
+	}
+
+	@Override
+	CipherRecordHeader readHeader(byte[] encryptedValue) {
+		return converter.convertToHeader(encryptedValue);
+	}
+}
@@ -0,0 +1,121 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Serves decrypted values from the {@link DecryptionCache}, batches of values are decrypted by the decorated encryptor
+ * only for the cache misses. Encryption and hashing are passed through.
+ */
+public class CachingFieldEncryptor<C> implements FieldEncryptor<C> {
+
+	private final FieldEncryptor<C> fieldEncryptor;
+	private final DecryptionCache cache;
+
+	public CachingFieldEncryptor(FieldEncryptor<C> fieldEncryptor, DecryptionCache cache) {
+		this.fieldEncryptor = fieldEncryptor;
+		this.cache = cache;
+	}
+
+	@Override
+	public C encrypt(C c, String keyName, String algorithm) {
+		return fieldEncryptor.encrypt(c, keyName, algorithm);
+	}
+
+	@Override
+	public C decrypt(C c, String keyName, String algorithm) {
+		if (c == null) {
+			return fieldEncryptor.decrypt(null, keyName, algorithm);
+		}
+		ByteBuffer key = DecryptionCache.keyOf(c, keyName, algorithm);
+		C cached = cache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		C decrypted = fieldEncryptor.decrypt(c, keyName, algorithm);
+		if (decrypted != null) {
+			cache.put(key, decrypted);
+		}
+		return decrypted;
+	}
+
+	@Override
+	public boolean isEncryptedWithLatestKey(C c, String keyName, String algorithm) {
+		return fieldEncryptor.isEncryptedWithLatestKey(c, keyName, algorithm);
+	}
+
+	@Override
+	public byte[] hash(C c, String keyName, String algorithm) {
+		return fieldEncryptor.hash(c, keyName, algorithm);
+	}
+
+	@Override
+	public List<C> encryptAll(List<C> cs, String keyName, String algorithm) {
+		return fieldEncryptor.encryptAll(cs, keyName, algorithm);
+	}
+
+	@Override
+	public List<C> decryptAll(List<C> cs, String keyName, String algorithm) {
+		return decryptAll(cs, keyName, algorithm, null);
+	}
+
+	/**
+	 * Cache hits are not parsed as records, only their headers are read to tell whether they are stale, the same way
+	 * the decorated encryptor tells it for the misses.
+	 */
+	@Override
+	public List<C> decryptAll(List<C> cs, String keyName, String algorithm, IntConsumer staleValues) {
+		List<C> decrypted = new ArrayList<>(cs.size());
+		List<ByteBuffer> missedKeys = new ArrayList<>();
+		List<C> missed = new ArrayList<>();
+		List<Integer> missedIndexes = new ArrayList<>();
+		List<C> hits = new ArrayList<>();
+		List<Integer> hitIndexes = new ArrayList<>();
+		for (C c : cs) {
+			ByteBuffer key = c == null ? null : DecryptionCache.keyOf(c, keyName, algorithm);
+			C cached = key == null ? null : cache.get(key);
+			if (cached == null) {
+				missedKeys.add(key);
+				missed.add(c);
+				missedIndexes.add(decrypted.size());
+			} else {
+				hits.add(c);
+				hitIndexes.add(decrypted.size());
+			}
+			decrypted.add(cached);
+		}
+		if (staleValues != null && !hits.isEmpty()) {
+			fieldEncryptor.findStaleValues(hits, keyName, algorithm, index -> staleValues.accept(hitIndexes.get(index)));
+		}
+		if (missed.isEmpty()) {
+			return decrypted;
+		}
+		List<C> decryptedMisses = staleValues == null
+				? fieldEncryptor.decryptAll(missed, keyName, algorithm)
+				: fieldEncryptor.decryptAll(missed, keyName, algorithm, index -> staleValues.accept(missedIndexes.get(index)));
+		for (int i = 0; i < decryptedMisses.size(); i++) {
+			if (missedKeys.get(i) != null && decryptedMisses.get(i) != null) {
+				cache.put(missedKeys.get(i), decryptedMisses.get(i));
+			}
+			decrypted.set(missedIndexes.get(i), decryptedMisses.get(i));
+		}
+		return decrypted;
+	}
+
+	@Override
+	public void findStaleValues(List<C> cs, String keyName, String algorithm, IntConsumer staleValues) {
+		fieldEncryptor.findStaleValues(cs, keyName, algorithm, staleValues);
+	}
+
+	@Override
+	public boolean reportsStaleValues() {
+		return fieldEncryptor.reportsStaleValues();
+	}
+
+	@Override
+	public List<byte[]> hashAll(List<C> cs, String keyName, String algorithm) {
+		return fieldEncryptor.hashAll(cs, keyName, algorithm);
+	}
+}
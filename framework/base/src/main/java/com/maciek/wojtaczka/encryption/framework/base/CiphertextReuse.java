@@ -0,0 +1,49 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.List;
+
+/**
+ * Writes back the ciphertexts of eager fields whose plaintexts have not changed since they were decrypted or encrypted,
+ * as long as they have been encrypted with the latest key. When disabled, nothing is tracked and no ciphertext is reused.
+ */
+final class CiphertextReuse<F> {
+
+	private final FieldEncryptor<F> fieldEncryptor;
+	private final CiphertextTracker ciphertextTracker;
+
+	private CiphertextReuse(FieldEncryptor<F> fieldEncryptor, CiphertextTracker ciphertextTracker) {
+		this.fieldEncryptor = fieldEncryptor;
+		this.ciphertextTracker = ciphertextTracker;
+	}
+
+	static <F> CiphertextReuse<F> of(FieldEncryptor<F> fieldEncryptor) {
+		return new CiphertextReuse<>(fieldEncryptor, new CiphertextTracker());
+	}
+
+	static <F> CiphertextReuse<F> disabled() {
+		return new CiphertextReuse<>(null, null);
+	}
+
+	void track(FieldWithContext<?> field, Object ciphertext, Object plaintext, String keyName) {
+		if (ciphertextTracker != null && !field.isLazy()) {
+			ciphertextTracker.track(field, ciphertext, plaintext, keyName);
+		}
+	}
+
+	/**
+	 * @return ciphertext of a scalar plaintext, or list of ciphertexts of a list of plaintexts, when it can be written back
+	 */
+	<T> T unchangedCiphertext(FieldWithContext<?> field, Object plaintext, String keyName, String algorithm) {
+		if (ciphertextTracker == null || field.isLazy()) {
+			return null;
+		}
+		Object ciphertext = ciphertextTracker.unchangedCiphertext(field, plaintext, keyName);
+		if (ciphertext == null) {
+			return null;
+		}
+		boolean encryptedWithLatestKey = ciphertext instanceof List
+				? ((List<F>) ciphertext).stream().allMatch(value -> fieldEncryptor.isEncryptedWithLatestKey(value, keyName, algorithm))
+				: fieldEncryptor.isEncryptedWithLatestKey((F) ciphertext, keyName, algorithm);
+		return encryptedWithLatestKey ? (T) ciphertext : null;
+	}
+}
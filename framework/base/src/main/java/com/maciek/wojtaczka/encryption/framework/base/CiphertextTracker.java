@@ -0,0 +1,122 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Remembers, per entity instance and field, the ciphertext a field was decrypted from or encrypted into,
+ * along with a fingerprint of its plaintext. As long as the plaintext does not change, the ciphertext can be
+ * written back instead of encrypting the plaintext again, which with random initial vectors would give a new one.
+ * Plaintexts themselves are not retained. Fingerprints are HMAC-SHA256 with a random key generated once per process,
+ * so low-entropy plaintexts cannot be recovered from a heap dump by hashing candidate values.
+ */
+final class CiphertextTracker {
+
+	private static final String FINGERPRINT_ALGORITHM = "HmacSHA256";
+	private static final SecretKey FINGERPRINT_KEY = newFingerprintKey();
+	private static final ThreadLocal<Mac> FINGERPRINT_MAC = ThreadLocal.withInitial(CiphertextTracker::newMac);
+
+	private final EntityFieldStates<TrackedCiphertext> trackedCiphertexts = new EntityFieldStates<>();
+
+	void track(FieldWithContext<?> field, Object ciphertext, Object plaintext, String keyName) {
+		if (ciphertext == null || plaintext == null) {
+			trackedCiphertexts.remove(field.getContext(), field.getName());
+			return;
+		}
+		trackedCiphertexts.put(field.getContext(), field.getName(), new TrackedCiphertext(copyOf(ciphertext), keyName, fingerprint(plaintext)));
+	}
+
+	/**
+	 * @return the tracked ciphertext when the field still holds the plaintext it was tracked with, otherwise null
+	 */
+	<T> T unchangedCiphertext(FieldWithContext<?> field, Object plaintext, String keyName) {
+		TrackedCiphertext tracked = trackedCiphertexts.get(field.getContext(), field.getName());
+		if (tracked == null || plaintext == null || !tracked.keyName.equals(keyName)
+			|| !MessageDigest.isEqual(tracked.fingerprint, fingerprint(plaintext))) {
+			return null;
+		}
+		return (T) copyOf(tracked.ciphertext);
+	}
+
+	private static byte[] fingerprint(Object plaintext) {
+		Mac mac = FINGERPRINT_MAC.get();
+		if (plaintext instanceof Iterable) {
+			for (Object element : (Iterable<?>) plaintext) {
+				update(mac, element);
+			}
+		} else {
+			update(mac, plaintext);
+		}
+		return mac.doFinal();
+	}
+
+	private static void update(Mac mac, Object value) {
+		if (value == null) {
+			mac.update((byte) 0);
+			return;
+		}
+		byte[] bytes = value instanceof byte[] ? (byte[]) value : value.toString().getBytes(UTF_8);
+		mac.update((byte) 1);
+		mac.update(lengthOf(bytes));
+		mac.update(bytes);
+	}
+
+	private static byte[] lengthOf(byte[] bytes) {
+		int length = bytes.length;
+		return new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length};
+	}
+
+	private static SecretKey newFingerprintKey() {
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		return new SecretKeySpec(key, FINGERPRINT_ALGORITHM);
+	}
+
+	private static Mac newMac() {
+		try {
+			Mac mac = Mac.getInstance(FINGERPRINT_ALGORITHM);
+			mac.init(FINGERPRINT_KEY);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new EncryptionException(FINGERPRINT_ALGORITHM + " not available", e);
+		}
+	}
+
+	/**
+	 * Ciphertexts of collections are kept as lists, byte[] ones are copied as fields may be changed in place.
+	 */
+	private static Object copyOf(Object ciphertext) {
+		if (ciphertext instanceof byte[]) {
+			return ((byte[]) ciphertext).clone();
+		}
+		if (ciphertext instanceof Iterable) {
+			List<Object> copy = new ArrayList<>();
+			((Iterable<?>) ciphertext).forEach(element -> copy.add(copyOf(element)));
+			return copy;
+		}
+		return ciphertext;
+	}
+
+	private static final class TrackedCiphertext {
+
+		private final Object ciphertext;
+		private final String keyName;
+		private final byte[] fingerprint;
+
+		private TrackedCiphertext(Object ciphertext, String keyName, byte[] fingerprint) {
+			this.ciphertext = ciphertext;
+			this.keyName = keyName;
+			this.fingerprint = fingerprint;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Replaces the elements of collections with their batch-transformed values, keeping the collection instance,
+ * so e.g. Hibernate persistent collections are not swapped for plain ones. Lists are updated element by element,
+ * other collections are refilled, as changed elements may no longer match their hash buckets. Collections are modified
+ * only when an element has changed, so unchanged persistent collections are not marked dirty.
+ * Only unmodifiable collections are replaced with new ones.
+ */
+final class CollectionTransformer {
+
+	private CollectionTransformer() {
+	}
+
+	/**
+	 * @return the passed iterable transformed in place, or a new collection of the same kind when it is unmodifiable
+	 */
+	static <F, C extends Iterable<F>> C transform(C values, UnaryOperator<List<F>> batchTransformation) {
+		if (!(values instanceof Collection)) {
+			throw new EncryptionException("Collection type: " + values.getClass() + " not supported");
+		}
+		Collection<F> collection = (Collection<F>) values;
+		if (collection.isEmpty()) {
+			return values;
+		}
+		List<F> original = new ArrayList<>(collection);
+		List<F> transformed = batchTransformation.apply(new ArrayList<>(original));
+
+		if (!(collection instanceof List) && !anyChanged(original, transformed)) {
+			return values;
+		}
+		return (C) replace(collection, transformed);
+	}
+
+	/**
+	 * @return the passed collection holding the given elements instead of its own, or a new collection of the same kind
+	 * when it is unmodifiable
+	 */
+	static <F> Collection<F> replace(Collection<F> collection, List<F> elements) {
+		if (collection instanceof List && collection.size() == elements.size()) {
+			return setChanged((List<F>) collection, elements) ? collection : new ArrayList<>(elements);
+		}
+		try {
+			collection.clear();
+		} catch (UnsupportedOperationException e) {
+			return collection instanceof Set ? new LinkedHashSet<>(elements) : new ArrayList<>(elements);
+		}
+		collection.addAll(elements);
+		return collection;
+	}
+
+	private static <F> boolean setChanged(List<F> list, List<F> values) {
+		ListIterator<F> listIterator = list.listIterator();
+		Iterator<F> valuesIterator = values.iterator();
+		try {
+			while (listIterator.hasNext() && valuesIterator.hasNext()) {
+				F current = listIterator.next();
+				F value = valuesIterator.next();
+				if (!Objects.deepEquals(current, value)) {
+					listIterator.set(value);
+				}
+			}
+		} catch (UnsupportedOperationException e) {
+			//unmodifiable lists reject the first changed element already
+			return false;
+		}
+		return true;
+	}
+
+	private static <F> boolean anyChanged(List<F> original, List<F> transformed) {
+		for (int i = 0; i < original.size(); i++) {
+			if (!Objects.deepEquals(original.get(i), transformed.get(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,250 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Runs several entity encryptors, e.g. one per encrypted field type, over the same entity. When all of them are
+ * {@link GenericEntityEncryptor}s, the entity graph is walked once, collecting the fields of all their types.
+ */
+public class CompositeEntityEncryptor implements EntityEncryptor<Object> {
+
+	private final List<EntityEncryptor<?>> entityEncryptors;
+	private final List<GenericEntityEncryptor<?>> genericEntityEncryptors;
+	private final List<Class<?>> fieldTypes;
+	private final FieldExtractor fieldExtractor;
+
+	public CompositeEntityEncryptor(List<EntityEncryptor<?>> entityEncryptors) {
+		this.entityEncryptors = List.copyOf(entityEncryptors);
+		this.genericEntityEncryptors = this.entityEncryptors.stream().allMatch(GenericEntityEncryptor.class::isInstance)
+				? this.entityEncryptors.stream()
+									   .map(entityEncryptor -> (GenericEntityEncryptor<?>) entityEncryptor)
+									   .collect(Collectors.toUnmodifiableList())
+				: null;
+		this.fieldTypes = genericEntityEncryptors == null ? null : genericEntityEncryptors.stream()
+																						  .map(GenericEntityEncryptor::getEncryptedFieldType)
+																						  .collect(Collectors.toUnmodifiableList());
+		this.fieldExtractor = new FieldExtractor();
+	}
+
+	@Override
+	public void encryptObject(Object object) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.encryptObject(object));
+			return;
+		}
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(List.of(object), fieldTypes, visited);
+		genericEntityEncryptors.forEach(entityEncryptor -> entityEncryptor.encryptObjectFields(walk, entityEncryptor.resolveKeyName(object), visited));
+	}
+
+	@Override
+	public void encryptObject(Object object, String keyName) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.encryptObject(object, keyName));
+			return;
+		}
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(List.of(object), fieldTypes, visited);
+		genericEntityEncryptors.forEach(entityEncryptor -> entityEncryptor.encryptObjectFields(walk, keyName, visited));
+	}
+
+	@Override
+	public void decryptObject(Object object) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.decryptObject(object));
+			return;
+		}
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(List.of(object), fieldTypes, visited);
+		genericEntityEncryptors.forEach(entityEncryptor -> entityEncryptor.decryptObjectFields(walk, entityEncryptor.resolveKeyName(object), visited));
+	}
+
+	@Override
+	public void decryptObject(Object object, String keyName) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.decryptObject(object, keyName));
+			return;
+		}
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(List.of(object), fieldTypes, visited);
+		genericEntityEncryptors.forEach(entityEncryptor -> entityEncryptor.decryptObjectFields(walk, keyName, visited));
+	}
+
+	@Override
+	public void encryptAll(Collection<?> objects) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.encryptAll(objects));
+			return;
+		}
+		groupByKeyNames(objects).forEach((keyNames, group) -> {
+			Set<Object> visited = FieldExtractor.newVisitedSet();
+			FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(group, fieldTypes, visited);
+			for (int i = 0; i < genericEntityEncryptors.size(); i++) {
+				genericEntityEncryptors.get(i).encryptAllFields(walk, keyNames.get(i), visited);
+			}
+		});
+	}
+
+	@Override
+	public void encryptAll(Collection<?> objects, String keyName) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.encryptAll(objects, keyName));
+			return;
+		}
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(objects, fieldTypes, visited);
+		genericEntityEncryptors.forEach(entityEncryptor -> entityEncryptor.encryptAllFields(walk, keyName, visited));
+	}
+
+	@Override
+	public void decryptAll(Collection<?> objects) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.decryptAll(objects));
+			return;
+		}
+		groupByKeyNames(objects).forEach((keyNames, group) -> {
+			Set<Object> visited = FieldExtractor.newVisitedSet();
+			FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(group, fieldTypes, visited);
+			for (int i = 0; i < genericEntityEncryptors.size(); i++) {
+				genericEntityEncryptors.get(i).decryptAllFields(walk, keyNames.get(i), visited);
+			}
+		});
+	}
+
+	@Override
+	public void decryptAll(Collection<?> objects, String keyName) {
+		if (genericEntityEncryptors == null) {
+			entityEncryptors.forEach(entityEncryptor -> entityEncryptor.decryptAll(objects, keyName));
+			return;
+		}
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		FieldExtractor.FieldsContainers walk = fieldExtractor.getAllFieldsToBeEncrypted(objects, fieldTypes, visited);
+		genericEntityEncryptors.forEach(entityEncryptor -> entityEncryptor.decryptAllFields(walk, keyName, visited));
+	}
+
+	/**
+	 * Groups the objects by the key names resolved by each of the encryptors, in their order.
+	 */
+	private Map<List<String>, List<Object>> groupByKeyNames(Collection<?> objects) {
+		Map<List<String>, List<Object>> groups = new LinkedHashMap<>();
+		for (Object object : objects) {
+			List<String> keyNames = genericEntityEncryptors.stream()
+														   .map(entityEncryptor -> entityEncryptor.resolveKeyName(object))
+														   .collect(Collectors.toList());
+			groups.computeIfAbsent(keyNames, key -> new ArrayList<>()).add(object);
+		}
+		return groups;
+	}
+
+	/**
+	 * Empty when any of the encryptors cannot tell its types.
+	 */
+	@Override
+	public List<Class<?>> getEncryptedFieldTypes() {
+		List<Class<?>> encryptedFieldTypes = new ArrayList<>();
+		for (EntityEncryptor<?> entityEncryptor : entityEncryptors) {
+			List<Class<?>> types = entityEncryptor.getEncryptedFieldTypes();
+			if (types.isEmpty()) {
+				return List.of();
+			}
+			types.stream()
+				 .filter(type -> !encryptedFieldTypes.contains(type))
+				 .forEach(encryptedFieldTypes::add);
+		}
+		return Collections.unmodifiableList(encryptedFieldTypes);
+	}
+
+	@Override
+	public boolean reportsStaleValues() {
+		return entityEncryptors.stream().allMatch(EntityEncryptor::reportsStaleValues);
+	}
+
+	/**
+	 * Unless all the encryptors tell the stale values, the predicate is asked before any of them decrypts the object.
+	 */
+	@Override
+	public boolean decryptObjectAndCheckStale(Object object, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			return EntityEncryptor.super.decryptObjectAndCheckStale(object, predicate);
+		}
+		if (genericEntityEncryptors != null) {
+			return !decryptAllAndFindStale(List.of(object), predicate).isEmpty();
+		}
+		boolean stale = false;
+		for (EntityEncryptor<?> entityEncryptor : entityEncryptors) {
+			stale |= entityEncryptor.decryptObjectAndCheckStale(object, predicate);
+		}
+		return stale;
+	}
+
+	@Override
+	public boolean decryptObjectAndCheckStale(Object object, String keyName, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			return EntityEncryptor.super.decryptObjectAndCheckStale(object, keyName, predicate);
+		}
+		if (genericEntityEncryptors != null) {
+			return !decryptAllAndFindStale(List.of(object), keyName, predicate).isEmpty();
+		}
+		boolean stale = false;
+		for (EntityEncryptor<?> entityEncryptor : entityEncryptors) {
+			stale |= entityEncryptor.decryptObjectAndCheckStale(object, keyName, predicate);
+		}
+		return stale;
+	}
+
+	@Override
+	public List<Object> decryptAllAndFindStale(Collection<?> objects, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			return EntityEncryptor.super.decryptAllAndFindStale(objects, predicate);
+		}
+		Set<Object> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+		if (genericEntityEncryptors != null) {
+			groupByKeyNames(objects).forEach((keyNames, group) -> stale.addAll(decryptAllAndFindStale(group, keyNames)));
+			return inOrderOf(objects, stale);
+		}
+		entityEncryptors.forEach(entityEncryptor -> stale.addAll(entityEncryptor.decryptAllAndFindStale(objects, predicate)));
+		return inOrderOf(objects, stale);
+	}
+
+	@Override
+	public List<Object> decryptAllAndFindStale(Collection<?> objects, String keyName, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			return EntityEncryptor.super.decryptAllAndFindStale(objects, keyName, predicate);
+		}
+		if (genericEntityEncryptors != null) {
+			return decryptAllAndFindStale(objects, Collections.nCopies(genericEntityEncryptors.size(), keyName));
+		}
+		Set<Object> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+		entityEncryptors.forEach(entityEncryptor -> stale.addAll(entityEncryptor.decryptAllAndFindStale(objects, keyName, predicate)));
+		return inOrderOf(objects, stale);
+	}
+
+	/**
+	 * Each object is walked once for all the field types, so the stale values can be traced back to it.
+	 */
+	private List<Object> decryptAllAndFindStale(Collection<?> objects, List<String> keyNames) {
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		List<FieldExtractor.FieldsContainers> walks = objects.stream()
+															 .map(object -> fieldExtractor.getAllFieldsToBeEncrypted(List.of(object), fieldTypes, visited))
+															 .collect(Collectors.toList());
+		Set<Object> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int i = 0; i < genericEntityEncryptors.size(); i++) {
+			stale.addAll(genericEntityEncryptors.get(i).decryptAllFieldsAndFindStale(objects, walks, keyNames.get(i), visited));
+		}
+		return inOrderOf(objects, stale);
+	}
+
+	private static List<Object> inOrderOf(Collection<?> objects, Set<Object> stale) {
+		return objects.stream()
+					  .filter(stale::contains)
+					  .collect(Collectors.toList());
+	}
+}
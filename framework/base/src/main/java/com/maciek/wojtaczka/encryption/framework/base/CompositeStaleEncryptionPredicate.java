@@ -0,0 +1,25 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.List;
+
+/**
+ * Entity is stale when any of the predicates, e.g. one per encrypted field type, finds it stale.
+ */
+public class CompositeStaleEncryptionPredicate implements StaleEncryptionPredicate {
+
+	private final List<StaleEncryptionPredicate> predicates;
+
+	public CompositeStaleEncryptionPredicate(List<StaleEncryptionPredicate> predicates) {
+		this.predicates = List.copyOf(predicates);
+	}
+
+	@Override
+	public boolean isStale(Object entity) {
+		for (StaleEncryptionPredicate predicate : predicates) {
+			if (predicate.isStale(entity)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
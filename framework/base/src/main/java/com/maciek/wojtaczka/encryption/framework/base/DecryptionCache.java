@@ -0,0 +1,218 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bounded cache of decrypted values of the fields marked with {@code @Encrypt(cacheable = true)}.
+ * Entries are keyed by the SHA-256 digest of the key name, algorithm and ciphertext, so ciphertexts are not retained,
+ * and are evicted least recently used first, or once their time to live has passed. Cached byte[] plaintexts are
+ * copied in and out and zeroed on eviction, String plaintexts are immutable and are left to the garbage collector.
+ */
+public final class DecryptionCache {
+
+	private static final DecryptionCache DISABLED = new DecryptionCache(0, Duration.ZERO, Clock.systemUTC());
+	private static final int MAXIMUM_SEGMENTS = 16;
+	private static final int MINIMUM_SEGMENT_SIZE = 64;
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(DecryptionCache::newDigest);
+
+	private final long timeToLiveMillis;
+	private final Clock clock;
+	private final Segment[] segments;
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Entries are spread over up to 16 segments by their key, each one evicting its own least recently used entries,
+	 * so that lookups of different keys rarely contend. Caches too small to give each segment 64 entries have fewer.
+	 */
+	DecryptionCache(int maximumSize, Duration timeToLive, Clock clock) {
+		this.timeToLiveMillis = timeToLive.toMillis();
+		this.clock = clock;
+		int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(MAXIMUM_SEGMENTS, maximumSize / MINIMUM_SEGMENT_SIZE)));
+		this.segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment(maximumSize / segmentCount);
+		}
+	}
+
+	public static DecryptionCache of(int maximumSize, Duration timeToLive) {
+		if (maximumSize < 1) {
+			throw new EncryptionException("Decryption cache size has to be at least 1, was: " + maximumSize);
+		}
+		if (timeToLive.isNegative() || timeToLive.isZero()) {
+			throw new EncryptionException("Decryption cache time to live has to be positive, was: " + timeToLive);
+		}
+		return new DecryptionCache(maximumSize, timeToLive, Clock.systemUTC());
+	}
+
+	public static DecryptionCache disabled() {
+		return DISABLED;
+	}
+
+	boolean isDisabled() {
+		return this == DISABLED;
+	}
+
+	/**
+	 * @return the cached plaintext, or null when it is not cached or has expired
+	 */
+	<C> C get(ByteBuffer key) {
+		Object plaintext = segmentOf(key).get(key, clock.millis());
+		if (plaintext == null) {
+			missCount.increment();
+			return null;
+		}
+		hitCount.increment();
+		return (C) plaintext;
+	}
+
+	void put(ByteBuffer key, Object plaintext) {
+		segmentOf(key).put(key, new Entry(copyOf(plaintext), clock.millis() + timeToLiveMillis));
+	}
+
+	/**
+	 * Evicts all the entries, e.g. once a key has been revoked.
+	 */
+	public void invalidateAll() {
+		for (Segment segment : segments) {
+			segment.invalidateAll();
+		}
+	}
+
+	static ByteBuffer keyOf(Object ciphertext, String keyName, String algorithm) {
+		MessageDigest digest = DIGEST.get();
+		digest.update(keyName.getBytes(UTF_8));
+		digest.update((byte) 0);
+		digest.update(algorithm.getBytes(UTF_8));
+		digest.update((byte) 0);
+		digest.update(ciphertext instanceof byte[] ? (byte[]) ciphertext : ciphertext.toString().getBytes(UTF_8));
+		return ByteBuffer.wrap(digest.digest());
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new EncryptionException("SHA-256 not available", e);
+		}
+	}
+
+	/**
+	 * Keys are digests, so their hash codes are spread evenly already.
+	 */
+	private Segment segmentOf(ByteBuffer key) {
+		return segments[key.hashCode() & (segments.length - 1)];
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * @return share of lookups served from the cache, 0 when there were none
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount();
+		long lookups = hits + getMissCount();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	public int getSize() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	private void evict(Entry entry) {
+		zero(entry.plaintext);
+		evictionCount.increment();
+	}
+
+	private static Object copyOf(Object plaintext) {
+		return plaintext instanceof byte[] ? ((byte[]) plaintext).clone() : plaintext;
+	}
+
+	private static void zero(Object plaintext) {
+		if (plaintext instanceof byte[]) {
+			Arrays.fill((byte[]) plaintext, (byte) 0);
+		}
+	}
+
+	private final class Segment {
+
+		private final int maximumSize;
+		private final Map<ByteBuffer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		private Segment(int maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		private synchronized Object get(ByteBuffer key, long now) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expiresAt <= now) {
+				evict(entries.remove(key));
+				return null;
+			}
+			return copyOf(entry.plaintext);
+		}
+
+		private synchronized void put(ByteBuffer key, Entry entry) {
+			Entry previous = entries.put(key, entry);
+			if (previous != null) {
+				zero(previous.plaintext);
+			}
+			Iterator<Entry> eldest = entries.values().iterator();
+			while (entries.size() > maximumSize) {
+				evict(eldest.next());
+				eldest.remove();
+			}
+		}
+
+		private synchronized void invalidateAll() {
+			entries.values().forEach(DecryptionCache.this::evict);
+			entries.clear();
+		}
+
+		private synchronized int size() {
+			return entries.size();
+		}
+	}
+
+	private static final class Entry {
+
+		private final Object plaintext;
+		private final long expiresAt;
+
+		private Entry(Object plaintext, long expiresAt) {
+			this.plaintext = plaintext;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Operations used by {@link GeneratedEntityEncryptor}s on fields of one type, see {@link #handles(Class)}.
+ * Holds the state of a single traversal of one or more entity graphs. Values passed with a setter are collected into
+ * one batch per key name and algorithm, which is encrypted or decrypted at once when the traversal ends.
+ */
+public final class EncryptionContext<F> {
+
+	private static final String ENCRYPT = "encrypt";
+	private static final String DECRYPT = "decrypt";
+
+	private final Class<F> encryptedFieldType;
+	private final FieldEncryptor<F> fieldEncryptor;
+	private final BlindIdConverter<F> blindIdConverter;
+	private final Deque<Object> worklist = new ArrayDeque<>();
+	private final Set<Object> visited = FieldExtractor.newVisitedSet();
+	private final Map<List<String>, Batch<F>> batches = new LinkedHashMap<>();
+	private final Set<Object> staleRoots = FieldExtractor.newVisitedSet();
+	private Object currentRoot;
+	private boolean checkingStale;
+
+	EncryptionContext(Class<F> encryptedFieldType, FieldEncryptor<F> fieldEncryptor, BlindIdConverter<F> blindIdConverter) {
+		this.encryptedFieldType = encryptedFieldType;
+		this.fieldEncryptor = fieldEncryptor;
+		this.blindIdConverter = blindIdConverter;
+	}
+
+	public boolean handles(Class<?> fieldType) {
+		return encryptedFieldType.equals(fieldType);
+	}
+
+	public <T> EncryptionContext<T> as(Class<T> fieldType) {
+		if (!handles(fieldType)) {
+			throw new EncryptionException("Context handles " + encryptedFieldType + " fields, not " + fieldType);
+		}
+		return (EncryptionContext<T>) this;
+	}
+
+	public F encrypt(F value, String keyName, String algorithm) {
+		return fieldEncryptor.encrypt(value, keyName, algorithm);
+	}
+
+	public F decrypt(F value, String keyName, String algorithm) {
+		if (!checkingStale || value == null) {
+			return fieldEncryptor.decrypt(value, keyName, algorithm);
+		}
+		return fieldEncryptor.decryptAll(Collections.singletonList(value), keyName, algorithm, index -> markStale()).get(0);
+	}
+
+	/**
+	 * Collects the value into the batch of its key name and algorithm, the setter is given the encrypted one.
+	 */
+	public void encrypt(F value, String keyName, String algorithm, Consumer<F> setter) {
+		batchOf(ENCRYPT, keyName, algorithm).add(List.of(value), results -> setter.accept(results.get(0)));
+	}
+
+	/**
+	 * Collects the value into the batch of its key name and algorithm, the setter is given the decrypted one.
+	 */
+	public void decrypt(F value, String keyName, String algorithm, Consumer<F> setter) {
+		batchOf(DECRYPT, keyName, algorithm).add(List.of(value), results -> setter.accept(results.get(0)));
+	}
+
+	public Object blindId(F value) {
+		return blindIdConverter.hash(value);
+	}
+
+	/**
+	 * Collections shared by several fields are encrypted once, as they are encrypted in place.
+	 *
+	 * @return the passed collection with encrypted elements, or a new one of the same kind when it is unmodifiable
+	 */
+	public <C extends Iterable<F>> C encryptAll(C values, String keyName, String algorithm) {
+		if (!visited.add(values)) {
+			return values;
+		}
+		return CollectionTransformer.transform(values, list -> fieldEncryptor.encryptAll(list, keyName, algorithm));
+	}
+
+	/**
+	 * Encrypts the elements of the array in place, once even if it is shared by several fields.
+	 */
+	public void encryptAll(F[] values, String keyName, String algorithm) {
+		if (visited.add(values)) {
+			encryptAll(Arrays.asList(values), keyName, algorithm);
+		}
+	}
+
+	/**
+	 * Collections shared by several fields are decrypted once, as they are decrypted in place.
+	 *
+	 * @return the passed collection with decrypted elements, or a new one of the same kind when it is unmodifiable
+	 */
+	public <C extends Iterable<F>> C decryptAll(C values, String keyName, String algorithm) {
+		if (!visited.add(values)) {
+			return values;
+		}
+		return CollectionTransformer.transform(values, list -> checkingStale
+				? fieldEncryptor.decryptAll(list, keyName, algorithm, index -> markStale())
+				: fieldEncryptor.decryptAll(list, keyName, algorithm));
+	}
+
+	/**
+	 * Collects the elements into the batch of their key name and algorithm, once even if the collection is shared
+	 * by several fields. The setter is given the collection transformed like by {@link #encryptAll(Iterable, String, String)}.
+	 */
+	public <C extends Iterable<F>> void encryptAll(C values, String keyName, String algorithm, Consumer<C> setter) {
+		if (visited.add(values)) {
+			batchOf(ENCRYPT, keyName, algorithm).add(elementsOf(values), results -> setter.accept(
+					CollectionTransformer.transform(values, list -> new ArrayList<>(results))));
+		}
+	}
+
+	public <C extends Iterable<F>> void decryptAll(C values, String keyName, String algorithm, Consumer<C> setter) {
+		if (visited.add(values)) {
+			batchOf(DECRYPT, keyName, algorithm).add(elementsOf(values), results -> setter.accept(
+					CollectionTransformer.transform(values, list -> new ArrayList<>(results))));
+		}
+	}
+
+	/**
+	 * Collects the elements into the batch of their key name and algorithm, once even if the array is shared by several
+	 * fields. They are replaced in place before the setter is given the array.
+	 */
+	public void encryptAll(F[] values, String keyName, String algorithm, Consumer<F[]> setter) {
+		if (visited.add(values)) {
+			batchOf(ENCRYPT, keyName, algorithm).add(Arrays.asList(values), results -> setter.accept(results.toArray(values)));
+		}
+	}
+
+	public void decryptAll(F[] values, String keyName, String algorithm, Consumer<F[]> setter) {
+		if (visited.add(values)) {
+			batchOf(DECRYPT, keyName, algorithm).add(Arrays.asList(values), results -> setter.accept(results.toArray(values)));
+		}
+	}
+
+	/**
+	 * Schedules the embedded object, which is encrypted once even if reachable from several places.
+	 */
+	public void encryptEmbedded(Object embedded, String keyName) {
+		worklist.add(embedded);
+	}
+
+	/**
+	 * Schedules the embedded object, which is decrypted once even if reachable from several places.
+	 */
+	public void decryptEmbedded(Object embedded, String keyName) {
+		worklist.add(embedded);
+	}
+
+	/**
+	 * Makes the decryption ask the field encryptor for the values encrypted with an older version of their key.
+	 */
+	void checkStale() {
+		checkingStale = true;
+	}
+
+	boolean isCheckingStale() {
+		return checkingStale;
+	}
+
+	/**
+	 * @return true when any value decrypted since {@link #checkStale()} has been encrypted with an older key version
+	 */
+	boolean isStale() {
+		return !staleRoots.isEmpty();
+	}
+
+	/**
+	 * @return the scheduled objects whose graphs hold values encrypted with an older key version
+	 */
+	Set<Object> getStaleRoots() {
+		return staleRoots;
+	}
+
+	/**
+	 * Schedules the root of a graph, values collected until the next one is scheduled are told to belong to it.
+	 */
+	void schedule(Object object) {
+		currentRoot = object;
+		worklist.add(object);
+	}
+
+	/**
+	 * Encrypts or decrypts the collected values, one batch per key name and algorithm, and passes them to their setters.
+	 */
+	void flush() {
+		batches.forEach((batchKey, batch) -> {
+			String keyName = batchKey.get(1);
+			String algorithm = batchKey.get(2);
+			List<F> results;
+			if (batchKey.get(0).equals(ENCRYPT)) {
+				results = fieldEncryptor.encryptAll(batch.values, keyName, algorithm);
+			} else if (checkingStale) {
+				results = fieldEncryptor.decryptAll(batch.values, keyName, algorithm, index -> staleRoots.add(batch.roots.get(index)));
+			} else {
+				results = fieldEncryptor.decryptAll(batch.values, keyName, algorithm);
+			}
+			batch.apply(results);
+		});
+		batches.clear();
+	}
+
+	private void markStale() {
+		staleRoots.add(currentRoot);
+	}
+
+	private Batch<F> batchOf(String operation, String keyName, String algorithm) {
+		return batches.computeIfAbsent(List.of(operation, keyName, algorithm), batchKey -> new Batch<>());
+	}
+
+	private static <T> List<T> elementsOf(Iterable<T> values) {
+		if (!(values instanceof Collection)) {
+			throw new EncryptionException("Collection type: " + values.getClass() + " not supported");
+		}
+		return new ArrayList<>((Collection<T>) values);
+	}
+
+	/**
+	 * @return next scheduled object which has not been visited yet, or null when there is none
+	 */
+	Object nextUnvisited() {
+		Object next = worklist.poll();
+		while (next != null && visited.contains(next)) {
+			next = worklist.poll();
+		}
+		return next;
+	}
+
+	void markVisited(Object object) {
+		visited.add(object);
+	}
+
+	Set<Object> getVisited() {
+		return visited;
+	}
+
+	/**
+	 * Values of one key name and algorithm, with the setters of the slices collected from each field.
+	 */
+	private final class Batch<V> {
+
+		private final List<V> values = new ArrayList<>();
+		private final List<Object> roots = new ArrayList<>();
+		private final List<Integer> sliceEnds = new ArrayList<>();
+		private final List<Consumer<List<V>>> setters = new ArrayList<>();
+
+		private void add(List<V> slice, Consumer<List<V>> setter) {
+			values.addAll(slice);
+			roots.addAll(Collections.nCopies(slice.size(), currentRoot));
+			sliceEnds.add(values.size());
+			setters.add(setter);
+		}
+
+		private void apply(List<V> results) {
+			int from = 0;
+			for (int i = 0; i < setters.size(); i++) {
+				int to = sliceEnds.get(i);
+				setters.get(i).accept(results.subList(from, to));
+				from = to;
+			}
+		}
+	}
+}
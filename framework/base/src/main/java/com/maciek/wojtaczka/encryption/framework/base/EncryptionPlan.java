@@ -0,0 +1,214 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.stream;
+
+/**
+ * Immutable description of the fields annotated with {@link Encrypt} in a class, computed once per class,
+ * so the reflective lookups are not repeated on every encryption.
+ * <p>
+ * Plans are kept by a {@link ClassValue}, i.e. in the class they describe, for as long as it is loaded. A plan refers
+ * to framework classes, so an entity class loaded by a parent of the framework's class loader keeps the latter
+ * from being unloaded, e.g. on redeployment of an application bundling the framework with shared entities.
+ */
+final class EncryptionPlan {
+
+	private static final Class<Encrypt> TO_ENCRYPT = Encrypt.class;
+	private static final String BLIND_ID = "BlindId";
+
+	private static final ClassValue<EncryptionPlan> PLANS = new ClassValue<>() {
+		@Override
+		protected EncryptionPlan computeValue(Class<?> type) {
+			return new EncryptionPlan(type);
+		}
+	};
+
+	private final List<FieldPlan> fields;
+	private final Map<String, FieldPlan> fieldsByName;
+
+	private EncryptionPlan(Class<?> type) {
+		this.fields = stream(type.getDeclaredFields())
+				.filter(field -> field.isAnnotationPresent(TO_ENCRYPT))
+				.map(FieldPlan::new)
+				.collect(Collectors.toUnmodifiableList());
+		Map<String, FieldPlan> byName = new HashMap<>();
+		fields.forEach(field -> byName.put(field.getName(), field));
+		this.fieldsByName = Map.copyOf(byName);
+	}
+
+	static EncryptionPlan of(Class<?> type) {
+		return PLANS.get(type);
+	}
+
+	List<FieldPlan> getFields() {
+		return fields;
+	}
+
+	FieldPlan getField(String fieldName) throws NoSuchFieldException {
+		FieldPlan field = fieldsByName.get(fieldName);
+		if (field == null) {
+			throw new NoSuchFieldException(fieldName);
+		}
+		return field;
+	}
+
+	/**
+	 * Fields are accessed through method handles looked up once, skipping the access checks of reflective calls.
+	 * Held in instance fields, they are not constants to the JIT, so the accesses are not inlined; generated
+	 * encryptors access the fields directly instead. Setters are used rather than var handles, as those reject
+	 * final fields, e.g. of Lombok values.
+	 */
+	static final class FieldPlan {
+
+		private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+		private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+		private final Field field;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+		private final boolean iterable;
+		private final boolean array;
+		private final Class<?> elementType;
+		private final FieldWithContext.Metadata metadata;
+		private final MethodHandle blindIdSetter;
+
+		private FieldPlan(Field field) {
+			this.field = field;
+			this.getter = unreflectGetter(field);
+			this.setter = unreflectSetter(field);
+			this.iterable = Iterable.class.isAssignableFrom(field.getType());
+			this.array = field.getType().isArray() && !field.getType().getComponentType().isPrimitive();
+			this.elementType = iterable ? resolveElementType(field) : array ? field.getType().getComponentType() : null;
+			Encrypt annotation = field.getDeclaredAnnotation(TO_ENCRYPT);
+			this.metadata = FieldWithContext.Metadata.builder()
+													 .lazy(annotation.lazy())
+													 .algorithm(annotation.algorithm())
+													 .searchable(annotation.searchable())
+													 .cacheable(annotation.cacheable())
+													 .blindIdFieldName(field.getName() + BLIND_ID)
+													 .build();
+			this.blindIdSetter = annotation.searchable() ? findBlindIdSetter(field) : null;
+		}
+
+		private static MethodHandle unreflectGetter(Field field) {
+			try {
+				return privateLookupIn(field).unreflectGetter(field)
+											 .asType(GETTER_TYPE);
+			} catch (IllegalAccessException e) {
+				throw new EncryptionException("Field " + field + " is not accessible", e);
+			}
+		}
+
+		private static MethodHandle unreflectSetter(Field field) {
+			try {
+				//final fields can be written only through an accessible field
+				field.setAccessible(true);
+				return privateLookupIn(field).unreflectSetter(field)
+											 .asType(SETTER_TYPE);
+			} catch (IllegalAccessException e) {
+				throw new EncryptionException("Field " + field + " is not accessible", e);
+			}
+		}
+
+		private static MethodHandles.Lookup privateLookupIn(Field field) throws IllegalAccessException {
+			return MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+		}
+
+		private static Class<?> resolveElementType(Field field) {
+			if (!(field.getGenericType() instanceof ParameterizedType)) {
+				return null;
+			}
+			Type elementType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+			return elementType instanceof Class ? (Class<?>) elementType : null;
+		}
+
+		private static MethodHandle findBlindIdSetter(Field field) {
+			try {
+				return unreflectSetter(field.getDeclaringClass().getDeclaredField(field.getName() + BLIND_ID));
+			} catch (NoSuchFieldException e) {
+				//reported once a blind id is set
+				return null;
+			}
+		}
+
+		String getName() {
+			return field.getName();
+		}
+
+		Class<?> getType() {
+			return field.getType();
+		}
+
+		boolean isIterable() {
+			return iterable;
+		}
+
+		/**
+		 * @return true for arrays of objects, arrays of primitives like byte[] are values themselves
+		 */
+		boolean isArray() {
+			return array;
+		}
+
+		/**
+		 * @return declared type of the iterable or array elements, null when it cannot be resolved
+		 */
+		Class<?> getElementType() {
+			return elementType;
+		}
+
+		FieldWithContext.Metadata getMetadata() {
+			return metadata;
+		}
+
+		Object getValue(Object context) {
+			try {
+				return (Object) getter.invokeExact(context);
+			} catch (Throwable e) {
+				throw accessFailure(e);
+			}
+		}
+
+		void setValue(Object context, Object value) {
+			try {
+				setter.invokeExact(context, value);
+			} catch (Throwable e) {
+				throw accessFailure(e);
+			}
+		}
+
+		private static RuntimeException accessFailure(Throwable e) {
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
+			if (e instanceof RuntimeException) {
+				return (RuntimeException) e;
+			}
+			return new EncryptionException("Unexpected error during accessing field.", (Exception) e);
+		}
+
+		void setBlindId(Object context, Object value) throws NoSuchFieldException {
+			if (blindIdSetter == null) {
+				throw new NoSuchFieldException(metadata.getBlindIdFieldName());
+			}
+			try {
+				blindIdSetter.invokeExact(context, value);
+			} catch (Throwable e) {
+				throw accessFailure(e);
+			}
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public interface EntityEncryptor <T> {
 
 	void encryptObject(Object object);
@@ -9,4 +13,80 @@ public interface EntityEncryptor <T> {
 	void decryptObject(Object object);
 
 	void decryptObject(Object object, String keyName);
+
+	/**
+	 * Encrypts each object with its own key name. Implementations may batch the work on all the objects.
+	 */
+	default void encryptAll(Collection<?> objects) {
+		objects.forEach(this::encryptObject);
+	}
+
+	default void encryptAll(Collection<?> objects, String keyName) {
+		objects.forEach(object -> encryptObject(object, keyName));
+	}
+
+	/**
+	 * Decrypts each object with its own key name. Implementations may batch the work on all the objects.
+	 */
+	default void decryptAll(Collection<?> objects) {
+		objects.forEach(this::decryptObject);
+	}
+
+	default void decryptAll(Collection<?> objects, String keyName) {
+		objects.forEach(object -> decryptObject(object, keyName));
+	}
+
+	/**
+	 * @return the types of the fields the encryptor encrypts, empty when it cannot tell them
+	 */
+	default List<Class<?>> getEncryptedFieldTypes() {
+		return List.of();
+	}
+
+	/**
+	 * @return true when the encryptor tells the stale objects while decrypting them, without asking the predicate
+	 */
+	default boolean reportsStaleValues() {
+		return false;
+	}
+
+	/**
+	 * Decrypts the object, telling whether any of its values has been encrypted with an older version of its key.
+	 * Encryptors which cannot tell it while decrypting ask the predicate before.
+	 *
+	 * @return true when the object should be encrypted again with the latest keys
+	 */
+	default boolean decryptObjectAndCheckStale(Object object, StaleEncryptionPredicate predicate) {
+		boolean stale = predicate.isStale(object);
+		decryptObject(object);
+		return stale;
+	}
+
+	default boolean decryptObjectAndCheckStale(Object object, String keyName, StaleEncryptionPredicate predicate) {
+		boolean stale = predicate.isStale(object);
+		decryptObject(object, keyName);
+		return stale;
+	}
+
+	/**
+	 * Decrypts the objects like {@link #decryptAll(Collection)}, finding the ones with values encrypted with an older
+	 * version of their key.
+	 *
+	 * @return the objects which should be encrypted again with the latest keys, in the order of the passed ones
+	 */
+	default List<Object> decryptAllAndFindStale(Collection<?> objects, StaleEncryptionPredicate predicate) {
+		List<Object> stale = objects.stream()
+									.filter(predicate::isStale)
+									.collect(Collectors.toList());
+		decryptAll(objects);
+		return stale;
+	}
+
+	default List<Object> decryptAllAndFindStale(Collection<?> objects, String keyName, StaleEncryptionPredicate predicate) {
+		List<Object> stale = objects.stream()
+									.filter(predicate::isStale)
+									.collect(Collectors.toList());
+		decryptAll(objects, keyName);
+		return stale;
+	}
 }
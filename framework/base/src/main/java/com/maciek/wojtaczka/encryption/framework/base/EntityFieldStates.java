@@ -0,0 +1,68 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * States of the fields of entity instances. Entities are held weakly and compared by identity, so states of entities
+ * no longer in use are dropped, and entities with overridden equals, e.g. JPA ones, do not share their states.
+ */
+final class EntityFieldStates<S> {
+
+	private final ReferenceQueue<Object> collectedEntities = new ReferenceQueue<>();
+	private final Map<EntityKey, Map<String, S>> statesByEntity = new ConcurrentHashMap<>();
+
+	void put(Object entity, String fieldName, S state) {
+		expungeCollectedEntities();
+		statesByEntity.computeIfAbsent(new EntityKey(entity, collectedEntities), key -> new ConcurrentHashMap<>())
+					  .put(fieldName, state);
+	}
+
+	S get(Object entity, String fieldName) {
+		Map<String, S> states = statesByEntity.get(new EntityKey(entity, null));
+		return states == null ? null : states.get(fieldName);
+	}
+
+	void remove(Object entity, String fieldName) {
+		Map<String, S> states = statesByEntity.get(new EntityKey(entity, null));
+		if (states != null) {
+			states.remove(fieldName);
+		}
+	}
+
+	private void expungeCollectedEntities() {
+		for (Reference<?> collected = collectedEntities.poll(); collected != null; collected = collectedEntities.poll()) {
+			statesByEntity.remove(collected);
+		}
+	}
+
+	private static final class EntityKey extends WeakReference<Object> {
+
+		private final int hashCode;
+
+		private EntityKey(Object entity, ReferenceQueue<Object> queue) {
+			super(entity, queue);
+			this.hashCode = System.identityHashCode(entity);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof EntityKey)) {
+				return false;
+			}
+			Object entity = get();
+			return entity != null && entity == ((EntityKey) other).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
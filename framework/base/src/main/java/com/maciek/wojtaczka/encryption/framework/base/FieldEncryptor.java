@@ -1,10 +1,81 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
 public interface FieldEncryptor <C> {
 
 	C encrypt(C c, String keyName, String algorithm);
 
 	C decrypt(C c, String keyName, String algorithm);
 
-	String hash(C c, String keyName, String algorithm);
+	/**
+	 * @return raw keyed hash of the value, see {@link BlindIdFormat} for how it is turned into a blind id
+	 */
+	byte[] hash(C c, String keyName, String algorithm);
+
+	/**
+	 * @return true when the value has been encrypted with the latest version of the given key and algorithm,
+	 * so encrypting its plaintext again would only change the initial vector. False when it cannot be told.
+	 */
+	default boolean isEncryptedWithLatestKey(C c, String keyName, String algorithm) {
+		return false;
+	}
+
+	/**
+	 * @return encrypted values in the order of the passed ones
+	 */
+	default List<C> encryptAll(List<C> cs, String keyName, String algorithm) {
+		return cs.stream()
+				 .map(c -> encrypt(c, keyName, algorithm))
+				 .collect(Collectors.toList());
+	}
+
+	/**
+	 * @return decrypted values in the order of the passed ones
+	 */
+	default List<C> decryptAll(List<C> cs, String keyName, String algorithm) {
+		return cs.stream()
+				 .map(c -> decrypt(c, keyName, algorithm))
+				 .collect(Collectors.toList());
+	}
+
+	/**
+	 * Decrypts the values like {@link #decryptAll(List, String, String)}, passing the positions of the values encrypted with
+	 * an older version of their key to staleValues, so no value has to be parsed a second time to tell it.
+	 * Encryptors which do not {@link #reportsStaleValues()} report none.
+	 */
+	default List<C> decryptAll(List<C> cs, String keyName, String algorithm, IntConsumer staleValues) {
+		return decryptAll(cs, keyName, algorithm);
+	}
+
+	/**
+	 * Passes the positions of the values encrypted with an older version of their key to staleValues, the same way
+	 * {@link #decryptAll(List, String, String, IntConsumer)} does, without decrypting them. Encryptors which do not
+	 * {@link #reportsStaleValues()} report the values not {@link #isEncryptedWithLatestKey(Object, String, String)}.
+	 */
+	default void findStaleValues(List<C> cs, String keyName, String algorithm, IntConsumer staleValues) {
+		for (int i = 0; i < cs.size(); i++) {
+			if (!isEncryptedWithLatestKey(cs.get(i), keyName, algorithm)) {
+				staleValues.accept(i);
+			}
+		}
+	}
+
+	/**
+	 * @return true when {@link #decryptAll(List, String, String, IntConsumer)} reports the stale values
+	 */
+	default boolean reportsStaleValues() {
+		return false;
+	}
+
+	/**
+	 * @return raw keyed hashes in the order of the passed values
+	 */
+	default List<byte[]> hashAll(List<C> cs, String keyName, String algorithm) {
+		return cs.stream()
+				 .map(c -> hash(c, keyName, algorithm))
+				 .collect(Collectors.toList());
+	}
 }
@@ -1,108 +1,157 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
-import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
-import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
-
-import java.lang.reflect.Field;
-import java.util.HashSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
-
-import static java.util.Arrays.stream;
+import java.util.stream.Collectors;
 
 class FieldExtractor {
 
-	private static final Class<Encrypt> TO_ENCRYPT = Encrypt.class;
-
 	public <F> FieldsContainer<F> getAllFieldsToBeEncrypted(Object entity, Class<F> clazzOfTheField) {
-		FieldsContainer<F> fieldsContainer = new FieldsContainer<>();
+		return getAllFieldsToBeEncrypted(entity, clazzOfTheField, newVisitedSet());
+	}
 
-		putAnnotatedFieldsIntoContainer(entity, clazzOfTheField, fieldsContainer);
+	/**
+	 * Walks the entity graph with a worklist, skipping the objects already in the visited set,
+	 * so shared and cyclic references are processed once. Objects are compared by identity, never by equals.
+	 */
+	<F> FieldsContainer<F> getAllFieldsToBeEncrypted(Object entity, Class<F> clazzOfTheField, Set<Object> visited) {
+		return getAllFieldsToBeEncrypted(List.of(entity), clazzOfTheField, visited);
+	}
 
-		return fieldsContainer;
+	/**
+	 * Collects the fields of all the entity graphs into one container, so they can be processed as one batch.
+	 */
+	<F> FieldsContainer<F> getAllFieldsToBeEncrypted(Collection<?> entities, Class<F> clazzOfTheField, Set<Object> visited) {
+		return getAllFieldsToBeEncrypted(entities, List.of(clazzOfTheField), visited).get(clazzOfTheField);
 	}
 
-	private <F> void putAnnotatedFieldsIntoContainer(Object entity, Class<F> clazzOfTheField, FieldsContainer<F> fieldsContainer) {
+	/**
+	 * Collects the fields of each of the types in a single walk, e.g. for encryptors of different field types
+	 * run over the same entities.
+	 */
+	FieldsContainers getAllFieldsToBeEncrypted(Collection<?> entities, Collection<? extends Class<?>> fieldTypes, Set<Object> visited) {
+		FieldsContainers fieldsContainers = new FieldsContainers(fieldTypes);
+		Deque<Object> worklist = new ArrayDeque<>(entities);
+
+		while (!worklist.isEmpty()) {
+			Object current = worklist.poll();
+			if (!visited.add(current)) {
+				continue;
+			}
+			for (EncryptionPlan.FieldPlan field : EncryptionPlan.of(current.getClass()).getFields()) {
+				fieldsContainers.put(field, current, worklist);
+			}
+		}
+
+		return fieldsContainers;
+	}
 
-		Class<?> entityClass = entity.getClass();
-		stream(entityClass.getDeclaredFields())
-				.filter(field -> field.isAnnotationPresent(TO_ENCRYPT))
-				.forEach(field -> fieldsContainer.put(field, entity, clazzOfTheField));
+	static Set<Object> newVisitedSet() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
 
-		fieldsContainer.getStreamOfEmbedded()
-					   .forEach(embeddedEntity -> putAnnotatedFieldsIntoContainer(embeddedEntity, clazzOfTheField, fieldsContainer));
+	/**
+	 * Collections and arrays are transformed in place, so the ones shared by several fields are transformed only for
+	 * the first of them, the others already hold the transformed values. They are recorded in the visited set by identity.
+	 */
+	static <T> List<FieldWithContext<T>> firstOccurrences(List<FieldWithContext<T>> fields, Set<Object> visited) {
+		return fields.stream()
+					 .filter(fieldWithContext -> visited.add(fieldWithContext.getRawValue()))
+					 .collect(Collectors.toList());
 	}
 
 	public <F> FieldWithContext<F> getFieldByName(Object entity, String fieldName, Class<F> fieldType) throws NoSuchFieldException {
-		Field declaredField = entity.getClass()
-									.getDeclaredField(fieldName);
-		return new FieldWithContext<>(declaredField, entity, fieldType);
+		EncryptionPlan.FieldPlan field = EncryptionPlan.of(entity.getClass())
+													   .getField(fieldName);
+		return new FieldWithContext<>(field, entity);
 	}
 
 	public <F> FieldWithContext<Iterable<F>> getIterableFieldByName(Object entity, String fieldName, Class<F> fieldType) throws NoSuchFieldException {
-		Field declaredField = entity.getClass()
-									.getDeclaredField(fieldName);
-		Class<Iterable<F>> iterableClass = (Class<Iterable<F>>) declaredField.getType();
-		return new FieldWithContext<>(declaredField, entity, iterableClass);
+		EncryptionPlan.FieldPlan field = EncryptionPlan.of(entity.getClass())
+													   .getField(fieldName);
+		return new FieldWithContext<>(field, entity);
 	}
 
-	static class FieldsContainer<F> {
-		private final Set<FieldWithContext<F>> fields = new HashSet<>();
-		private final Set<FieldWithContext<Iterable<F>>> iterableFields = new HashSet<>();
-		private final Set<Object> embeddedFields = new HashSet<>();
-		private final Set<Iterable<?>> iterableEmbeddedFields = new HashSet<>();
-
-		private void put(Field field, Object context, Class<F> encryptionFieldType) {
-			field.setAccessible(true);
-			Object fieldValue = getFieldValue(field, context);
-			Class<?> fieldType = field.getType();
+	/**
+	 * Containers of the fields of several types, collected in a single walk.
+	 */
+	static class FieldsContainers {
+		private final Map<Class<?>, FieldsContainer<?>> containersByType = new LinkedHashMap<>();
+
+		private FieldsContainers(Collection<? extends Class<?>> fieldTypes) {
+			fieldTypes.forEach(fieldType -> containersByType.put(fieldType, new FieldsContainer<>()));
+		}
+
+		<F> FieldsContainer<F> get(Class<F> fieldType) {
+			return (FieldsContainer<F>) containersByType.get(fieldType);
+		}
+
+		private void put(EncryptionPlan.FieldPlan field, Object context, Deque<Object> worklist) {
+			Object fieldValue = field.getValue(context);
 			if (fieldValue == null) {
 				//noinspection UnnecessaryReturnStatement
 				return;
-			} else if (fieldType.equals(encryptionFieldType)) {
-				fields.add(new FieldWithContext<>(field, context, encryptionFieldType));
-			} else if (Iterable.class.isAssignableFrom(fieldType) && areElementsOfClassOrSubclass((Iterable<?>) fieldValue, encryptionFieldType)) {
-				Iterable<F> iterable = (Iterable<F>) fieldValue;
-				Class<Iterable<F>> iterableClass = (Class<Iterable<F>>) iterable.getClass();
-				iterableFields.add(new FieldWithContext<>(field, context, iterableClass));
-			} else if (Iterable.class.isAssignableFrom(fieldType)) {
-				Iterable<?> iterable = (Iterable<?>) fieldValue;
-				iterableEmbeddedFields.add(iterable);
+			} else if (containersByType.containsKey(field.getType())) {
+				containersByType.get(field.getType()).addField(field, context);
+			} else if (field.isIterable()) {
+				FieldsContainer<?> elementsContainer = containerOfElements((Iterable<?>) fieldValue);
+				if (elementsContainer != null) {
+					elementsContainer.addIterableField(field, context);
+				} else {
+					addNonNull((Iterable<?>) fieldValue, worklist);
+				}
+			} else if (field.isArray() && containersByType.containsKey(field.getElementType())) {
+				containersByType.get(field.getElementType()).addIterableField(field, context);
+			} else if (field.isArray()) {
+				addNonNull(Arrays.asList((Object[]) fieldValue), worklist);
 			} else {
-				embeddedFields.add(fieldValue);
+				worklist.add(fieldValue);
 			}
 		}
 
-		private Object getFieldValue(Field field, Object context) {
-			try {
-				return field.get(context);
-			} catch (IllegalAccessException e) {
-				throw new EncryptionException("Unexpected error during accessing field.", e);
+		private FieldsContainer<?> containerOfElements(Iterable<?> iterable) {
+			Iterator<?> iterator = iterable.iterator();
+			if (!iterator.hasNext()) {
+				return null;
+			}
+			Object next = iterator.next();
+			for (Map.Entry<Class<?>, FieldsContainer<?>> containerByType : containersByType.entrySet()) {
+				if (containerByType.getKey().isInstance(next)) {
+					return containerByType.getValue();
+				}
 			}
+			return null;
 		}
 
-		private boolean areElementsOfClassOrSubclass(Iterable<?> iterable, Class<?> clazz) {
-			Iterator<?> iterator = iterable.iterator();
-			if (iterator.hasNext()) {
-				Object next = iterator.next();
-				return clazz.isInstance(next);
-			} else {
-				return false;
+		private static void addNonNull(Iterable<?> elements, Deque<Object> worklist) {
+			for (Object element : elements) {
+				if (element != null) {
+					worklist.add(element);
+				}
 			}
 		}
+	}
 
-		private Stream<Object> getStreamOfEmbedded() {
-			Stream<Object> streamOfEmbedded1 = Set.copyOf(embeddedFields)
-												  .stream();
-			Stream<Object> streamOfEmbedded2 = Set.copyOf(iterableEmbeddedFields)
-												  .stream()
-												  .flatMap(iterable -> StreamSupport.stream(iterable.spliterator(), false));
-			embeddedFields.clear();
-			iterableEmbeddedFields.clear();
+	static class FieldsContainer<F> {
+		private final Set<FieldWithContext<F>> fields = new LinkedHashSet<>();
+		private final Set<FieldWithContext<Iterable<F>>> iterableFields = new LinkedHashSet<>();
+
+		private void addField(EncryptionPlan.FieldPlan field, Object context) {
+			fields.add(new FieldWithContext<>(field, context));
+		}
 
-			return Stream.concat(streamOfEmbedded1, streamOfEmbedded2);
+		private void addIterableField(EncryptionPlan.FieldPlan field, Object context) {
+			iterableFields.add(new FieldWithContext<>(field, context));
 		}
 
 		Set<FieldWithContext<F>> getFields() {
@@ -0,0 +1,34 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Groups objects and fields into the batches of bulk encryption, each batch shares a key name and an algorithm,
+ * so the key is resolved once per batch. Groups keep the order of their first members.
+ */
+final class FieldGroups {
+
+	private FieldGroups() {
+	}
+
+	static Map<String, List<Object>> byKeyName(Collection<?> objects, KeyNameResolver keyNameResolver) {
+		return objects.stream()
+					  .map(Object.class::cast)
+					  .collect(Collectors.groupingBy(keyNameResolver::resolveEncryptionKeyName, LinkedHashMap::new, Collectors.toList()));
+	}
+
+	static <T> Map<String, List<FieldWithContext<T>>> byAlgorithm(Collection<FieldWithContext<T>> fields) {
+		return fields.stream()
+					 .collect(Collectors.groupingBy(field -> field.getMetadata().getAlgorithm(), LinkedHashMap::new, Collectors.toList()));
+	}
+
+	static <T> List<T> valuesOf(List<FieldWithContext<T>> fields) {
+		return fields.stream()
+					 .map(FieldWithContext::getValue)
+					 .collect(Collectors.toList());
+	}
+}
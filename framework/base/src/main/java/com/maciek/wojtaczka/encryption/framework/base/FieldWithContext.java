@@ -1,54 +1,99 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
-import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
-import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
 import lombok.Builder;
 import lombok.Value;
 
-import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.function.Predicate;
 
 class FieldWithContext <F> {
 
-	private static final Class<Encrypt> TO_ENCRYPT = Encrypt.class;
-	private static final String BLIND_ID = "BlindId";
-
-
-	private final Field field;
+	private final EncryptionPlan.FieldPlan field;
 	private final Object context;
-	private Metadata metadata;
 
-	FieldWithContext(Field field, Object context, Class<F> fieldType) {
+	FieldWithContext(EncryptionPlan.FieldPlan field, Object context) {
 		this.field = field;
 		this.context = context;
 	}
 
+	/**
+	 * Arrays are returned as fixed-size lists writing through to them, so they are transformed in place like lists.
+	 */
 	F getValue() {
-		this.field.setAccessible(true);
-		try {
-			return (F) this.field.get(this.context);
-		} catch (IllegalAccessException e) {
-			throw new EncryptionException("Unexpected error during accessing field.", e);
+		Object value = field.getValue(context);
+		if (field.isArray() && value != null) {
+			return (F) Arrays.asList((Object[]) value);
 		}
+		return (F) value;
+	}
+
+	/**
+	 * @return the field value itself, e.g. the array rather than its list view
+	 */
+	Object getRawValue() {
+		return field.getValue(context);
 	}
 
 	void setValue(F value) {
-		this.field.setAccessible(true);
-		try {
-			this.field.set(this.context, value);
-		} catch (IllegalAccessException e) {
-			e.printStackTrace();
-		}
+		field.setValue(context, value);
 	}
 
 	void setBlindId(Object value) throws NoSuchFieldException {
-		try {
-			Field blindIdField = context.getClass()
-										.getDeclaredField(field.getName() + BLIND_ID);
-			blindIdField.setAccessible(true);
-			blindIdField.set(this.context, value);
-		} catch (IllegalAccessException e) {
-			e.printStackTrace();
-		}
+		field.setBlindId(context, value);
+	}
+
+	//states of lazy fields are recorded for the raw field value, as arrays are returned as new views by getValue()
+
+	boolean holdsEncryptedValue() {
+		return LazyFieldRegistry.holdsEncryptedValue(context, field.getName(), field.getValue(context));
+	}
+
+	boolean holdsDecryptedValue() {
+		return LazyFieldRegistry.holdsDecryptedValue(context, field.getName(), field.getValue(context));
+	}
+
+	boolean needsLazyDecryption() {
+		return LazyFieldRegistry.needsDecryption(context, field.getName(), field.getValue(context));
+	}
+
+	Predicate<Object> recordedCiphertexts() {
+		return LazyFieldRegistry.recordedCiphertexts(context, field.getName(), field.getValue(context));
+	}
+
+	Predicate<Object> ciphertextsToDecrypt() {
+		return LazyFieldRegistry.ciphertextsToDecrypt(context, field.getName(), field.getValue(context));
+	}
+
+	void markEncrypted() {
+		LazyFieldRegistry.markEncrypted(context, field.getName(), field.getValue(context));
+	}
+
+	void markEncryptedUnlessRecorded() {
+		LazyFieldRegistry.markEncryptedUnlessRecorded(context, field.getName(), field.getValue(context));
+	}
+
+	void markDecrypted() {
+		LazyFieldRegistry.markDecrypted(context, field.getName(), field.getValue(context));
+	}
+
+	Object getContext() {
+		return context;
+	}
+
+	String getName() {
+		return field.getName();
+	}
+
+	Class<?> getType() {
+		return field.getType();
+	}
+
+	boolean isLazy() {
+		return getMetadata().isLazy();
+	}
+
+	boolean isCacheable() {
+		return getMetadata().isCacheable();
 	}
 
 	boolean isSearchable() {
@@ -56,16 +101,7 @@ class FieldWithContext <F> {
 	}
 
 	Metadata getMetadata() {
-		if (metadata == null) {
-			Encrypt annotation = field.getDeclaredAnnotation(TO_ENCRYPT);
-			this.metadata = Metadata.builder()
-									.lazy(annotation.lazy())
-									.algorithm(annotation.algorithm())
-									.searchable(annotation.searchable())
-									.blindIdFieldName(field.getName() + BLIND_ID)
-									.build();
-		}
-		return metadata;
+		return field.getMetadata();
 	}
 
 	@Builder
@@ -74,6 +110,7 @@ class FieldWithContext <F> {
 		boolean lazy;
 		String algorithm;
 		boolean searchable;
+		boolean cacheable;
 		String blindIdFieldName;
 	}
 
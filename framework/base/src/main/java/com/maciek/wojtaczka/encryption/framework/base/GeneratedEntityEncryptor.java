@@ -0,0 +1,16 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+/**
+ * Implemented by the encryptors generated at compile time by encryption-framework-processor,
+ * one per class with {@link com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt} fields.
+ * The generated class is named after the entity class with {@link #CLASS_NAME_SUFFIX} appended,
+ * e.g. PersonEntity_EntityEncryptor, and lives in the same package.
+ */
+public interface GeneratedEntityEncryptor {
+
+	String CLASS_NAME_SUFFIX = "_EntityEncryptor";
+
+	<F> void encrypt(Object entity, String keyName, EncryptionContext<F> context);
+
+	<F> void decrypt(Object entity, String keyName, EncryptionContext<F> context);
+}
@@ -0,0 +1,44 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.util.Optional;
+
+/**
+ * Finds the {@link GeneratedEntityEncryptor} of a class by its naming convention, once per class.
+ */
+final class GeneratedEntityEncryptorRegistry {
+
+	private static final ClassValue<Optional<GeneratedEntityEncryptor>> GENERATED = new ClassValue<>() {
+		@Override
+		protected Optional<GeneratedEntityEncryptor> computeValue(Class<?> type) {
+			return load(type);
+		}
+	};
+
+	private GeneratedEntityEncryptorRegistry() {
+	}
+
+	static Optional<GeneratedEntityEncryptor> find(Class<?> entityClass) {
+		return GENERATED.get(entityClass);
+	}
+
+	private static Optional<GeneratedEntityEncryptor> load(Class<?> entityClass) {
+		if (entityClass.getClassLoader() == null) {
+			//JDK classes never have generated encryptors
+			return Optional.empty();
+		}
+		String generatedClassName = entityClass.getName().replace('$', '_') + GeneratedEntityEncryptor.CLASS_NAME_SUFFIX;
+		Class<?> generatedClass;
+		try {
+			generatedClass = Class.forName(generatedClassName, true, entityClass.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of((GeneratedEntityEncryptor) generatedClass.getDeclaredConstructor().newInstance());
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new EncryptionException("Cannot instantiate generated encryptor " + generatedClassName, e);
+		}
+	}
+}
@@ -4,28 +4,69 @@ import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Supplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public class GenericEntityEncryptor<F> extends AbstractLazyEntityEncryptor<F> {
 
 	private final Class<F> encryptedFieldType;
 
 	private final FieldEncryptor<F> fieldEncryptor;
+	private final FieldEncryptor<F> cachingFieldEncryptor;
+	private final CiphertextReuse<F> ciphertextReuse;
 	private final FieldExtractor fieldExtractor;
 	private final KeyNameResolver keyNameResolver;
-	private final String hashingAlgorithm;
+	private final BlindIdConverter<F> blindIdConverter;
+	private final Parallelism parallelism;
 
 	public GenericEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver, String hashingAlgorithm,
 								  Class<F> encryptedFieldType) {
-		this.fieldEncryptor = fieldEncryptor;
+		this(fieldEncryptor, keyNameResolver, new BlindIdConverter<>(fieldEncryptor, keyNameResolver, hashingAlgorithm), encryptedFieldType);
+	}
+
+	public GenericEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver, BlindIdConverter<F> blindIdConverter,
+								  Class<F> encryptedFieldType) {
+		this(fieldEncryptor, keyNameResolver, blindIdConverter, encryptedFieldType, Parallelism.serial());
+	}
+
+	/**
+	 * Fields of an entity graph and elements of collection fields are split across the pool once they reach the threshold.
+	 */
+	public GenericEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver, BlindIdConverter<F> blindIdConverter,
+								  Class<F> encryptedFieldType, Parallelism parallelism) {
+		this(fieldEncryptor, keyNameResolver, blindIdConverter, encryptedFieldType, parallelism, DecryptionCache.disabled());
+	}
+
+	/**
+	 * Decrypted values of the fields marked with {@code @Encrypt(cacheable = true)} are served from the cache.
+	 */
+	public GenericEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver, BlindIdConverter<F> blindIdConverter,
+								  Class<F> encryptedFieldType, Parallelism parallelism, DecryptionCache decryptionCache) {
+		this(fieldEncryptor, keyNameResolver, blindIdConverter, encryptedFieldType, parallelism, decryptionCache, false);
+	}
+
+	/**
+	 * With reuseUnchangedCiphertexts, ciphertexts of the eager fields are remembered per entity instance along with
+	 * fingerprints of their plaintexts, and written back on encryption when the plaintext has not changed and
+	 * the ciphertext has been encrypted with the latest key. Saving an unchanged entity then updates no encrypted columns.
+	 */
+	public GenericEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver, BlindIdConverter<F> blindIdConverter,
+								  Class<F> encryptedFieldType, Parallelism parallelism, DecryptionCache decryptionCache,
+								  boolean reuseUnchangedCiphertexts) {
+		super(encryptedFieldType);
+		this.fieldEncryptor = parallelism.isSerial() ? fieldEncryptor : new ParallelFieldEncryptor<>(fieldEncryptor, parallelism);
+		this.cachingFieldEncryptor =
+				decryptionCache.isDisabled() ? this.fieldEncryptor : new CachingFieldEncryptor<>(this.fieldEncryptor, decryptionCache);
+		this.ciphertextReuse = reuseUnchangedCiphertexts ? CiphertextReuse.of(this.fieldEncryptor) : CiphertextReuse.disabled();
+		this.parallelism = parallelism;
 		this.fieldExtractor = new FieldExtractor();
 		this.keyNameResolver = keyNameResolver;
-		this.hashingAlgorithm = hashingAlgorithm;
+		this.blindIdConverter = blindIdConverter;
 		this.encryptedFieldType = encryptedFieldType;
 	}
 
@@ -38,53 +79,81 @@ public class GenericEntityEncryptor<F> extends AbstractLazyEntityEncryptor<F> {
 
 	@Override
 	public void encryptObject(Object object, String keyName) {
+		encryptObject(object, keyName, FieldExtractor.newVisitedSet());
+	}
 
-		String keyBlindIdName = keyNameResolver.resolveBlindIdKeyName();
-		FieldExtractor.FieldsContainer<F> fieldsToBeEncryptedContainer = fieldExtractor.getAllFieldsToBeEncrypted(object, encryptedFieldType);
-		fieldsToBeEncryptedContainer
-				.getFields()
-				.forEach(fieldWithContext -> encryptField(fieldWithContext, keyName, keyBlindIdName));
-		fieldsToBeEncryptedContainer
-				.getIterableFields()
-				.forEach(fieldWithContext -> encryptIterableField(fieldWithContext, keyName));
+	/**
+	 * Skips the objects in the visited set, so a traversal started elsewhere can continue here.
+	 */
+	void encryptObject(Object object, String keyName, Set<Object> visited) {
+		encryptObjectFields(walk(List.of(object), visited), keyName, visited);
 	}
 
+	/**
+	 * Encrypts the fields collected by a walk of a single entity graph, which recorded the graph in the visited set.
+	 * The walk may have collected fields of other types too.
+	 */
+	void encryptObjectFields(FieldExtractor.FieldsContainers fieldsContainers, String keyName, Set<Object> visited) {
+
+		FieldExtractor.FieldsContainer<F> fieldsToBeEncryptedContainer = fieldsContainers.get(encryptedFieldType);
+		parallelism.forEach(LazyFields.notEncrypted(fieldsToBeEncryptedContainer.getFields()),
+							fieldWithContext -> encryptField(fieldWithContext, keyName));
+		parallelism.forEach(FieldExtractor.firstOccurrences(LazyFields.notEncrypted(fieldsToBeEncryptedContainer.getIterableFields()), visited),
+							fieldWithContext -> encryptIterableField(fieldWithContext, keyName));
+	}
 
-	private void encryptField(FieldWithContext<F> field, String keyName, String keyBlindIdName) {
 
-		FieldWithContext.Metadata fieldMetadata = field.getMetadata();
+	private void encryptField(FieldWithContext<F> field, String keyName) {
+
+		F value = field.getValue();
+		if (field.isSearchable()) {
+			setBlindId(field, blindIdConverter.hash(value));
+		}
+		String algorithm = field.getMetadata().getAlgorithm();
+		F encrypted = ciphertextReuse.unchangedCiphertext(field, value, keyName, algorithm);
+		if (encrypted == null) {
+			encrypted = fieldEncryptor.encrypt(value, keyName, algorithm);
+		}
+		field.setValue(encrypted);
+		ciphertextReuse.track(field, encrypted, value, keyName);
+		if (field.isLazy()) {
+			field.markEncrypted();
+		}
+	}
+
+	private void setBlindId(FieldWithContext<F> field, Object blindId) {
 		try {
-			F value = field.getValue();
-			if (field.isSearchable()) {
-				String blindId = fieldEncryptor.hash(value, keyBlindIdName, hashingAlgorithm);
-				field.setBlindId(blindId);
-			}
-			F encrypted = fieldEncryptor.encrypt(value, keyName, fieldMetadata.getAlgorithm());
-			field.setValue(encrypted);
+			field.setBlindId(blindId);
 		} catch (NoSuchFieldException e) {
-			throw new EncryptionException("BlindId field not found. Consider define field: " + fieldMetadata.getBlindIdFieldName());
+			throw new EncryptionException("BlindId field not found. Consider define field: " + field.getMetadata().getBlindIdFieldName());
 		}
 	}
 
+	/**
+	 * Lazy collections changed in place while left encrypted keep their ciphertexts, only the elements put in
+	 * since are encrypted.
+	 */
 	private void encryptIterableField(FieldWithContext<Iterable<F>> field, String keyName) {
 
-		FieldWithContext.Metadata fieldMetadata = field.getMetadata();
+		String algorithm = field.getMetadata().getAlgorithm();
 		Iterable<F> iterable = field.getValue();
+		Predicate<Object> ciphertextsLeft = field.isLazy() ? field.recordedCiphertexts() : element -> false;
+		Iterable<F> plain = iterable instanceof LazyDecryptingCollection ? ((LazyDecryptingCollection<F>) iterable).writeBack() : iterable;
+		Iterable<F> encrypted = CollectionTransformer.transform(plain, values -> {
+			List<F> ciphertexts = ciphertextReuse.unchangedCiphertext(field, values, keyName, algorithm);
+			if (ciphertexts == null) {
+				ciphertexts = LazyFields.transformSelected(values, ciphertextsLeft.negate(),
+												plaintexts -> fieldEncryptor.encryptAll(plaintexts, keyName, algorithm));
+			}
+			ciphertextReuse.track(field, ciphertexts, values, keyName);
+			return ciphertexts;
+		});
 
-		Collection<F> collect = StreamSupport.stream(iterable.spliterator(), false)
-											 .map(s -> fieldEncryptor.encrypt(s, keyName, fieldMetadata.getAlgorithm()))
-											 .collect(Collectors.toCollection(getCollectionFactory(iterable)));
-
-		field.setValue(collect);
-	}
-
-	private Supplier<Collection<F>> getCollectionFactory(Iterable<F> value) {
-		if (value instanceof List) {
-			return ArrayList::new;
-		} else if (value instanceof Set) {
-			return HashSet::new;
-		} else {
-			throw new EncryptionException("Collection type: " + value.getClass() + " not supported");
+		if (encrypted != iterable) {
+			field.setValue(encrypted);
+		}
+		if (field.isLazy()) {
+			field.markEncrypted();
 		}
 	}
 
@@ -98,18 +167,21 @@ public class GenericEntityEncryptor<F> extends AbstractLazyEntityEncryptor<F> {
 
 	@Override
 	public void decryptObject(Object object, String keyName) {
+		decryptObject(object, keyName, FieldExtractor.newVisitedSet());
+	}
 
-		FieldExtractor.FieldsContainer<F> fieldsToBeEncryptedContainer = fieldExtractor.getAllFieldsToBeEncrypted(object, encryptedFieldType);
-		fieldsToBeEncryptedContainer
-				.getFields()
-				.stream()
-				.filter(fieldWithContext -> !fieldWithContext.getMetadata().isLazy())
-				.forEach(fieldWithContext -> decryptField(fieldWithContext, keyName));
-		fieldsToBeEncryptedContainer
-				.getIterableFields()
-				.stream()
-				.filter(fieldWithContext -> !fieldWithContext.getMetadata().isLazy())
-				.forEach(fieldWithContext -> decryptIterableField(fieldWithContext, keyName));
+	void decryptObject(Object object, String keyName, Set<Object> visited) {
+		decryptObjectFields(walk(List.of(object), visited), keyName, visited);
+	}
+
+	void decryptObjectFields(FieldExtractor.FieldsContainers fieldsContainers, String keyName, Set<Object> visited) {
+
+		FieldExtractor.FieldsContainer<F> fieldsToBeEncryptedContainer = fieldsContainers.get(encryptedFieldType);
+		parallelism.forEach(LazyFields.eager(fieldsToBeEncryptedContainer.getFields()),
+							fieldWithContext -> decryptField(fieldWithContext, keyName));
+		parallelism.forEach(FieldExtractor.firstOccurrences(LazyFields.eager(fieldsToBeEncryptedContainer.getIterableFields()), visited),
+							fieldWithContext -> decryptIterableField(fieldWithContext, keyName));
+		LazyFields.markEncrypted(fieldsToBeEncryptedContainer);
 	}
 
 	private void decryptField(FieldWithContext<F> field, String keyName) {
@@ -120,26 +192,268 @@ public class GenericEntityEncryptor<F> extends AbstractLazyEntityEncryptor<F> {
 		}
 
 		FieldWithContext.Metadata fieldMetadata = field.getMetadata();
-		F encrypted = fieldEncryptor.decrypt(value, keyName, fieldMetadata.getAlgorithm());
-		field.setValue(encrypted);
+		F decrypted = decryptorOf(field).decrypt(value, keyName, fieldMetadata.getAlgorithm());
+		field.setValue(decrypted);
+		ciphertextReuse.track(field, value, decrypted, keyName);
 	}
 
 	private void decryptIterableField(FieldWithContext<Iterable<F>> field, String keyName) {
+		decryptIterableField(field, keyName, null);
+	}
+
+	private void decryptIterableField(FieldWithContext<Iterable<F>> field, String keyName, Consumer<FieldWithContext<?>> staleFields) {
 
 		Iterable<F> iterable = field.getValue();
 		if (iterable == null) {
 			return;
 		}
 
-		Collection<F> collect = StreamSupport.stream(iterable.spliterator(), false)
-											 .map(s -> fieldEncryptor.decrypt(s, keyName, field.getMetadata().getAlgorithm()))
-											 .collect(Collectors.toCollection(getCollectionFactory(iterable)));
+		String algorithm = field.getMetadata().getAlgorithm();
+		FieldEncryptor<F> decryptor = decryptorOf(field);
+		Iterable<F> decrypted = CollectionTransformer.transform(iterable, values -> {
+			List<F> plaintexts = staleFields == null
+					? decryptor.decryptAll(values, keyName, algorithm)
+					: decryptor.decryptAll(values, keyName, algorithm, index -> staleFields.accept(field));
+			ciphertextReuse.track(field, values, plaintexts, keyName);
+			return plaintexts;
+		});
+
+		if (decrypted != iterable) {
+			field.setValue(decrypted);
+		}
+	}
+
+	//BULK
+
+	@Override
+	public void encryptAll(Collection<?> objects) {
+		FieldGroups.byKeyName(objects, keyNameResolver).forEach((keyName, group) -> encryptAll(group, keyName));
+	}
+
+	/**
+	 * Values of all the objects are encrypted in one batch per algorithm, so the key is resolved once per batch.
+	 */
+	@Override
+	public void encryptAll(Collection<?> objects, String keyName) {
+
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		encryptAllFields(walk(objects, visited), keyName, visited);
+	}
+
+	void encryptAllFields(FieldExtractor.FieldsContainers fieldsContainers, String keyName, Set<Object> visited) {
+
+		FieldExtractor.FieldsContainer<F> fieldsToBeEncryptedContainer = fieldsContainers.get(encryptedFieldType);
+		FieldGroups.byAlgorithm(LazyFields.notEncrypted(fieldsToBeEncryptedContainer.getFields()))
+				.forEach((algorithm, fields) -> encryptFields(fields, keyName, algorithm));
+		parallelism.forEach(FieldExtractor.firstOccurrences(LazyFields.notEncrypted(fieldsToBeEncryptedContainer.getIterableFields()), visited),
+							fieldWithContext -> encryptIterableField(fieldWithContext, keyName));
+	}
+
+	private void encryptFields(List<FieldWithContext<F>> fields, String keyName, String algorithm) {
+
+		List<FieldWithContext<F>> searchableFields = fields.stream()
+														   .filter(FieldWithContext::isSearchable)
+														   .collect(Collectors.toList());
+		if (!searchableFields.isEmpty()) {
+			List<Object> blindIds = blindIdConverter.hashAll(FieldGroups.valuesOf(searchableFields));
+			for (int i = 0; i < searchableFields.size(); i++) {
+				setBlindId(searchableFields.get(i), blindIds.get(i));
+			}
+		}
+
+		List<FieldWithContext<F>> changedFields = new ArrayList<>(fields.size());
+		for (FieldWithContext<F> field : fields) {
+			F unchangedCiphertext = ciphertextReuse.unchangedCiphertext(field, field.getValue(), keyName, algorithm);
+			if (unchangedCiphertext == null) {
+				changedFields.add(field);
+			} else {
+				field.setValue(unchangedCiphertext);
+			}
+		}
+		if (changedFields.isEmpty()) {
+			return;
+		}
+
+		List<F> plaintexts = FieldGroups.valuesOf(changedFields);
+		List<F> encrypted = fieldEncryptor.encryptAll(plaintexts, keyName, algorithm);
+		for (int i = 0; i < changedFields.size(); i++) {
+			FieldWithContext<F> field = changedFields.get(i);
+			field.setValue(encrypted.get(i));
+			ciphertextReuse.track(field, encrypted.get(i), plaintexts.get(i), keyName);
+			if (field.isLazy()) {
+				field.markEncrypted();
+			}
+		}
+	}
+
+	@Override
+	public void decryptAll(Collection<?> objects) {
+		FieldGroups.byKeyName(objects, keyNameResolver).forEach((keyName, group) -> decryptAll(group, keyName));
+	}
+
+	/**
+	 * Values of all the objects are decrypted in one batch per algorithm, so each key version is resolved once per batch.
+	 */
+	@Override
+	public void decryptAll(Collection<?> objects, String keyName) {
+
+		Set<Object> visited = FieldExtractor.newVisitedSet();
+		decryptAllFields(walk(objects, visited), keyName, visited);
+	}
+
+	void decryptAllFields(FieldExtractor.FieldsContainers fieldsContainers, String keyName, Set<Object> visited) {
+
+		FieldExtractor.FieldsContainer<F> fieldsToBeEncryptedContainer = fieldsContainers.get(encryptedFieldType);
+		FieldGroups.byAlgorithm(LazyFields.eager(fieldsToBeEncryptedContainer.getFields()))
+				.forEach((algorithm, fields) -> decryptFields(fields, keyName, algorithm, null));
+		parallelism.forEach(FieldExtractor.firstOccurrences(LazyFields.eager(fieldsToBeEncryptedContainer.getIterableFields()), visited),
+							fieldWithContext -> decryptIterableField(fieldWithContext, keyName));
+		LazyFields.markEncrypted(fieldsToBeEncryptedContainer);
+	}
+
+	private void decryptFields(List<FieldWithContext<F>> fields, String keyName, String algorithm,
+							   Consumer<FieldWithContext<?>> staleFields) {
+
+		fields.stream()
+			  .collect(Collectors.partitioningBy(FieldWithContext::isCacheable))
+			  .forEach((cacheable, partition) -> decryptFields(partition, cacheable ? cachingFieldEncryptor : fieldEncryptor,
+															   keyName, algorithm, staleFields));
+	}
+
+	private void decryptFields(List<FieldWithContext<F>> fields, FieldEncryptor<F> decryptor, String keyName, String algorithm,
+							   Consumer<FieldWithContext<?>> staleFields) {
+
+		if (fields.isEmpty()) {
+			return;
+		}
+		List<F> ciphertexts = FieldGroups.valuesOf(fields);
+		List<F> decrypted = staleFields == null
+				? decryptor.decryptAll(ciphertexts, keyName, algorithm)
+				: decryptor.decryptAll(ciphertexts, keyName, algorithm, index -> staleFields.accept(fields.get(index)));
+		for (int i = 0; i < fields.size(); i++) {
+			fields.get(i).setValue(decrypted.get(i));
+			ciphertextReuse.track(fields.get(i), ciphertexts.get(i), decrypted.get(i), keyName);
+		}
+	}
+
+	//STALE KEYS
+
+	@Override
+	public boolean reportsStaleValues() {
+		return fieldEncryptor.reportsStaleValues();
+	}
+
+	@Override
+	public boolean decryptObjectAndCheckStale(Object object, StaleEncryptionPredicate predicate) {
+		return decryptObjectAndCheckStale(object, keyNameResolver.resolveEncryptionKeyName(object), predicate);
+	}
+
+	@Override
+	public boolean decryptObjectAndCheckStale(Object object, String keyName, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			boolean stale = predicate.isStale(object);
+			decryptObject(object, keyName);
+			return stale;
+		}
+		return decryptObjectAndCheckStale(object, keyName, FieldExtractor.newVisitedSet());
+	}
+
+	/**
+	 * Requires the field encryptor to report stale values, skips the objects in the visited set.
+	 */
+	boolean decryptObjectAndCheckStale(Object object, String keyName, Set<Object> visited) {
+		return !decryptAllAndFindStale(Collections.singletonList(object), keyName, visited).isEmpty();
+	}
+
+	@Override
+	public List<Object> decryptAllAndFindStale(Collection<?> objects, StaleEncryptionPredicate predicate) {
+		List<Object> stale = new ArrayList<>();
+		FieldGroups.byKeyName(objects, keyNameResolver).forEach((keyName, group) -> stale.addAll(decryptAllAndFindStale(group, keyName, predicate)));
+		return stale;
+	}
+
+	/**
+	 * Stale values are reported by the field encryptor while decrypting, so each value is parsed once and the latest key
+	 * versions are resolved once per batch. Lazy fields left encrypted have only their headers read. The predicate is used
+	 * only when the field encryptor cannot report stale values.
+	 */
+	@Override
+	public List<Object> decryptAllAndFindStale(Collection<?> objects, String keyName, StaleEncryptionPredicate predicate) {
+
+		if (!reportsStaleValues()) {
+			List<Object> stale = objects.stream()
+										.filter(predicate::isStale)
+										.collect(Collectors.toList());
+			decryptAll(objects, keyName);
+			return stale;
+		}
+		return decryptAllAndFindStale(objects, keyName, FieldExtractor.newVisitedSet());
+	}
+
+	private List<Object> decryptAllAndFindStale(Collection<?> objects, String keyName, Set<Object> visited) {
+
+		List<FieldExtractor.FieldsContainers> walks = objects.stream()
+															 .map(object -> walk(List.of(object), visited))
+															 .collect(Collectors.toList());
+		return decryptAllFieldsAndFindStale(objects, walks, keyName, visited);
+	}
+
+	/**
+	 * Requires the field encryptor to report stale values. The fields of each object are collected by a separate walk,
+	 * so the walks follow the order of the objects.
+	 */
+	List<Object> decryptAllFieldsAndFindStale(Collection<?> objects, List<FieldExtractor.FieldsContainers> walks, String keyName,
+											  Set<Object> visited) {
+
+		StaleFieldFinder<F> staleFieldFinder = new StaleFieldFinder<>(fieldEncryptor);
+		List<FieldExtractor.FieldsContainer<F>> fieldsContainers = new ArrayList<>(objects.size());
+		Iterator<FieldExtractor.FieldsContainers> walkIterator = walks.iterator();
+		for (Object object : objects) {
+			FieldExtractor.FieldsContainer<F> fieldsContainer = walkIterator.next().get(encryptedFieldType);
+			staleFieldFinder.addFields(object, fieldsContainer);
+			fieldsContainers.add(fieldsContainer);
+		}
+
+		List<FieldWithContext<F>> fields = fieldsContainers.stream()
+														   .flatMap(fieldsContainer -> fieldsContainer.getFields().stream())
+														   .collect(Collectors.toList());
+		List<FieldWithContext<Iterable<F>>> iterableFields = fieldsContainers.stream()
+																			 .flatMap(fieldsContainer -> fieldsContainer.getIterableFields().stream())
+																			 .collect(Collectors.toList());
+		FieldGroups.byAlgorithm(LazyFields.eager(fields))
+				.forEach((algorithm, group) -> decryptFields(group, keyName, algorithm, staleFieldFinder));
+		parallelism.forEach(FieldExtractor.firstOccurrences(LazyFields.eager(iterableFields), visited),
+							fieldWithContext -> decryptIterableField(fieldWithContext, keyName, staleFieldFinder));
+		staleFieldFinder.checkLazyFieldsLeftEncrypted(fields, iterableFields, keyName);
+		fieldsContainers.forEach(LazyFields::markEncrypted);
+
+		return staleFieldFinder.staleOf(objects);
+	}
+
+	private FieldEncryptor<F> decryptorOf(FieldWithContext<?> field) {
+		return field.isCacheable() ? cachingFieldEncryptor : fieldEncryptor;
+	}
+
+	private FieldExtractor.FieldsContainers walk(Collection<?> objects, Set<Object> visited) {
+		return fieldExtractor.getAllFieldsToBeEncrypted(objects, List.of(encryptedFieldType), visited);
+	}
 
-		field.setValue(collect);
+	Class<F> getEncryptedFieldType() {
+		return encryptedFieldType;
+	}
+
+	@Override
+	public List<Class<?>> getEncryptedFieldTypes() {
+		return List.of(encryptedFieldType);
 	}
 
 	//LAZY
 
+	@Override
+	String resolveKeyName(Object entity) {
+		return keyNameResolver.resolveEncryptionKeyName(entity);
+	}
+
 	@Override
 	void decryptFieldLazily(Object entity, String fieldName, String keyName) {
 		FieldWithContext<F> fieldByName;
@@ -149,7 +463,10 @@ public class GenericEntityEncryptor<F> extends AbstractLazyEntityEncryptor<F> {
 			throw new EncryptionException("No such field found", e);
 		}
 
-		decryptField(fieldByName, keyName);
+		if (fieldByName.needsLazyDecryption()) {
+			decryptField(fieldByName, keyName);
+			fieldByName.markDecrypted();
+		}
 	}
 
 	@Override
@@ -161,6 +478,9 @@ public class GenericEntityEncryptor<F> extends AbstractLazyEntityEncryptor<F> {
 			throw new EncryptionException("No such field found", e);
 		}
 
-		decryptIterableField(fieldByName, keyName);
+		if (fieldByName.needsLazyDecryption()) {
+			LazyFields.decryptElementWise(fieldByName, decryptorOf(fieldByName), keyName);
+			fieldByName.markDecrypted();
+		}
 	}
 }
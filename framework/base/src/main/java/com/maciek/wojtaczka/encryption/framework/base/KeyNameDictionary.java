@@ -0,0 +1,42 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns short numeric ids to key names, so cipher records refer to a key by id instead of repeating its name.
+ * Ids are stored with the records, so once used they must never be reassigned to another name.
+ * Names without an id are stored inline.
+ */
+public class KeyNameDictionary {
+
+	static final int INLINE = 0;
+
+	private final Map<String, Integer> idsByName;
+	private final Map<Integer, String> namesById;
+
+	public KeyNameDictionary(Map<String, Integer> idsByName) {
+		this.idsByName = new HashMap<>(idsByName);
+		this.namesById = new HashMap<>();
+		idsByName.forEach((name, id) -> {
+			if (id <= INLINE) {
+				throw new IllegalArgumentException("Key name id must be positive, got " + id + " for " + name);
+			}
+			if (namesById.put(id, name) != null) {
+				throw new IllegalArgumentException("Key name id " + id + " assigned more than once");
+			}
+		});
+	}
+
+	public static KeyNameDictionary empty() {
+		return new KeyNameDictionary(Map.of());
+	}
+
+	int getId(String keyName) {
+		return idsByName.getOrDefault(keyName, INLINE);
+	}
+
+	String getName(int id) {
+		return namesById.get(id);
+	}
+}
@@ -0,0 +1,17 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.Collection;
+
+/**
+ * View of a collection of encrypted values, which decrypts an element only once it is accessed.
+ */
+interface LazyDecryptingCollection<F> extends Collection<F> {
+
+	/**
+	 * Writes all the decrypted elements back into the collection the view was created from, e.g. to be encrypted again
+	 * in place, so Hibernate persistent collections are kept.
+	 *
+	 * @return the collection the view was created from, or a new one of the same kind when it is unmodifiable
+	 */
+	Collection<F> writeBack();
+}
@@ -0,0 +1,84 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * List holding encrypted values, decrypting an element on its first access and caching the result.
+ * {@link #size()} decrypts nothing. Set and added elements are kept as plaintexts, replaced and removed ones are
+ * decrypted to be returned. Like {@link ArrayList}, it is not thread-safe.
+ */
+final class LazyDecryptingList<F> extends AbstractList<F> implements LazyDecryptingCollection<F>, RandomAccess {
+
+	private static final Object NOT_DECRYPTED = new Object();
+
+	private final Collection<F> original;
+	private final List<F> encrypted;
+	private final List<Object> decrypted;
+	private final UnaryOperator<F> decryptor;
+
+	LazyDecryptingList(Collection<F> encrypted, UnaryOperator<F> decryptor) {
+		this.original = encrypted;
+		this.encrypted = new ArrayList<>(encrypted);
+		this.decrypted = new ArrayList<>(encrypted.size());
+		this.decryptor = decryptor;
+		for (int i = 0; i < encrypted.size(); i++) {
+			decrypted.add(NOT_DECRYPTED);
+		}
+	}
+
+	@Override
+	public F get(int index) {
+		Object value = decrypted.get(index);
+		if (value == NOT_DECRYPTED) {
+			F encryptedValue = encrypted.get(index);
+			value = encryptedValue == null ? null : decryptor.apply(encryptedValue);
+			decrypted.set(index, value);
+		}
+		return (F) value;
+	}
+
+	@Override
+	public int size() {
+		return encrypted.size();
+	}
+
+	@Override
+	public F set(int index, F element) {
+		F previous = get(index);
+		decrypted.set(index, element);
+		return previous;
+	}
+
+	@Override
+	public void add(int index, F element) {
+		encrypted.add(index, null);
+		decrypted.add(index, element);
+		modCount++;
+	}
+
+	@Override
+	public F remove(int index) {
+		F previous = get(index);
+		encrypted.remove(index);
+		decrypted.remove(index);
+		modCount++;
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		encrypted.clear();
+		decrypted.clear();
+		modCount++;
+	}
+
+	@Override
+	public Collection<F> writeBack() {
+		return CollectionTransformer.replace(original, new ArrayList<>(this));
+	}
+}
@@ -0,0 +1,113 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Set holding encrypted values in their iteration order, decrypting an element once it is reached by an iterator.
+ * {@link #size()} decrypts nothing, while the first lookup, like {@link #contains(Object)}, {@link #add(Object)} or
+ * {@link #remove(Object)}, decrypts all the elements, as ciphertexts cannot be compared with plaintexts, and indexes
+ * them, so later lookups decrypt nothing. Elements are compared by content, so byte arrays are matched too.
+ * Like {@link java.util.HashSet}, it is not thread-safe.
+ */
+final class LazyDecryptingSet<F> extends AbstractSet<F> implements LazyDecryptingCollection<F> {
+
+	private final LazyDecryptingList<F> elements;
+	private Set<Object> index;
+
+	LazyDecryptingSet(Collection<F> encrypted, UnaryOperator<F> decryptor) {
+		this.elements = new LazyDecryptingList<>(encrypted, decryptor);
+	}
+
+	@Override
+	public Iterator<F> iterator() {
+		Iterator<F> iterator = elements.iterator();
+		return new Iterator<>() {
+
+			private F last;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public F next() {
+				last = iterator.next();
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				if (index != null) {
+					index.remove(keyOf(last));
+				}
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		return index().contains(keyOf(object));
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		if (!index().remove(keyOf(object))) {
+			return false;
+		}
+		for (int i = 0; i < elements.size(); i++) {
+			if (Objects.deepEquals(elements.get(i), object)) {
+				elements.remove(i);
+				break;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean add(F element) {
+		if (!index().add(keyOf(element))) {
+			return false;
+		}
+		return elements.add(element);
+	}
+
+	@Override
+	public void clear() {
+		elements.clear();
+		index = null;
+	}
+
+	@Override
+	public Collection<F> writeBack() {
+		return elements.writeBack();
+	}
+
+	private Set<Object> index() {
+		if (index == null) {
+			index = new HashSet<>();
+			elements.forEach(element -> index.add(keyOf(element)));
+		}
+		return index;
+	}
+
+	/**
+	 * Byte arrays are wrapped, so they are hashed and compared by content.
+	 */
+	private static Object keyOf(Object element) {
+		return element instanceof byte[] ? ByteBuffer.wrap((byte[]) element) : element;
+	}
+}
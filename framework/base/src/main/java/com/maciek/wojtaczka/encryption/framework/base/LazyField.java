@@ -0,0 +1,51 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+/**
+ * Lazy field of an entity class, decrypted on its first read. Classes with lazy fields get accessors generated
+ * by encryption-framework-processor, holding one per field, so getters refer to no field names, e.g.
+ * {@code return PersonEntity_LazyFields.lazySensitive(this);}
+ */
+public final class LazyField<E, T> {
+
+	private final EncryptionPlan.FieldPlan field;
+
+	private LazyField(EncryptionPlan.FieldPlan field) {
+		this.field = field;
+	}
+
+	public static <E, T> LazyField<E, T> of(Class<E> entityType, String fieldName) {
+		EncryptionPlan.FieldPlan field;
+		try {
+			field = EncryptionPlan.of(entityType).getField(fieldName);
+		} catch (NoSuchFieldException e) {
+			throw new EncryptionException("No such field found", e);
+		}
+		if (!field.getMetadata().isLazy()) {
+			throw new EncryptionException("Field " + fieldName + " of " + entityType + " is not lazy");
+		}
+		return new LazyField<>(field);
+	}
+
+	/**
+	 * @return the value of the field, decrypted with the key name resolved for the entity on the first read
+	 */
+	public T get(E entity) {
+		if (field.isIterable()) {
+			StaticDecryptor.decryptIterableField(entity, field.getName());
+		} else {
+			StaticDecryptor.decryptField(entity, field.getName());
+		}
+		return (T) field.getValue(entity);
+	}
+
+	public T get(E entity, String keyName) {
+		if (field.isIterable()) {
+			StaticDecryptor.decryptIterableField(entity, field.getName(), keyName);
+		} else {
+			StaticDecryptor.decryptField(entity, field.getName(), keyName);
+		}
+		return (T) field.getValue(entity);
+	}
+}
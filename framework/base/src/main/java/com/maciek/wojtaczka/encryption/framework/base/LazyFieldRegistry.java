@@ -0,0 +1,136 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Remembers, per entity instance and lazy field, whether the field holds an encrypted or an already decrypted value,
+ * so lazy fields are decrypted once and not encrypted twice. A state applies only while the field holds the very value
+ * it was recorded with, a value set in between is treated as plaintext. Collections and arrays recorded encrypted
+ * have their elements recorded too, so elements added or replaced in place are told apart from the ciphertexts.
+ */
+final class LazyFieldRegistry {
+
+	private static final EntityFieldStates<FieldState> states = new EntityFieldStates<>();
+
+	private LazyFieldRegistry() {
+	}
+
+	static void markEncrypted(Object entity, String fieldName, Object encryptedValue) {
+		put(entity, fieldName, new FieldState(encryptedValue, true, elementsOf(encryptedValue)));
+	}
+
+	/**
+	 * Keeps the state recorded for the value the field holds, so the recorded ciphertexts of a collection changed
+	 * in place are not replaced with its current elements.
+	 */
+	static void markEncryptedUnlessRecorded(Object entity, String fieldName, Object encryptedValue) {
+		FieldState state = get(entity, fieldName);
+		if (state == null || state.value != encryptedValue) {
+			markEncrypted(entity, fieldName, encryptedValue);
+		}
+	}
+
+	static void markDecrypted(Object entity, String fieldName, Object decryptedValue) {
+		put(entity, fieldName, new FieldState(decryptedValue, false, null));
+	}
+
+	/**
+	 * @return true when the field holds the value recorded as encrypted, and in case of collections and arrays,
+	 * exactly the elements it was recorded with
+	 */
+	static boolean holdsEncryptedValue(Object entity, String fieldName, Object value) {
+		FieldState state = get(entity, fieldName);
+		return state != null && state.encrypted && state.value == value && state.holdsRecordedElements();
+	}
+
+	static boolean holdsDecryptedValue(Object entity, String fieldName, Object value) {
+		FieldState state = get(entity, fieldName);
+		return state != null && !state.encrypted && state.value == value;
+	}
+
+	/**
+	 * @return true when the field holds the value recorded as encrypted, or when nothing is recorded for it yet,
+	 * e.g. for entities encrypted before they were tracked
+	 */
+	static boolean needsDecryption(Object entity, String fieldName, Object value) {
+		FieldState state = get(entity, fieldName);
+		return state == null || state.encrypted && state.value == value;
+	}
+
+	/**
+	 * @return matches the elements of the collection or array the field holds which are the ciphertexts it was recorded
+	 * encrypted with, none when it is not recorded encrypted
+	 */
+	static Predicate<Object> recordedCiphertexts(Object entity, String fieldName, Object value) {
+		FieldState state = get(entity, fieldName);
+		if (state == null || !state.encrypted || state.value != value || state.elements == null) {
+			return element -> false;
+		}
+		Set<Object> ciphertexts = Collections.newSetFromMap(new IdentityHashMap<>());
+		ciphertexts.addAll(state.elements);
+		return ciphertexts::contains;
+	}
+
+	/**
+	 * @return matches the elements left to decrypt, all of them when nothing is recorded for the field yet
+	 */
+	static Predicate<Object> ciphertextsToDecrypt(Object entity, String fieldName, Object value) {
+		return get(entity, fieldName) == null ? element -> true : recordedCiphertexts(entity, fieldName, value);
+	}
+
+	private static List<Object> elementsOf(Object value) {
+		if (value instanceof Object[]) {
+			return Arrays.asList(((Object[]) value).clone());
+		}
+		if (value instanceof Iterable) {
+			List<Object> elements = new ArrayList<>();
+			((Iterable<?>) value).forEach(elements::add);
+			return elements;
+		}
+		return null;
+	}
+
+	private static void put(Object entity, String fieldName, FieldState state) {
+		states.put(entity, fieldName, state);
+	}
+
+	private static FieldState get(Object entity, String fieldName) {
+		return states.get(entity, fieldName);
+	}
+
+	private static final class FieldState {
+
+		private final Object value;
+		private final boolean encrypted;
+		private final List<Object> elements;
+
+		private FieldState(Object value, boolean encrypted, List<Object> elements) {
+			this.value = value;
+			this.encrypted = encrypted;
+			this.elements = elements;
+		}
+
+		/**
+		 * Elements are compared by identity, which is enough to tell a ciphertext from anything put in its place.
+		 */
+		private boolean holdsRecordedElements() {
+			if (elements == null) {
+				return true;
+			}
+			Iterator<?> current = value instanceof Object[] ? Arrays.asList((Object[]) value).iterator() : ((Iterable<?>) value).iterator();
+			for (Object element : elements) {
+				if (!current.hasNext() || current.next() != element) {
+					return false;
+				}
+			}
+			return !current.hasNext();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * State of the lazy fields, which are left encrypted until first accessed, and their decryption on access.
+ */
+final class LazyFields {
+
+	private LazyFields() {
+	}
+
+	/**
+	 * Lazy fields never decrypted since they were loaded or encrypted still hold their encrypted values.
+	 */
+	static <T> List<FieldWithContext<T>> notEncrypted(Collection<FieldWithContext<T>> fields) {
+		return fields.stream()
+					 .filter(fieldWithContext -> !fieldWithContext.isLazy() || !fieldWithContext.holdsEncryptedValue())
+					 .collect(Collectors.toList());
+	}
+
+	static <T> List<FieldWithContext<T>> eager(Collection<FieldWithContext<T>> fields) {
+		return fields.stream()
+					 .filter(fieldWithContext -> !fieldWithContext.isLazy())
+					 .collect(Collectors.toList());
+	}
+
+	/**
+	 * Lazy fields left encrypted are recorded, so they are decrypted on first access and not encrypted again on save.
+	 */
+	static void markEncrypted(FieldExtractor.FieldsContainer<?> fieldsContainer) {
+		Stream.concat(fieldsContainer.getFields().stream(), fieldsContainer.getIterableFields().stream())
+			  .filter(FieldWithContext::isLazy)
+			  .forEach(FieldWithContext::markEncryptedUnlessRecorded);
+	}
+
+	/**
+	 * Transforms the selected values in one batch, leaving the others as they are.
+	 */
+	static <T> List<T> transformSelected(List<T> values, Predicate<Object> selected, UnaryOperator<List<T>> batchTransformation) {
+		List<Integer> selectedIndexes = new ArrayList<>();
+		for (int i = 0; i < values.size(); i++) {
+			if (selected.test(values.get(i))) {
+				selectedIndexes.add(i);
+			}
+		}
+		if (selectedIndexes.size() == values.size()) {
+			return batchTransformation.apply(values);
+		}
+		List<T> result = new ArrayList<>(values);
+		if (selectedIndexes.isEmpty()) {
+			return result;
+		}
+		List<T> transformed = batchTransformation.apply(selectedIndexes.stream()
+																	   .map(values::get)
+																	   .collect(Collectors.toList()));
+		for (int i = 0; i < selectedIndexes.size(); i++) {
+			result.set(selectedIndexes.get(i), transformed.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Lists and sets of detached entities are replaced with views decrypting their elements on access, other iterables
+	 * and the collections of managed entities are decrypted at once, in place where possible.
+	 * Only the recorded ciphertexts are decrypted, elements put in place while the field was left encrypted are kept.
+	 */
+	static <F> void decryptElementWise(FieldWithContext<Iterable<F>> field, FieldEncryptor<F> fieldDecryptor, String keyName) {
+
+		Iterable<F> iterable = field.getValue();
+		String algorithm = field.getMetadata().getAlgorithm();
+		Predicate<Object> ciphertexts = field.ciphertextsToDecrypt();
+		UnaryOperator<F> decryptor = value -> ciphertexts.test(value) ? fieldDecryptor.decrypt(value, keyName, algorithm) : value;
+		boolean detached = !StaticDecryptor.isManaged(field.getContext());
+		if (detached && iterable instanceof List && field.getType().isAssignableFrom(LazyDecryptingList.class)) {
+			field.setValue(new LazyDecryptingList<>((List<F>) iterable, decryptor));
+		} else if (detached && iterable instanceof Set && field.getType().isAssignableFrom(LazyDecryptingSet.class)) {
+			field.setValue(new LazyDecryptingSet<>((Set<F>) iterable, decryptor));
+		} else if (iterable != null) {
+			Iterable<F> decrypted = CollectionTransformer.transform(iterable, values -> transformSelected(
+					values, ciphertexts, selected -> fieldDecryptor.decryptAll(selected, keyName, algorithm)));
+			if (decrypted != iterable) {
+				field.setValue(decrypted);
+			}
+		}
+	}
+}
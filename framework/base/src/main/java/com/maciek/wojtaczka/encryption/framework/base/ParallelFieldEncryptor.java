@@ -0,0 +1,82 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Splits batches of values across the pool of the {@link Parallelism}, each chunk is still processed as a batch
+ * by the decorated encryptor. Single values are passed through.
+ */
+public class ParallelFieldEncryptor<C> implements FieldEncryptor<C> {
+
+	private final FieldEncryptor<C> fieldEncryptor;
+	private final Parallelism parallelism;
+
+	public ParallelFieldEncryptor(FieldEncryptor<C> fieldEncryptor, Parallelism parallelism) {
+		this.fieldEncryptor = fieldEncryptor;
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public C encrypt(C c, String keyName, String algorithm) {
+		return fieldEncryptor.encrypt(c, keyName, algorithm);
+	}
+
+	@Override
+	public C decrypt(C c, String keyName, String algorithm) {
+		return fieldEncryptor.decrypt(c, keyName, algorithm);
+	}
+
+	@Override
+	public boolean isEncryptedWithLatestKey(C c, String keyName, String algorithm) {
+		return fieldEncryptor.isEncryptedWithLatestKey(c, keyName, algorithm);
+	}
+
+	@Override
+	public byte[] hash(C c, String keyName, String algorithm) {
+		return fieldEncryptor.hash(c, keyName, algorithm);
+	}
+
+	@Override
+	public List<C> encryptAll(List<C> cs, String keyName, String algorithm) {
+		return parallelism.transformInChunks(cs, chunk -> fieldEncryptor.encryptAll(chunk, keyName, algorithm));
+	}
+
+	@Override
+	public List<C> decryptAll(List<C> cs, String keyName, String algorithm) {
+		return parallelism.transformInChunks(cs, chunk -> fieldEncryptor.decryptAll(chunk, keyName, algorithm));
+	}
+
+	/**
+	 * Chunks are made of positions, so the stale values can be reported at their positions in the whole batch.
+	 */
+	@Override
+	public List<C> decryptAll(List<C> cs, String keyName, String algorithm, IntConsumer staleValues) {
+		List<Integer> positions = IntStream.range(0, cs.size()).boxed().collect(Collectors.toList());
+		return parallelism.transformInChunks(positions, chunk -> {
+			List<C> values = chunk.stream().map(cs::get).collect(Collectors.toList());
+			return fieldEncryptor.decryptAll(values, keyName, algorithm, index -> {
+				synchronized (staleValues) {
+					staleValues.accept(chunk.get(index));
+				}
+			});
+		});
+	}
+
+	@Override
+	public void findStaleValues(List<C> cs, String keyName, String algorithm, IntConsumer staleValues) {
+		fieldEncryptor.findStaleValues(cs, keyName, algorithm, staleValues);
+	}
+
+	@Override
+	public boolean reportsStaleValues() {
+		return fieldEncryptor.reportsStaleValues();
+	}
+
+	@Override
+	public List<byte[]> hashAll(List<C> cs, String keyName, String algorithm) {
+		return parallelism.transformInChunks(cs, chunk -> fieldEncryptor.hashAll(chunk, keyName, algorithm));
+	}
+}
@@ -0,0 +1,86 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Opt-in splitting of the work on a single entity across a fork join pool. Lists of fields or collection elements
+ * shorter than the threshold are processed on the calling thread, as forking them costs more than it saves.
+ * Longer ones are split in halves until the chunks are shorter than the threshold, results keep the order of the list.
+ */
+public final class Parallelism {
+
+	private static final Parallelism SERIAL = new Parallelism(null, Integer.MAX_VALUE);
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+
+	private Parallelism(ForkJoinPool pool, int threshold) {
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	public static Parallelism of(ForkJoinPool pool, int threshold) {
+		if (threshold < 2) {
+			throw new EncryptionException("Parallelism threshold has to be at least 2, was: " + threshold);
+		}
+		return new Parallelism(pool, threshold);
+	}
+
+	public static Parallelism serial() {
+		return SERIAL;
+	}
+
+	boolean isSerial() {
+		return pool == null;
+	}
+
+	/**
+	 * @return results of the chunk transformation concatenated in the order of the chunks
+	 */
+	<T, R> List<R> transformInChunks(List<T> items, Function<List<T>, List<R>> chunkTransformation) {
+		if (items.size() < threshold) {
+			return chunkTransformation.apply(items);
+		}
+		return pool.invoke(new ChunkTask<>(items, chunkTransformation));
+	}
+
+	<T> void forEach(List<T> items, Consumer<T> action) {
+		transformInChunks(items, chunk -> {
+			chunk.forEach(action);
+			return List.<Void>of();
+		});
+	}
+
+	private final class ChunkTask<T, R> extends RecursiveTask<List<R>> {
+
+		private final List<T> items;
+		private final Function<List<T>, List<R>> chunkTransformation;
+
+		private ChunkTask(List<T> items, Function<List<T>, List<R>> chunkTransformation) {
+			this.items = items;
+			this.chunkTransformation = chunkTransformation;
+		}
+
+		@Override
+		protected List<R> compute() {
+			if (items.size() < threshold) {
+				return chunkTransformation.apply(items);
+			}
+			int middle = items.size() / 2;
+			ChunkTask<T, R> head = new ChunkTask<>(items.subList(0, middle), chunkTransformation);
+			ChunkTask<T, R> tail = new ChunkTask<>(items.subList(middle, items.size()), chunkTransformation);
+			tail.fork();
+			List<R> result = new ArrayList<>(items.size());
+			result.addAll(head.compute());
+			result.addAll(tail.join());
+			return result;
+		}
+	}
+}
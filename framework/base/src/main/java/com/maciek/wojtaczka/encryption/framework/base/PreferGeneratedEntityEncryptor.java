@@ -0,0 +1,218 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Uses the {@link GeneratedEntityEncryptor} of the entity class when there is one on the classpath,
+ * otherwise falls back to {@link GenericEntityEncryptor}. Lazy fields are always decrypted by the latter.
+ */
+public class PreferGeneratedEntityEncryptor<F> implements EntityEncryptor<F> {
+
+	private final FieldEncryptor<F> fieldEncryptor;
+	private final KeyNameResolver keyNameResolver;
+	private final BlindIdConverter<F> blindIdConverter;
+	private final Class<F> encryptedFieldType;
+	private final GenericEntityEncryptor<F> genericEntityEncryptor;
+
+	public PreferGeneratedEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver,
+										  BlindIdConverter<F> blindIdConverter, Class<F> encryptedFieldType) {
+		this(fieldEncryptor, keyNameResolver, blindIdConverter, encryptedFieldType, Parallelism.serial());
+	}
+
+	/**
+	 * Generated encryptors split only the elements of collection fields across the pool, not the fields themselves.
+	 */
+	public PreferGeneratedEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver,
+										  BlindIdConverter<F> blindIdConverter, Class<F> encryptedFieldType, Parallelism parallelism) {
+		this(fieldEncryptor, keyNameResolver, blindIdConverter, encryptedFieldType, parallelism, DecryptionCache.disabled());
+	}
+
+	/**
+	 * Classes with cacheable fields have no generated encryptors, the cache is used by the fallback one.
+	 */
+	public PreferGeneratedEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver,
+										  BlindIdConverter<F> blindIdConverter, Class<F> encryptedFieldType, Parallelism parallelism,
+										  DecryptionCache decryptionCache) {
+		this(fieldEncryptor, keyNameResolver, blindIdConverter, encryptedFieldType, parallelism, decryptionCache, false);
+	}
+
+	/**
+	 * Unchanged ciphertexts are reused only for the entities encrypted by the fallback encryptor.
+	 */
+	public PreferGeneratedEntityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver,
+										  BlindIdConverter<F> blindIdConverter, Class<F> encryptedFieldType, Parallelism parallelism,
+										  DecryptionCache decryptionCache, boolean reuseUnchangedCiphertexts) {
+		this.fieldEncryptor = parallelism.isSerial() ? fieldEncryptor : new ParallelFieldEncryptor<>(fieldEncryptor, parallelism);
+		this.keyNameResolver = keyNameResolver;
+		this.blindIdConverter = blindIdConverter;
+		this.encryptedFieldType = encryptedFieldType;
+		this.genericEntityEncryptor =
+				new GenericEntityEncryptor<>(fieldEncryptor, keyNameResolver, blindIdConverter, encryptedFieldType, parallelism,
+											decryptionCache, reuseUnchangedCiphertexts);
+	}
+
+	@Override
+	public void encryptObject(Object object) {
+		encryptObject(object, keyNameResolver.resolveEncryptionKeyName(object));
+	}
+
+	@Override
+	public void encryptObject(Object object, String keyName) {
+		EncryptionContext<F> context = newContext();
+		encrypt(object, keyName, context);
+		context.flush();
+	}
+
+	@Override
+	public void decryptObject(Object object) {
+		decryptObject(object, keyNameResolver.resolveEncryptionKeyName(object));
+	}
+
+	@Override
+	public void decryptObject(Object object, String keyName) {
+		EncryptionContext<F> context = newContext();
+		decrypt(object, keyName, context);
+		context.flush();
+	}
+
+	/**
+	 * Values of all the objects with generated encryptors are encrypted in one batch per key name and algorithm.
+	 */
+	@Override
+	public void encryptAll(Collection<?> objects) {
+		EncryptionContext<F> context = newContext();
+		objects.forEach(object -> encrypt(object, keyNameResolver.resolveEncryptionKeyName(object), context));
+		context.flush();
+	}
+
+	@Override
+	public void encryptAll(Collection<?> objects, String keyName) {
+		EncryptionContext<F> context = newContext();
+		objects.forEach(object -> encrypt(object, keyName, context));
+		context.flush();
+	}
+
+	/**
+	 * Values of all the objects with generated encryptors are decrypted in one batch per key name and algorithm.
+	 */
+	@Override
+	public void decryptAll(Collection<?> objects) {
+		EncryptionContext<F> context = newContext();
+		objects.forEach(object -> decrypt(object, keyNameResolver.resolveEncryptionKeyName(object), context));
+		context.flush();
+	}
+
+	@Override
+	public void decryptAll(Collection<?> objects, String keyName) {
+		EncryptionContext<F> context = newContext();
+		objects.forEach(object -> decrypt(object, keyName, context));
+		context.flush();
+	}
+
+	private EncryptionContext<F> newContext() {
+		return new EncryptionContext<>(encryptedFieldType, fieldEncryptor, blindIdConverter);
+	}
+
+	private void encrypt(Object object, String keyName, EncryptionContext<F> context) {
+		context.schedule(object);
+		for (Object next = context.nextUnvisited(); next != null; next = context.nextUnvisited()) {
+			Optional<GeneratedEntityEncryptor> generated = GeneratedEntityEncryptorRegistry.find(next.getClass());
+			if (generated.isPresent()) {
+				context.markVisited(next);
+				generated.get().encrypt(next, keyName, context);
+			} else {
+				genericEntityEncryptor.encryptObject(next, keyName, context.getVisited());
+			}
+		}
+	}
+
+	/**
+	 * @return true when the objects without generated encryptors hold stale values, the values collected
+	 * by the context are told once it is flushed
+	 */
+	private boolean decrypt(Object object, String keyName, EncryptionContext<F> context) {
+		context.schedule(object);
+		boolean stale = false;
+		for (Object next = context.nextUnvisited(); next != null; next = context.nextUnvisited()) {
+			Optional<GeneratedEntityEncryptor> generated = GeneratedEntityEncryptorRegistry.find(next.getClass());
+			if (generated.isPresent()) {
+				context.markVisited(next);
+				generated.get().decrypt(next, keyName, context);
+			} else if (context.isCheckingStale()) {
+				stale |= genericEntityEncryptor.decryptObjectAndCheckStale(next, keyName, context.getVisited());
+			} else {
+				genericEntityEncryptor.decryptObject(next, keyName, context.getVisited());
+			}
+		}
+		return stale;
+	}
+
+	@Override
+	public List<Class<?>> getEncryptedFieldTypes() {
+		return List.of(encryptedFieldType);
+	}
+
+	@Override
+	public boolean reportsStaleValues() {
+		return fieldEncryptor.reportsStaleValues();
+	}
+
+	@Override
+	public boolean decryptObjectAndCheckStale(Object object, StaleEncryptionPredicate predicate) {
+		return decryptObjectAndCheckStale(object, keyNameResolver.resolveEncryptionKeyName(object), predicate);
+	}
+
+	/**
+	 * Generated encryptors decrypt through the context, which collects the stale values reported by the field encryptor.
+	 */
+	@Override
+	public boolean decryptObjectAndCheckStale(Object object, String keyName, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			boolean stale = predicate.isStale(object);
+			decryptObject(object, keyName);
+			return stale;
+		}
+		EncryptionContext<F> context = newContext();
+		context.checkStale();
+		boolean stale = decrypt(object, keyName, context);
+		context.flush();
+		return stale || context.isStale();
+	}
+
+	@Override
+	public List<Object> decryptAllAndFindStale(Collection<?> objects, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			return EntityEncryptor.super.decryptAllAndFindStale(objects, predicate);
+		}
+		return decryptAllAndCollectStale(objects, keyNameResolver::resolveEncryptionKeyName);
+	}
+
+	@Override
+	public List<Object> decryptAllAndFindStale(Collection<?> objects, String keyName, StaleEncryptionPredicate predicate) {
+		if (!reportsStaleValues()) {
+			return EntityEncryptor.super.decryptAllAndFindStale(objects, keyName, predicate);
+		}
+		return decryptAllAndCollectStale(objects, object -> keyName);
+	}
+
+	private List<Object> decryptAllAndCollectStale(Collection<?> objects, Function<Object, String> keyNames) {
+		EncryptionContext<F> context = newContext();
+		context.checkStale();
+		Set<Object> stale = FieldExtractor.newVisitedSet();
+		for (Object object : objects) {
+			if (decrypt(object, keyNames.apply(object), context)) {
+				stale.add(object);
+			}
+		}
+		context.flush();
+		stale.addAll(context.getStaleRoots());
+		return objects.stream()
+					  .filter(stale::contains)
+					  .collect(Collectors.toList());
+	}
+}
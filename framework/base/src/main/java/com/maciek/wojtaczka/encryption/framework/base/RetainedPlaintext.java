@@ -0,0 +1,127 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Plaintexts of an entity graph captured before its encryption, to be put back onto the saved entity instead of
+ * decrypting it again. Fields are matched by their position in the graph, so the saved entity can be the same instance
+ * or a merged copy of it, and are restored only when every one of them still holds the very ciphertext it was encrypted
+ * into. Covers the fields of the types encrypted by the configured entity encryptor, see
+ * {@link EntityEncryptor#getEncryptedFieldTypes()}; when it cannot tell them, nothing is restored.
+ */
+public final class RetainedPlaintext {
+
+	private final List<Class<?>> fieldTypes;
+	private final List<RetainedField> fields;
+
+	private RetainedPlaintext(List<Class<?>> fieldTypes, List<RetainedField> fields) {
+		this.fieldTypes = fieldTypes;
+		this.fields = fields;
+	}
+
+	/**
+	 * To be called before the entity gets encrypted.
+	 *
+	 * @param fieldTypes types of the fields encrypted by the entity encryptor
+	 */
+	public static RetainedPlaintext capture(Object entity, List<Class<?>> fieldTypes) {
+		List<RetainedField> fields = new ArrayList<>();
+		for (FieldWithContext<Object> field : collectFields(entity, fieldTypes)) {
+			fields.add(new RetainedField(field, snapshotOf(field)));
+		}
+		return new RetainedPlaintext(List.copyOf(fieldTypes), fields);
+	}
+
+	/**
+	 * To be called once the entity has been encrypted.
+	 */
+	public void captureCiphertexts() {
+		fields.forEach(field -> field.ciphertext = snapshotOf(field.field));
+	}
+
+	/**
+	 * @return true when the plaintexts have been restored, false when the saved entity does not match the encrypted one
+	 * and has been left untouched, so it has to be decrypted
+	 */
+	public boolean restoreOnto(Object savedEntity) {
+		if (fieldTypes.isEmpty()) {
+			return false;
+		}
+		List<FieldWithContext<Object>> savedFields = collectFields(savedEntity, fieldTypes);
+		if (savedFields.size() != fields.size()) {
+			return false;
+		}
+		for (int i = 0; i < fields.size(); i++) {
+			if (!fields.get(i).matches(savedFields.get(i))) {
+				return false;
+			}
+		}
+		for (int i = 0; i < fields.size(); i++) {
+			fields.get(i).restoreOnto(savedFields.get(i));
+		}
+		return true;
+	}
+
+	private static List<FieldWithContext<Object>> collectFields(Object entity, List<Class<?>> fieldTypes) {
+		FieldExtractor fieldExtractor = new FieldExtractor();
+		List<FieldWithContext<Object>> fields = new ArrayList<>();
+		for (Class<?> fieldType : fieldTypes) {
+			FieldExtractor.FieldsContainer<?> container = fieldExtractor.getAllFieldsToBeEncrypted(entity, fieldType);
+			container.getFields().forEach(field -> fields.add((FieldWithContext<Object>) field));
+			container.getIterableFields().forEach(field -> fields.add((FieldWithContext<Object>) (FieldWithContext<?>) field));
+		}
+		return fields;
+	}
+
+	/**
+	 * Collections are copied, as they are encrypted and decrypted in place.
+	 */
+	private static Object snapshotOf(FieldWithContext<Object> field) {
+		Object value = field.getValue();
+		if (value instanceof Iterable) {
+			List<Object> snapshot = new ArrayList<>();
+			((Iterable<?>) value).forEach(snapshot::add);
+			return snapshot;
+		}
+		return value;
+	}
+
+	private static final class RetainedField {
+
+		private final FieldWithContext<Object> field;
+		private final Object plaintext;
+		private Object ciphertext;
+
+		private RetainedField(FieldWithContext<Object> field, Object plaintext) {
+			this.field = field;
+			this.plaintext = plaintext;
+		}
+
+		private boolean matches(FieldWithContext<Object> savedField) {
+			return savedField.getContext().getClass() == field.getContext().getClass()
+				   && savedField.getName().equals(field.getName())
+				   && Objects.deepEquals(normalized(snapshotOf(savedField)), normalized(ciphertext));
+		}
+
+		private void restoreOnto(FieldWithContext<Object> savedField) {
+			if (!(plaintext instanceof List)) {
+				savedField.setValue(plaintext);
+				return;
+			}
+			Iterable<Object> current = (Iterable<Object>) savedField.getValue();
+			Iterable<Object> restored = CollectionTransformer.transform(current, values -> (List<Object>) plaintext);
+			if (restored != current) {
+				savedField.setValue(restored);
+			}
+		}
+
+		/**
+		 * Lists are compared as arrays, so byte[] elements are compared by content.
+		 */
+		private static Object normalized(Object value) {
+			return value instanceof List ? ((List<?>) value).toArray() : value;
+		}
+	}
+}
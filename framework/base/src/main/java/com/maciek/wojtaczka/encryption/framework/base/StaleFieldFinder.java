@@ -0,0 +1,79 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Collects the objects owning the fields reported stale while a batch is decrypted. The fields of each object are
+ * registered up front, so the reports may come from several threads.
+ */
+final class StaleFieldFinder<F> implements Consumer<FieldWithContext<?>> {
+
+	private final FieldEncryptor<F> fieldEncryptor;
+	private final Map<FieldWithContext<?>, Object> roots = new IdentityHashMap<>();
+	private final Set<Object> stale = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+	StaleFieldFinder(FieldEncryptor<F> fieldEncryptor) {
+		this.fieldEncryptor = fieldEncryptor;
+	}
+
+	void addFields(Object object, FieldExtractor.FieldsContainer<F> fieldsContainer) {
+		fieldsContainer.getFields().forEach(field -> roots.put(field, object));
+		fieldsContainer.getIterableFields().forEach(field -> roots.put(field, object));
+	}
+
+	@Override
+	public void accept(FieldWithContext<?> field) {
+		stale.add(roots.get(field));
+	}
+
+	/**
+	 * Values of all the lazy fields left encrypted are checked together per algorithm, reading only their headers,
+	 * so the latest version of each key is resolved once.
+	 */
+	void checkLazyFieldsLeftEncrypted(List<FieldWithContext<F>> fields, List<FieldWithContext<Iterable<F>>> iterableFields,
+									  String keyName) {
+		Map<String, List<F>> valuesByAlgorithm = new LinkedHashMap<>();
+		Map<String, List<FieldWithContext<?>>> ownersByAlgorithm = new LinkedHashMap<>();
+		fields.stream()
+			  .filter(FieldWithContext::isLazy)
+			  .filter(field -> !field.holdsDecryptedValue() && field.getValue() != null)
+			  .forEach(field -> addLazyValue(field, field.getValue(), valuesByAlgorithm, ownersByAlgorithm));
+		iterableFields.stream()
+					  .filter(FieldWithContext::isLazy)
+					  .filter(field -> !field.holdsDecryptedValue() && field.getValue() != null)
+					  .forEach(field -> StreamSupport.stream(field.getValue().spliterator(), false)
+													 .filter(field.ciphertextsToDecrypt())
+													 .filter(value -> value != null)
+													 .forEach(value -> addLazyValue(field, value, valuesByAlgorithm, ownersByAlgorithm)));
+		valuesByAlgorithm.forEach((algorithm, values) -> {
+			List<FieldWithContext<?>> owners = ownersByAlgorithm.get(algorithm);
+			fieldEncryptor.findStaleValues(values, keyName, algorithm, index -> accept(owners.get(index)));
+		});
+	}
+
+	/**
+	 * @return the stale objects, in the order of the passed ones
+	 */
+	List<Object> staleOf(Collection<?> objects) {
+		return objects.stream()
+					  .filter(stale::contains)
+					  .collect(Collectors.toList());
+	}
+
+	private static <F> void addLazyValue(FieldWithContext<?> field, F value, Map<String, List<F>> valuesByAlgorithm,
+										 Map<String, List<FieldWithContext<?>>> ownersByAlgorithm) {
+		String algorithm = field.getMetadata().getAlgorithm();
+		valuesByAlgorithm.computeIfAbsent(algorithm, key -> new ArrayList<>()).add(value);
+		ownersByAlgorithm.computeIfAbsent(algorithm, key -> new ArrayList<>()).add(field);
+	}
+}
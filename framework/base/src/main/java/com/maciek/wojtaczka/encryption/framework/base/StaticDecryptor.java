@@ -1,8 +1,18 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Entry point for lazy decryption. Picks the encryptor registered for the type of the decrypted field,
+ * falling back to the String one, or to the last initialized one when there is none.
+ */
 public final class StaticDecryptor {
 
-	private static AbstractLazyEntityEncryptor<?> instance;
+	private static final Map<Class<?>, AbstractLazyEntityEncryptor<?>> instancesByFieldType = new ConcurrentHashMap<>();
+	private static volatile AbstractLazyEntityEncryptor<?> instance;
+	private static volatile Predicate<Object> managedEntities = entity -> false;
 
 	public static synchronized <F> void initialize(AbstractLazyEntityEncryptor<F> entityEncryptor) {
 		if (entityEncryptor != null) {
@@ -10,11 +20,72 @@ public final class StaticDecryptor {
 		}
 	}
 
+	static synchronized <F> void initialize(AbstractLazyEntityEncryptor<F> entityEncryptor, Class<F> encryptedFieldType) {
+		if (entityEncryptor != null) {
+			instancesByFieldType.put(encryptedFieldType, entityEncryptor);
+			if (encryptedFieldType == String.class || !instancesByFieldType.containsKey(String.class)) {
+				instance = entityEncryptor;
+			}
+		}
+	}
+
+	/**
+	 * Lazy List and Set fields of the entities matching the predicate, i.e. managed by a persistence context, are
+	 * decrypted in place at once instead of being replaced with views, so their persistent collections are kept.
+	 */
+	public static void setManagedEntities(Predicate<Object> managedEntities) {
+		StaticDecryptor.managedEntities = managedEntities;
+	}
+
+	static boolean isManaged(Object entity) {
+		return managedEntities.test(entity);
+	}
+
+	/**
+	 * Decrypts the lazy field on its first access, with the key name resolved for the entity, e.g. in a getter:
+	 * {@code StaticDecryptor.decryptField(this, "field"); return field;}
+	 */
+	public static void decryptField(Object entity, String fieldName) {
+		AbstractLazyEntityEncryptor<?> instance = getInstance(getFieldType(entity, fieldName));
+		instance.decryptFieldLazily(entity, fieldName, instance.resolveKeyName(entity));
+	}
+
+	public static void decryptIterableField(Object entity, String fieldName) {
+		AbstractLazyEntityEncryptor<?> instance = getInstance(getElementType(entity, fieldName));
+		instance.decryptIterableFieldLazily(entity, fieldName, instance.resolveKeyName(entity));
+	}
+
 	public static void decryptField(Object entity, String fieldName, String keyName) {
-		instance.decryptFieldLazily(entity, fieldName, keyName);
+		Class<?> fieldType = getFieldType(entity, fieldName);
+		getInstance(fieldType).decryptFieldLazily(entity, fieldName, keyName);
 	}
 
 	public static void decryptIterableField(Object entity, String fieldName, String keyName) {
-		instance.decryptIterableFieldLazily(entity, fieldName, keyName);
+		Class<?> elementType = getElementType(entity, fieldName);
+		getInstance(elementType).decryptIterableFieldLazily(entity, fieldName, keyName);
+	}
+
+	private static AbstractLazyEntityEncryptor<?> getInstance(Class<?> fieldType) {
+		AbstractLazyEntityEncryptor<?> typedInstance = fieldType == null ? null : instancesByFieldType.get(fieldType);
+		return typedInstance != null ? typedInstance : instance;
+	}
+
+	private static Class<?> getFieldType(Object entity, String fieldName) {
+		EncryptionPlan.FieldPlan field = findField(entity, fieldName);
+		return field == null ? null : field.getType();
+	}
+
+	private static Class<?> getElementType(Object entity, String fieldName) {
+		EncryptionPlan.FieldPlan field = findField(entity, fieldName);
+		return field == null ? null : field.getElementType();
+	}
+
+	private static EncryptionPlan.FieldPlan findField(Object entity, String fieldName) {
+		try {
+			return EncryptionPlan.of(entity.getClass()).getField(fieldName);
+		} catch (NoSuchFieldException e) {
+			//the default instance reports the missing field
+			return null;
+		}
 	}
 }
@@ -1,75 +1,46 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
 import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
 
-import java.nio.charset.Charset;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Keeps records of {@link BinaryCipherRecordFormat} in a string one char per byte (ISO-8859-1).
+ * Records in the legacy text format start with a digit and are still read.
+ */
 class StringCipherRecordConverter {
 
-	private static final Charset CHARSET_FOR_BYTES_SERIALIZATION = ISO_8859_1;
-	private static final String SEPARATOR = ":";
-	private static final int BOOKMARKS_COUNT = 3;
-
-	String convertToString(CipherRecord cr) {
-		int[] bookmarks = new int[BOOKMARKS_COUNT];
-		bookmarks[0] = countDigits(cr.getEncryptionKeyVersion());
-		bookmarks[1] = cr.getEncryptionKeyName().length() + bookmarks[0];
-		bookmarks[2] = cr.getCipherMechanismType().length() + bookmarks[1];
-
-		String bookmarksString = IntStream.of(bookmarks)
-										  .mapToObj(String::valueOf)
-										  .collect(Collectors.joining(SEPARATOR, "", SEPARATOR));
+	private final BinaryCipherRecordFormat format;
+	private final LegacyStringCipherRecordConverter legacyConverter;
 
-		return bookmarksString +
-				cr.getEncryptionKeyVersion() +
-				cr.getEncryptionKeyName() +
-				cr.getCipherMechanismType() +
-				deserializeToString(cr.getCipherContent());
+	StringCipherRecordConverter() {
+		this(KeyNameDictionary.empty());
 	}
 
-	CipherRecord convertToCipherRecord(String stringRecord) {
-		String[] split = stringRecord.split(SEPARATOR, BOOKMARKS_COUNT + 1);
-
-		int[] bookmarks = Stream.of(split)
-								.mapToInt(Integer::parseInt)
-								.limit(BOOKMARKS_COUNT)
-								.toArray();
-
-		String cipherRecordWithNoBookmarks = split[BOOKMARKS_COUNT];
-
-		int encryptionKeyVersion = Integer.parseInt(cipherRecordWithNoBookmarks.substring(0, bookmarks[0]));
-		String encryptionKeyName = cipherRecordWithNoBookmarks.substring(bookmarks[0], bookmarks[1]);
-		String cipherMechanismType = cipherRecordWithNoBookmarks.substring(bookmarks[1], bookmarks[2]);
-		String cipherContent = cipherRecordWithNoBookmarks.substring(bookmarks[2]);
-
-		return new CipherRecord(
-				serializeString(cipherContent),
-				cipherMechanismType,
-				encryptionKeyName,
-				encryptionKeyVersion
-		);
+	StringCipherRecordConverter(KeyNameDictionary keyNameDictionary) {
+		this.format = new BinaryCipherRecordFormat(keyNameDictionary);
+		this.legacyConverter = new LegacyStringCipherRecordConverter();
 	}
 
-	private byte[] serializeString(String stringFromBytes) {
-		return stringFromBytes.getBytes(CHARSET_FOR_BYTES_SERIALIZATION);
+	String convertToString(CipherRecord cr) {
+		return new String(format.write(cr), StandardCharsets.ISO_8859_1);
 	}
 
-	private String deserializeToString(byte[] bytes) {
-		return new String(bytes, CHARSET_FOR_BYTES_SERIALIZATION);
+	CipherRecord convertToCipherRecord(String stringRecord) {
+		if (LegacyStringCipherRecordConverter.isLegacy(stringRecord)) {
+			return legacyConverter.convertToCipherRecord(stringRecord);
+		}
+		return format.readRecord(new BinaryCipherRecordFormat.StringReader(stringRecord));
 	}
 
-	private int countDigits(int number) {
-		int length = 0;
-		long temp = 1;
-		while (temp <= number) {
-			length++;
-			temp *= 10;
+	/**
+	 * Reads only the header, without copying the cipher content.
+	 */
+	CipherRecordHeader convertToHeader(String stringRecord) {
+		if (LegacyStringCipherRecordConverter.isLegacy(stringRecord)) {
+			return legacyConverter.convertToHeader(stringRecord);
 		}
-		return length;
+		return format.readHeader(new BinaryCipherRecordFormat.StringReader(stringRecord));
 	}
 }
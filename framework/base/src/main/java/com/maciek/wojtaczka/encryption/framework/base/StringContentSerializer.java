@@ -0,0 +1,65 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+
+import java.nio.charset.Charset;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serializes plain strings before they are encrypted.
+ * The first byte tells how the rest is encoded: Latin-1 when every char fits into one byte, UTF-8 otherwise.
+ * Legacy content written as UTF-16 always starts with the FE FF byte order mark (or is empty), so it is still readable.
+ */
+class StringContentSerializer {
+
+	static final byte LATIN_1_MARKER = 0x01;
+	static final byte UTF_8_MARKER = 0x02;
+
+	private static final byte UTF_16_BOM_FIRST_BYTE = (byte) 0xFE;
+	private static final byte UTF_16_BOM_SECOND_BYTE = (byte) 0xFF;
+
+	byte[] serialize(String content) {
+		if (isLatin1(content)) {
+			return withMarker(LATIN_1_MARKER, content, ISO_8859_1);
+		}
+		return withMarker(UTF_8_MARKER, content, UTF_8);
+	}
+
+	String deserialize(byte[] bytes) {
+		if (bytes.length == 0) {
+			return "";
+		}
+		switch (bytes[0]) {
+			case LATIN_1_MARKER:
+				return new String(bytes, 1, bytes.length - 1, ISO_8859_1);
+			case UTF_8_MARKER:
+				return new String(bytes, 1, bytes.length - 1, UTF_8);
+			case UTF_16_BOM_FIRST_BYTE:
+				if (bytes.length > 1 && bytes[1] == UTF_16_BOM_SECOND_BYTE) {
+					return new String(bytes, UTF_16);
+				}
+			default:
+				throw new EncryptionException("Unknown plain content format: " + bytes[0]);
+		}
+	}
+
+	private static boolean isLatin1(String content) {
+		for (int i = 0; i < content.length(); i++) {
+			if (content.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] withMarker(byte marker, String content, Charset charset) {
+		byte[] encoded = content.getBytes(charset);
+		byte[] bytes = new byte[encoded.length + 1];
+		bytes[0] = marker;
+		System.arraycopy(encoded, 0, bytes, 1, encoded.length);
+		return bytes;
+	}
+}
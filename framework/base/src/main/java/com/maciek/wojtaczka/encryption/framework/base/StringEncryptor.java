@@ -1,29 +1,42 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
 import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
 import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
 
 import java.nio.charset.Charset;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
 import static java.nio.charset.StandardCharsets.UTF_16;
 
 public class StringEncryptor implements FieldEncryptor<String> {
 
-	private static final Charset CHARSET_FOR_CONTENT_SERIALIZATION = UTF_16;
-
+	//kept for blind ids, so hashes stay equal to the ones already stored
+	private static final Charset CHARSET_FOR_BLIND_ID_SERIALIZATION = UTF_16;
 
 	private final EncryptionFacade encryptionFacade;
+	private final BlindIndexHasher blindIndexHasher;
 	private final StringCipherRecordConverter converter;
+	private final StringContentSerializer contentSerializer;
+
+	public StringEncryptor(EncryptionFacade encryptionFacade, BlindIndexHasher blindIndexHasher) {
+		this(encryptionFacade, blindIndexHasher, KeyNameDictionary.empty());
+	}
 
-	public StringEncryptor(EncryptionFacade encryptionFacade) {
+	public StringEncryptor(EncryptionFacade encryptionFacade, BlindIndexHasher blindIndexHasher, KeyNameDictionary keyNameDictionary) {
 		this.encryptionFacade = encryptionFacade;
-		this.converter = new StringCipherRecordConverter();
+		this.blindIndexHasher = blindIndexHasher;
+		this.converter = new StringCipherRecordConverter(keyNameDictionary);
+		this.contentSerializer = new StringContentSerializer();
 	}
 
 	@Override
 	public String encrypt(String content, String keyName, String algorithm) {
 
-		byte[] bytes = serializeContentString(content);
+		byte[] bytes = contentSerializer.serialize(content);
 		CipherRecord cipherRecord = encryptionFacade.encryptBytes(bytes, keyName, algorithm);
 
  		return converter.convertToString(cipherRecord);
@@ -35,23 +48,91 @@ public class StringEncryptor implements FieldEncryptor<String> {
 		CipherRecord cipherRecord = converter.convertToCipherRecord(encryptedContent);
 		byte[] bytes = encryptionFacade.decryptRecord(cipherRecord, keyName, algorithm);
 
-		return deserializeContentToString(bytes);
+		return contentSerializer.deserialize(bytes);
 	}
 
 	@Override
-	public String hash(String content, String keyName, String algorithm) {
-		byte[] bytes = serializeContentString(content);
-		CipherRecord cipherRecord = encryptionFacade.encryptBytes(bytes, keyName, algorithm);
+	public boolean isEncryptedWithLatestKey(String encryptedContent, String keyName, String algorithm) {
+
+		CipherRecordHeader header = converter.convertToHeader(encryptedContent);
+
+		return header.getEncryptionKeyName().equals(keyName)
+			   && header.getCipherMechanismType().equals(algorithm)
+			   && encryptionFacade.isEncryptedWithLatestKey(header);
+	}
+
+	@Override
+	public List<String> encryptAll(List<String> contents, String keyName, String algorithm) {
+
+		List<byte[]> bytes = contents.stream()
+									 .map(contentSerializer::serialize)
+									 .collect(Collectors.toList());
+		List<CipherRecord> cipherRecords = encryptionFacade.encryptBatch(bytes, keyName, algorithm);
+
+		return cipherRecords.stream()
+							.map(converter::convertToString)
+							.collect(Collectors.toList());
+	}
+
+	@Override
+	public List<String> decryptAll(List<String> encryptedContents, String keyName, String algorithm) {
+
+		List<CipherRecord> cipherRecords = encryptedContents.stream()
+															.map(converter::convertToCipherRecord)
+															.collect(Collectors.toList());
+		List<byte[]> bytes = encryptionFacade.decryptBatch(cipherRecords, keyName, algorithm);
+
+		return bytes.stream()
+					.map(contentSerializer::deserialize)
+					.collect(Collectors.toList());
+	}
 
-		return deserializeContentToString(cipherRecord.getCipherContent());
+	@Override
+	public List<String> decryptAll(List<String> encryptedContents, String keyName, String algorithm, IntConsumer staleValues) {
+
+		List<CipherRecord> cipherRecords = encryptedContents.stream()
+															.map(converter::convertToCipherRecord)
+															.collect(Collectors.toList());
+		List<byte[]> bytes = encryptionFacade.decryptBatch(cipherRecords, keyName, algorithm, staleValues);
+
+		return bytes.stream()
+					.map(contentSerializer::deserialize)
+					.collect(Collectors.toList());
 	}
 
-	private String deserializeContentToString(byte[] contentBytes) {
-		return new String(contentBytes, CHARSET_FOR_CONTENT_SERIALIZATION);
+	@Override
+	public void findStaleValues(List<String> encryptedContents, String keyName, String algorithm, IntConsumer staleValues) {
+
+		List<CipherRecordHeader> headers = encryptedContents.stream()
+															.map(converter::convertToHeader)
+															.collect(Collectors.toList());
+		encryptionFacade.findStale(headers, staleValues);
+	}
+
+	@Override
+	public boolean reportsStaleValues() {
+		return true;
+	}
+
+	@Override
+	public byte[] hash(String content, String keyName, String algorithm) {
+		byte[] bytes = serializeBlindIdContent(content);
+
+		return blindIndexHasher.hash(bytes, keyName, algorithm);
+	}
+
+	@Override
+	public List<byte[]> hashAll(List<String> contents, String keyName, String algorithm) {
+
+		List<byte[]> bytes = contents.stream()
+									 .map(this::serializeBlindIdContent)
+									 .collect(Collectors.toList());
+
+		return blindIndexHasher.hashAll(bytes, keyName, algorithm);
 	}
 
-	private byte[] serializeContentString(String content) {
-		return content.getBytes(CHARSET_FOR_CONTENT_SERIALIZATION);
+	private byte[] serializeBlindIdContent(String content) {
+		return content.getBytes(CHARSET_FOR_BLIND_ID_SERIALIZATION);
 	}
 
 
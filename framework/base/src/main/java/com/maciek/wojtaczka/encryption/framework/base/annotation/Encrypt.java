@@ -14,4 +14,9 @@ public @interface Encrypt {
 	String algorithm() default "AES/GCM/NoPadding";
 
 	boolean searchable() default false;
+
+	/**
+	 * Decrypted values are served from the DecryptionCache when one is configured, e.g. for hot reference data.
+	 */
+	boolean cacheable() default false;
 }
@@ -9,6 +9,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
@@ -37,13 +39,13 @@ class AsyncReencryptDecoratorTest {
 		Entity entity = Entity.builder()
 							  .sensitive("sensitive")
 							  .build();
-		when(predicate.isStale(any())).thenReturn(true);
+		when(docoratee.decryptObjectAndCheckStale(entity, predicate)).thenReturn(true);
 
 		//when
 		asyncReencryptDecorator.decryptObject(entity);
 
 		//then
-		verify(entityUpdater, timeout(100).times(1)).updateEntity(any());
+		verify(entityUpdater, timeout(100).times(1)).updateEntity(entity);
 	}
 
 	@Test
@@ -52,7 +54,7 @@ class AsyncReencryptDecoratorTest {
 		Entity entity = Entity.builder()
 							  .sensitive("sensitive")
 							  .build();
-		when(predicate.isStale(any())).thenReturn(false);
+		when(docoratee.decryptObjectAndCheckStale(entity, predicate)).thenReturn(false);
 
 		//when
 		asyncReencryptDecorator.decryptObject(entity);
@@ -62,6 +64,25 @@ class AsyncReencryptDecoratorTest {
 		verify(entityUpdater, never()).updateEntity(any());
 	}
 
+	@Test
+	void shouldCallUpdaterForStaleEntitiesOnly_whenDecryptingAll() {
+		//given
+		Entity staleEntity = Entity.builder()
+								   .sensitive("stale")
+								   .build();
+		Entity freshEntity = Entity.builder()
+								   .sensitive("fresh")
+								   .build();
+		when(docoratee.decryptAllAndFindStale(List.of(staleEntity, freshEntity), predicate)).thenReturn(List.of(staleEntity));
+
+		//when
+		asyncReencryptDecorator.decryptAll(List.of(staleEntity, freshEntity));
+
+		//then
+		verify(entityUpdater, timeout(100).times(1)).updateEntity(staleEntity);
+		verify(entityUpdater, never()).updateEntity(freshEntity);
+	}
+
 	private void sleep50ms() {
 		try {
 			Thread.sleep(50);
@@ -0,0 +1,135 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.CachingEncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.EncryptionKey;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BlindIdConverterTest {
+
+	@Mock
+	private EncryptionKeyProvider keyProvider;
+
+	private final RecordingEncryptor recordingEncryptor = new RecordingEncryptor();
+	private final StaticKeyNameResolver keyNameResolver = new StaticKeyNameResolver();
+
+	private BlindIdConverter<String> blindIdConverter;
+
+	@BeforeEach
+	void setup() {
+		blindIdConverter = new BlindIdConverter<>(recordingEncryptor, keyNameResolver, "HmacSHA256", BlindIdFormat.legacy(),
+												  keyProvider, 100);
+	}
+
+	@Test
+	void shouldHashOnce_whenSameValueHashedTwice() {
+		when(keyProvider.getLatestKey(keyNameResolver.resolveBlindIdKeyName(), "HmacSHA256")).thenReturn(key(1));
+
+		Object first = blindIdConverter.hash("married");
+		Object second = blindIdConverter.hash("married");
+
+		assertThat(second).isEqualTo(first);
+		assertThat(recordingEncryptor.hashed).containsExactly("married");
+	}
+
+	@Test
+	void shouldResolveLatestKeyVersionOnce_whenSameValueHashedRepeatedly() {
+		when(keyProvider.getLatestKey(keyNameResolver.resolveBlindIdKeyName(), "HmacSHA256")).thenReturn(key(1));
+
+		for (int i = 0; i < 10; i++) {
+			blindIdConverter.hash("married");
+		}
+
+		verify(keyProvider, times(1)).getLatestKey(keyNameResolver.resolveBlindIdKeyName(), "HmacSHA256");
+	}
+
+	@Test
+	void shouldHashAgain_whenBlindIdKeyRotated() {
+		CachingEncryptionKeyProvider cachingKeyProvider = new CachingEncryptionKeyProvider(keyProvider);
+		BlindIdConverter<String> converter = new BlindIdConverter<>(recordingEncryptor, keyNameResolver, "HmacSHA256",
+																	BlindIdFormat.legacy(), cachingKeyProvider, 100);
+		when(keyProvider.getLatestKey(keyNameResolver.resolveBlindIdKeyName(), "HmacSHA256")).thenReturn(key(1), key(2));
+
+		converter.hash("married");
+		cachingKeyProvider.invalidateAll();
+		converter.hash("married");
+
+		assertThat(recordingEncryptor.hashed).containsExactly("married", "married");
+	}
+
+	@Test
+	void shouldKeepBlindIdsOfLatestVersion_whenOlderVersionSeenDuringRotation() {
+		BlindIdMemo memo = new BlindIdMemo(100);
+		memo.put(BlindIdMemo.keyOf("blind_id_key", 1, "HmacSHA256", "married"), "v1");
+		memo.put(BlindIdMemo.keyOf("blind_id_key", 2, "HmacSHA256", "married"), "v2");
+
+		Object older = memo.get(BlindIdMemo.keyOf("blind_id_key", 1, "HmacSHA256", "married"));
+		memo.put(BlindIdMemo.keyOf("blind_id_key", 1, "HmacSHA256", "single"), "v1");
+
+		assertThat(older).isNull();
+		assertThat(memo.get(BlindIdMemo.keyOf("blind_id_key", 2, "HmacSHA256", "married"))).isEqualTo("v2");
+		assertThat(memo.size()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldHashEqualValuesOnce_whenHashedInBatch() {
+		when(keyProvider.getLatestKey(keyNameResolver.resolveBlindIdKeyName(), "HmacSHA256")).thenReturn(key(1));
+		blindIdConverter.hash("single");
+
+		List<Object> blindIds = blindIdConverter.hashAll(List.of("married", "single", "married", "divorced"));
+
+		assertThat(blindIds).hasSize(4);
+		assertThat(blindIds.get(2)).isEqualTo(blindIds.get(0));
+		assertThat(blindIds.get(1)).isEqualTo(blindIdConverter.hash("single"));
+		assertThat(recordingEncryptor.hashed).containsExactly("single", "married", "divorced");
+	}
+
+	@Test
+	void shouldHashEqualValuesOnce_whenHashedInBatchWithoutMemo() {
+		BlindIdConverter<String> converterWithoutMemo = new BlindIdConverter<>(recordingEncryptor, keyNameResolver, "HmacSHA256");
+
+		List<Object> blindIds = converterWithoutMemo.hashAll(List.of("married", "married"));
+
+		assertThat(blindIds.get(1)).isEqualTo(blindIds.get(0));
+		assertThat(recordingEncryptor.hashed).containsExactly("married");
+	}
+
+	private static EncryptionKey key(int version) {
+		return EncryptionKey.of("blind_id_key", new SecretKeySpec(new byte[32], "HmacSHA256"), version);
+	}
+
+	private static class RecordingEncryptor implements FieldEncryptor<String> {
+
+		private final List<String> hashed = new ArrayList<>();
+
+		@Override
+		public String encrypt(String value, String keyName, String algorithm) {
+			return value;
+		}
+
+		@Override
+		public String decrypt(String value, String keyName, String algorithm) {
+			return value;
+		}
+
+		@Override
+		public byte[] hash(String value, String keyName, String algorithm) {
+			hashed.add(value);
+			return value.getBytes();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class BlindIdFormatTest {
+
+	private static final byte[] HASH = hash();
+
+	@Test
+	void shouldEncodeAsBefore_whenLegacyFormat() {
+		Object blindId = BlindIdFormat.legacy().encode(HASH);
+
+		assertThat(blindId).isEqualTo(new String(HASH, UTF_16));
+	}
+
+	@Test
+	void shouldEncodeAsHex() {
+		Object blindId = BlindIdFormat.of(BlindIdEncoding.HEX, 4).encode(HASH);
+
+		assertThat(blindId).isEqualTo("00fffe7f");
+	}
+
+	@Test
+	void shouldEncodeAsBase64Url() {
+		Object blindId = BlindIdFormat.of(BlindIdEncoding.BASE64_URL).encode(HASH);
+
+		assertThat((String) blindId).hasSize(43)
+									.doesNotContain("+", "/", "=");
+	}
+
+	@Test
+	void shouldTruncateRawBytes() {
+		Object blindId = BlindIdFormat.of(BlindIdEncoding.BYTES, 16).encode(HASH);
+
+		assertThat((byte[]) blindId).hasSize(16)
+									.startsWith((byte) 0x00, (byte) 0xFF, (byte) 0xFE, (byte) 0x7F);
+	}
+
+	@Test
+	void shouldEncodeFirstEightBytesAsLong() {
+		Object blindId = BlindIdFormat.of(BlindIdEncoding.LONG).encode(HASH);
+
+		assertThat(blindId).isEqualTo(0x00FFFE7F04050607L);
+	}
+
+	@Test
+	void shouldNotAllowLongOfOtherLength() {
+		Throwable thrown = catchThrowable(() -> BlindIdFormat.of(BlindIdEncoding.LONG, 16));
+
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static byte[] hash() {
+		byte[] hash = new byte[32];
+		IntStream.range(0, hash.length).forEach(i -> hash[i] = (byte) i);
+		hash[1] = (byte) 0xFF;
+		hash[2] = (byte) 0xFE;
+		hash[3] = (byte) 0x7F;
+		return hash;
+	}
+}
@@ -0,0 +1,113 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
+import com.maciek.wojtaczka.encryption.core.EncryptionKey;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+import lombok.Builder;
+import lombok.Data;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteArrayEncryptorTest {
+
+	private static final String ALGORITHM = "AES/GCM/NoPadding";
+
+	private final EncryptionKeyProvider keyProvider = new InMemoryStaticKeyProvider();
+
+	private ByteArrayEncryptor byteArrayEncryptor;
+
+	@BeforeEach
+	void setup() {
+		EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(new AesGcmNoPaddingMechanism()), keyProvider);
+		BlindIndexHasher blindIndexHasher = new BlindIndexHasher(Set.of(new HmacSha256Mechanism()), keyProvider);
+		byteArrayEncryptor = new ByteArrayEncryptor(encryptionFacade, blindIndexHasher, new KeyNameDictionary(Map.of("test_key", 1)));
+	}
+
+	@Test
+	void shouldDecryptToOriginalBytes() {
+		byte[] content = { 0, 1, 2, (byte) 0xFE, (byte) 0xFF };
+
+		byte[] encrypted = byteArrayEncryptor.encrypt(content, "test_key", ALGORITHM);
+		byte[] decrypted = byteArrayEncryptor.decrypt(encrypted, "test_key", ALGORITHM);
+
+		assertThat(encrypted).startsWith(1, 1); //format version, mechanism id
+		assertThat(decrypted).isEqualTo(content);
+	}
+
+	@Test
+	void shouldStoreSameRecordAsStringEncryptorStoresInText() {
+		CipherRecord cr = new CipherRecord("cipher".getBytes(ISO_8859_1), ALGORITHM, "other_key", 300);
+		KeyNameDictionary dictionary = KeyNameDictionary.empty();
+
+		byte[] binaryRecord = new ByteArrayCipherRecordConverter(dictionary).convertToBytes(cr);
+		String textRecord = new StringCipherRecordConverter(dictionary).convertToString(cr);
+
+		assertThat(new String(binaryRecord, ISO_8859_1)).isEqualTo(textRecord);
+		assertThat(new ByteArrayCipherRecordConverter(dictionary).convertToCipherRecord(binaryRecord)).isEqualTo(cr);
+	}
+
+	@Test
+	void shouldDecryptAllInOrder_whenEncryptedInBatch() {
+		List<byte[]> contents = List.of(new byte[] { 1 }, new byte[0], new byte[] { 2, 3 });
+
+		List<byte[]> encrypted = byteArrayEncryptor.encryptAll(contents, "test_key", ALGORITHM);
+		List<byte[]> decrypted = byteArrayEncryptor.decryptAll(encrypted, "test_key", ALGORITHM);
+
+		assertThat(decrypted).containsExactlyElementsOf(contents);
+	}
+
+	@Test
+	void shouldEncryptOnlyByteArrayFields_whenUsedByEntityEncryptor() {
+		EntityEncryptor<byte[]> entityEncryptor =
+				new GenericEntityEncryptor<>(byteArrayEncryptor, new StaticKeyNameResolver(), "HmacSHA256", byte[].class);
+		byte[] document = { 4, 5, 6 };
+		Entity entity = Entity.builder()
+							  .document(document)
+							  .note("note")
+							  .build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		byte[] encryptedDocument = entity.getDocument();
+		entityEncryptor.decryptObject(entity, "test_key");
+
+		assertThat(encryptedDocument).isNotEqualTo(document);
+		assertThat(entity.getDocument()).isEqualTo(document);
+		assertThat(entity.getNote()).isEqualTo("note");
+	}
+
+	@Test
+	void shouldFindStaleBinaryRecord_whenEncryptedWithOlderKeyVersion() {
+		ByteArrayCipherRecordConverter converter = new ByteArrayCipherRecordConverter(KeyNameDictionary.empty());
+		EncryptionKey latestKey = keyProvider.getLatestKey("test_key", ALGORITHM);
+		CipherRecord staleRecord = new CipherRecord(new byte[0], ALGORITHM, "test_key", latestKey.getVersion() - 1);
+		CipherRecord freshRecord = new CipherRecord(new byte[0], ALGORITHM, "test_key", latestKey.getVersion());
+		ByteArrayStaleEncryptionPredicate predicate = new ByteArrayStaleEncryptionPredicate(keyProvider);
+
+		boolean stale = predicate.isStale(Entity.builder().document(converter.convertToBytes(staleRecord)).build());
+		boolean fresh = predicate.isStale(Entity.builder().document(converter.convertToBytes(freshRecord)).build());
+
+		assertThat(stale).isTrue();
+		assertThat(fresh).isFalse();
+	}
+
+	@Data
+	@Builder
+	private static class Entity {
+		@Encrypt
+		byte[] document;
+		@Encrypt
+		String note;
+	}
+}
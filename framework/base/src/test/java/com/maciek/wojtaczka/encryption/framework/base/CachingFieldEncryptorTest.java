@@ -0,0 +1,199 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingFieldEncryptorTest {
+
+	private final MutableClock clock = new MutableClock();
+	private final DecryptionCache cache = new DecryptionCache(2, Duration.ofMinutes(1), clock);
+	private final RecordingEncryptor recordingEncryptor = new RecordingEncryptor();
+	private final FieldEncryptor<String> cachingEncryptor = new CachingFieldEncryptor<>(recordingEncryptor, cache);
+
+	@Test
+	void shouldDecryptOnce_whenSameCiphertextDecryptedTwice() {
+		cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+		String decrypted = cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+
+		assertThat(decrypted).isEqualTo("1");
+		assertThat(recordingEncryptor.decrypted).containsExactly("encrypted 1");
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitRatio()).isEqualTo(0.5);
+	}
+
+	@Test
+	void shouldDecryptOnlyMisses_whenBatchDecrypted() {
+		cachingEncryptor.decrypt("encrypted 2", "key", "algorithm");
+
+		List<String> decrypted = cachingEncryptor.decryptAll(List.of("encrypted 1", "encrypted 2", "encrypted 3"), "key", "algorithm");
+
+		assertThat(decrypted).containsExactly("1", "2", "3");
+		assertThat(recordingEncryptor.decrypted).containsExactly("encrypted 2", "encrypted 1", "encrypted 3");
+	}
+
+	@Test
+	void shouldReportStaleHitsTheSameWayAsMisses_whenBatchDecrypted() {
+		cachingEncryptor.decrypt("encrypted old 1", "key", "algorithm");
+		List<Integer> stale = new ArrayList<>();
+
+		cachingEncryptor.decryptAll(List.of("encrypted old 1", "encrypted 2", "encrypted old 3"), "key", "algorithm", stale::add);
+
+		assertThat(stale).containsExactlyInAnyOrder(0, 2);
+		assertThat(recordingEncryptor.checkedForStaleness).containsExactly(List.of("encrypted old 1"));
+	}
+
+	@Test
+	void shouldDecryptAgain_whenKeyNameDiffers() {
+		cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+		cachingEncryptor.decrypt("encrypted 1", "other key", "algorithm");
+
+		assertThat(recordingEncryptor.decrypted).hasSize(2);
+	}
+
+	@Test
+	void shouldDecryptAgain_whenEntryExpired() {
+		cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+		clock.advance(Duration.ofMinutes(1));
+		cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+
+		assertThat(recordingEncryptor.decrypted).hasSize(2);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsed_whenMaximumSizeExceeded() {
+		cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+		cachingEncryptor.decrypt("encrypted 2", "key", "algorithm");
+		cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+		cachingEncryptor.decrypt("encrypted 3", "key", "algorithm");
+		cachingEncryptor.decrypt("encrypted 1", "key", "algorithm");
+		cachingEncryptor.decrypt("encrypted 2", "key", "algorithm");
+
+		assertThat(recordingEncryptor.decrypted).containsExactly("encrypted 1", "encrypted 2", "encrypted 3", "encrypted 2");
+		assertThat(cache.getSize()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldHandOutCopiesOfCachedByteArrays_whenEvicted() {
+		byte[] plaintext = {1, 2, 3};
+		cache.put(DecryptionCache.keyOf(new byte[]{9}, "key", "algorithm"), plaintext);
+		byte[] cached = cache.get(DecryptionCache.keyOf(new byte[]{9}, "key", "algorithm"));
+
+		cache.invalidateAll();
+
+		assertThat(cached).containsExactly(1, 2, 3);
+		assertThat(plaintext).containsExactly(1, 2, 3);
+		assertThat(cache.getSize()).isZero();
+	}
+
+	@Test
+	void shouldUseCacheOnlyForCacheableFields() {
+		StaticKeyNameResolver keyNameResolver = new StaticKeyNameResolver();
+		EntityEncryptor<String> entityEncryptor = new GenericEntityEncryptor<>(
+				recordingEncryptor, keyNameResolver, new BlindIdConverter<>(recordingEncryptor, keyNameResolver, "HmacSHA256"),
+				String.class, Parallelism.serial(), cache);
+
+		entityEncryptor.decryptObject(new Entity("encrypted 1", "encrypted 2"));
+		Entity entity = new Entity("encrypted 1", "encrypted 2");
+		entityEncryptor.decryptObject(entity);
+
+		assertThat(entity.getCacheable()).isEqualTo("1");
+		assertThat(entity.getNotCacheable()).isEqualTo("2");
+		assertThat(recordingEncryptor.decrypted).containsExactly("encrypted 1", "encrypted 2", "encrypted 2");
+	}
+
+	private static class RecordingEncryptor implements FieldEncryptor<String> {
+
+		private final List<String> decrypted = new ArrayList<>();
+		private final List<List<String>> checkedForStaleness = new ArrayList<>();
+
+		@Override
+		public String encrypt(String value, String keyName, String algorithm) {
+			return "encrypted " + value;
+		}
+
+		@Override
+		public String decrypt(String value, String keyName, String algorithm) {
+			decrypted.add(value);
+			return value.substring("encrypted ".length());
+		}
+
+		@Override
+		public List<String> decryptAll(List<String> values, String keyName, String algorithm, IntConsumer staleValues) {
+			List<String> decryptedValues = decryptAll(values, keyName, algorithm);
+			findStale(values, staleValues);
+			return decryptedValues;
+		}
+
+		@Override
+		public void findStaleValues(List<String> values, String keyName, String algorithm, IntConsumer staleValues) {
+			checkedForStaleness.add(values);
+			findStale(values, staleValues);
+		}
+
+		@Override
+		public boolean isEncryptedWithLatestKey(String value, String keyName, String algorithm) {
+			throw new AssertionError("Staleness is told by versions only");
+		}
+
+		@Override
+		public byte[] hash(String value, String keyName, String algorithm) {
+			return value.getBytes();
+		}
+
+		private void findStale(List<String> values, IntConsumer staleValues) {
+			for (int i = 0; i < values.size(); i++) {
+				if (values.get(i).contains("old")) {
+					staleValues.accept(i);
+				}
+			}
+		}
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant instant = Instant.EPOCH;
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneId.of("UTC");
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class Entity {
+
+		@Encrypt(cacheable = true)
+		private String cacheable;
+		@Encrypt
+		private String notCacheable;
+	}
+}
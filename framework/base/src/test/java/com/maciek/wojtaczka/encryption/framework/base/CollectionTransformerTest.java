@@ -0,0 +1,58 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CollectionTransformerTest {
+
+	private final UnaryOperator<List<String>> toUpperCase = values -> values.stream()
+																		 .map(String::toUpperCase)
+																		 .collect(Collectors.toList());
+
+	@Test
+	void shouldNotModifySet_whenNoElementChanged() {
+		Set<String> set = Collections.unmodifiableSet(new LinkedHashSet<>(List.of("A", "B")));
+
+		Set<String> transformed = CollectionTransformer.transform(set, toUpperCase);
+
+		assertThat(transformed).isSameAs(set);
+	}
+
+	@Test
+	void shouldNotModifyList_whenNoElementChanged() {
+		List<String> list = Collections.unmodifiableList(new ArrayList<>(List.of("A", "B")));
+
+		List<String> transformed = CollectionTransformer.transform(list, toUpperCase);
+
+		assertThat(transformed).isSameAs(list);
+	}
+
+	@Test
+	void shouldRefillSetInPlace_whenElementChanged() {
+		Set<String> set = new LinkedHashSet<>(List.of("A", "b"));
+
+		Set<String> transformed = CollectionTransformer.transform(set, toUpperCase);
+
+		assertThat(transformed).isSameAs(set)
+							   .containsExactly("A", "B");
+	}
+
+	@Test
+	void shouldReplaceSet_whenUnmodifiableAndElementChanged() {
+		Set<String> set = Collections.unmodifiableSet(new LinkedHashSet<>(List.of("a")));
+
+		Set<String> transformed = CollectionTransformer.transform(set, toUpperCase);
+
+		assertThat(transformed).isNotSameAs(set)
+							   .containsExactly("A");
+	}
+}
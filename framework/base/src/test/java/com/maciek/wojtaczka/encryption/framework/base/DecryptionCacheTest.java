@@ -0,0 +1,46 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecryptionCacheTest {
+
+	@Test
+	void shouldKeepAtMostMaximumSize_whenEntriesSpreadOverSegments() {
+		DecryptionCache cache = DecryptionCache.of(1024, Duration.ofMinutes(1));
+
+		IntStream.range(0, 4096)
+				 .forEach(i -> cache.put(keyOf(i), String.valueOf(i)));
+
+		assertThat(cache.getSize()).isLessThanOrEqualTo(1024)
+								   .isGreaterThan(512);
+		assertThat(cache.getEvictionCount()).isEqualTo(4096 - cache.getSize());
+	}
+
+	@Test
+	void shouldServeEveryThread_whenLookedUpConcurrently() {
+		DecryptionCache cache = DecryptionCache.of(1024, Duration.ofMinutes(1));
+		IntStream.range(0, 256)
+				 .forEach(i -> cache.put(keyOf(i), String.valueOf(i)));
+
+		List<CompletableFuture<Boolean>> lookups = IntStream.range(0, 8)
+															.mapToObj(thread -> CompletableFuture.supplyAsync(() -> IntStream.range(0, 256).allMatch(
+																	i -> String.valueOf(i).equals(cache.get(keyOf(i))))))
+															.collect(Collectors.toList());
+
+		assertThat(lookups).allMatch(CompletableFuture::join);
+		assertThat(cache.getHitCount()).isEqualTo(8 * 256);
+	}
+
+	private static ByteBuffer keyOf(int i) {
+		return DecryptionCache.keyOf("encrypted " + i, "key", "algorithm");
+	}
+}
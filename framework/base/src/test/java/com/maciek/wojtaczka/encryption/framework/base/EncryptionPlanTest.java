@@ -0,0 +1,57 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EncryptionPlanTest {
+
+	@Test
+	void shouldComputePlanOncePerClass() {
+		EncryptionPlan plan = EncryptionPlan.of(Entity.class);
+
+		assertThat(EncryptionPlan.of(Entity.class)).isSameAs(plan);
+	}
+
+	@Test
+	void shouldContainOnlyAnnotatedFieldsWithTheirMetadata() throws NoSuchFieldException {
+		EncryptionPlan plan = EncryptionPlan.of(Entity.class);
+
+		assertThat(plan.getFields()).extracting(EncryptionPlan.FieldPlan::getName)
+									.containsExactlyInAnyOrder("surname", "nicknames");
+		assertThat(plan.getField("surname").getMetadata().isSearchable()).isTrue();
+		assertThat(plan.getField("nicknames").isIterable()).isTrue();
+		assertThat(plan.getField("nicknames").getElementType()).isEqualTo(String.class);
+		assertThat(plan.getField("nicknames").getMetadata().isLazy()).isTrue();
+	}
+
+	@Test
+	void shouldSetBlindIdThroughResolvedField() throws NoSuchFieldException {
+		Entity entity = new Entity();
+
+		EncryptionPlan.of(Entity.class).getField("surname").setBlindId(entity, "blind id");
+
+		assertThat(entity.getSurnameBlindId()).isEqualTo("blind id");
+	}
+
+	@Test
+	void shouldThrowNoSuchFieldException_whenFieldNotAnnotated() {
+		EncryptionPlan plan = EncryptionPlan.of(Entity.class);
+
+		assertThatThrownBy(() -> plan.getField("surnameBlindId")).isInstanceOf(NoSuchFieldException.class);
+	}
+
+	@Data
+	private static class Entity {
+		@Encrypt(searchable = true)
+		String surname;
+		String surnameBlindId;
+		@Encrypt(lazy = true)
+		List<String> nicknames;
+	}
+}
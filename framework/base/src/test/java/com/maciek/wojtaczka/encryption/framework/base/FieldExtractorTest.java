@@ -181,6 +181,67 @@ class FieldExtractorTest {
 		assertThat(toBeEncryptedIterable).hasSize(3);
 	}
 
+	@Test
+	void shouldReturnFieldsOfSharedEmbeddedEntityOnce() {
+		//given
+		EmbeddedEntity shared = EmbeddedEntity.builder()
+											  .sensitive("shared sensitive")
+											  .build();
+		Entity entity = Entity.builder()
+							  .embeddedEntity(shared)
+							  .embeddedEntities(List.of(shared))
+							  .build();
+
+		//when
+		FieldExtractor.FieldsContainer<String> toBeEncrypted = fieldExtractor.getAllFieldsToBeEncrypted(entity, String.class);
+
+		//then
+		assertThat(toBeEncrypted.getFields()).hasSize(1);
+	}
+
+	@Test
+	void shouldReturnFieldsOfCyclicGraphOnce() {
+		//given
+		Node first = new Node();
+		Node second = new Node();
+		first.setSensitive("first");
+		first.setNext(second);
+		second.setSensitive("second");
+		second.setNext(first);
+
+		//when
+		FieldExtractor.FieldsContainer<String> toBeEncrypted = fieldExtractor.getAllFieldsToBeEncrypted(first, String.class);
+
+		//then
+		assertThat(toBeEncrypted.getFields()).extracting(FieldWithContext::getValue)
+											 .containsExactly("first", "second");
+	}
+
+	@Test
+	void shouldCollectFieldsOfEachType_whenWalkedOnceForSeveralTypes() {
+		//given
+		MixedEntity entity = MixedEntity.builder()
+										.sensitive("sensitive")
+										.binary(new byte[]{1})
+										.binaries(List.of(new byte[]{2}, new byte[]{3}))
+										.embeddedEntity(EmbeddedEntity.builder()
+																	  .sensitive("embedded sensitive")
+																	  .build())
+										.build();
+
+		//when
+		FieldExtractor.FieldsContainers toBeEncrypted =
+				fieldExtractor.getAllFieldsToBeEncrypted(List.of(entity), List.of(String.class, byte[].class), FieldExtractor.newVisitedSet());
+
+		//then
+		assertThat(toBeEncrypted.get(String.class).getFields()).extracting(FieldWithContext::getValue)
+															   .containsExactly("sensitive", "embedded sensitive");
+		assertThat(toBeEncrypted.get(String.class).getIterableFields()).isEmpty();
+		assertThat(toBeEncrypted.get(byte[].class).getFields()).extracting(FieldWithContext::getValue)
+															   .containsExactly(new byte[]{1});
+		assertThat(toBeEncrypted.get(byte[].class).getIterableFields()).hasSize(1);
+	}
+
 	@Data
 	@Builder
 	private static class Entity {
@@ -205,4 +266,26 @@ class FieldExtractorTest {
 		List<String> sensitives;
 	}
 
+	@Data
+	@Builder
+	private static class MixedEntity {
+		@Encrypt
+		String sensitive;
+		@Encrypt
+		byte[] binary;
+		@Encrypt
+		List<byte[]> binaries;
+		@Encrypt
+		EmbeddedEntity embeddedEntity;
+	}
+
+	//hashCode of a cycle of @Data objects never returns, so it must not be called
+	@Data
+	private static class Node {
+		@Encrypt
+		String sensitive;
+		@Encrypt
+		Node next;
+	}
+
 }
@@ -0,0 +1,128 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazyDecryptingListTest {
+
+	private final List<String> decryptedValues = new ArrayList<>();
+	private final UnaryOperator<String> decryptor = value -> {
+		decryptedValues.add(value);
+		return value.substring("encrypted ".length());
+	};
+
+	@Test
+	void shouldNotDecryptAnything_whenSizeRequested() {
+		List<String> list = new LazyDecryptingList<>(List.of("encrypted 1", "encrypted 2"), decryptor);
+
+		assertThat(list.size()).isEqualTo(2);
+		assertThat(decryptedValues).isEmpty();
+	}
+
+	@Test
+	void shouldDecryptAccessedElementOnce_whenAccessedTwice() {
+		List<String> list = new LazyDecryptingList<>(List.of("encrypted 1", "encrypted 2", "encrypted 3"), decryptor);
+
+		list.get(1);
+		String element = list.get(1);
+
+		assertThat(element).isEqualTo("2");
+		assertThat(decryptedValues).containsExactly("encrypted 2");
+	}
+
+	@Test
+	void shouldKeepAddedAndSetElementsAsPlaintexts() {
+		List<String> list = new LazyDecryptingList<>(List.of("encrypted 1", "encrypted 2"), decryptor);
+
+		list.add("3");
+		list.add(0, "0");
+
+		assertThat(list).containsExactly("0", "1", "2", "3");
+		assertThat(decryptedValues).containsExactly("encrypted 1", "encrypted 2");
+	}
+
+	@Test
+	void shouldReturnDecryptedPreviousElement_whenNotYetAccessedElementReplacedOrRemoved() {
+		List<String> list = new LazyDecryptingList<>(List.of("encrypted 1", "encrypted 2", "encrypted 3"), decryptor);
+
+		String replaced = list.set(0, "one");
+		String removed = list.remove(1);
+
+		assertThat(replaced).isEqualTo("1");
+		assertThat(removed).isEqualTo("2");
+		assertThat(list).containsExactly("one", "3");
+	}
+
+	@Test
+	void shouldWriteDecryptedElementsBackIntoOriginalList() {
+		List<String> original = new ArrayList<>(List.of("encrypted 1", "encrypted 2"));
+		LazyDecryptingList<String> list = new LazyDecryptingList<>(original, decryptor);
+
+		list.add("3");
+		Collection<String> writtenBack = list.writeBack();
+
+		assertThat(writtenBack).isSameAs(original);
+		assertThat(original).containsExactly("1", "2", "3");
+	}
+
+	@Test
+	void shouldDecryptAllElementsOnce_whenSetQueriedRepeatedly() {
+		Set<String> set = new LazyDecryptingSet<>(List.of("encrypted 1", "encrypted 2", "encrypted 3"), decryptor);
+
+		boolean added = set.add("1");
+		boolean contained = set.contains("3");
+		boolean removed = set.remove("2");
+
+		assertThat(added).isFalse();
+		assertThat(contained).isTrue();
+		assertThat(removed).isTrue();
+		assertThat(set).containsExactly("1", "3");
+		assertThat(decryptedValues).containsExactly("encrypted 1", "encrypted 2", "encrypted 3");
+	}
+
+	@Test
+	void shouldNotFindElement_whenRemovedByIterator() {
+		Set<String> set = new LazyDecryptingSet<>(List.of("encrypted 1", "encrypted 2"), decryptor);
+
+		set.contains("1");
+		set.removeIf("1"::equals);
+
+		assertThat(set.contains("1")).isFalse();
+		assertThat(set.add("1")).isTrue();
+		assertThat(set).containsExactly("2", "1");
+	}
+
+	@Test
+	void shouldCompareElementsByContent_whenSetOfByteArraysQueried() {
+		UnaryOperator<byte[]> byteDecryptor = value -> Arrays.copyOfRange(value, 1, value.length);
+		Set<byte[]> set = new LazyDecryptingSet<>(List.of(new byte[]{0, 1, 2}), byteDecryptor);
+
+		boolean contained = set.contains(new byte[]{1, 2});
+		boolean removed = set.remove(new byte[]{1, 2});
+
+		assertThat(contained).isTrue();
+		assertThat(removed).isTrue();
+		assertThat(set).isEmpty();
+	}
+
+	@Test
+	void shouldWriteDecryptedElementsBackIntoOriginalSet() {
+		Set<String> original = new LinkedHashSet<>(List.of("encrypted 1", "encrypted 2"));
+		LazyDecryptingSet<String> set = new LazyDecryptingSet<>(original, decryptor);
+
+		set.remove("1");
+		Collection<String> writtenBack = set.writeBack();
+
+		assertThat(writtenBack).isSameAs(original);
+		assertThat(original).containsExactly("2");
+	}
+}
@@ -0,0 +1,132 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+import lombok.Value;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class ParallelFieldEncryptorTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	void shouldKeepOrderOfValues_whenSplitAcrossPool() {
+		RecordingEncryptor recordingEncryptor = new RecordingEncryptor();
+		FieldEncryptor<String> parallelEncryptor = new ParallelFieldEncryptor<>(recordingEncryptor, Parallelism.of(pool, 10));
+		List<String> values = IntStream.range(0, 1000)
+									   .mapToObj(String::valueOf)
+									   .collect(Collectors.toList());
+
+		List<String> encrypted = parallelEncryptor.encryptAll(values, "key", "algorithm");
+
+		assertThat(encrypted).isEqualTo(values.stream()
+											  .map(value -> "encrypted " + value)
+											  .collect(Collectors.toList()));
+		assertThat(recordingEncryptor.batchSizes).allMatch(size -> size < 10);
+	}
+
+	@Test
+	void shouldProcessOnCallingThread_whenBelowThreshold() {
+		RecordingEncryptor recordingEncryptor = new RecordingEncryptor();
+		FieldEncryptor<String> parallelEncryptor = new ParallelFieldEncryptor<>(recordingEncryptor, Parallelism.of(pool, 10));
+
+		List<String> encrypted = parallelEncryptor.encryptAll(List.of("1", "2", "3"), "key", "algorithm");
+
+		assertThat(encrypted).containsExactly("encrypted 1", "encrypted 2", "encrypted 3");
+		assertThat(recordingEncryptor.threads).containsOnly(Thread.currentThread());
+		assertThat(recordingEncryptor.batchSizes).containsOnly(3);
+	}
+
+	@Test
+	void shouldEncryptAndDecryptEntity_whenFieldsAndElementsSplitAcrossPool() {
+		EncryptionKeyProvider keyProvider = new InMemoryStaticKeyProvider();
+		EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(new AesGcmNoPaddingMechanism()), keyProvider);
+		BlindIndexHasher blindIndexHasher = new BlindIndexHasher(Set.of(new HmacSha256Mechanism()), keyProvider);
+		StringEncryptor stringEncryptor = new StringEncryptor(encryptionFacade, blindIndexHasher);
+		StaticKeyNameResolver keyNameResolver = new StaticKeyNameResolver();
+		EntityEncryptor<String> entityEncryptor = new GenericEntityEncryptor<>(
+				stringEncryptor, keyNameResolver, new BlindIdConverter<>(stringEncryptor, keyNameResolver, "HmacSHA256"),
+				String.class, Parallelism.of(pool, 2));
+		List<String> values = IntStream.range(0, 100)
+									   .mapToObj(String::valueOf)
+									   .collect(Collectors.toList());
+		Entity entity = new Entity("sensitive1", "sensitive2", values.toArray(new String[0]));
+
+		entityEncryptor.encryptObject(entity);
+		List<String> encrypted = List.of(entity.getSensitiveArray());
+		entityEncryptor.decryptObject(entity);
+
+		assertThat(encrypted).doesNotContainAnyElementsOf(values);
+		assertThat(entity.getSensitive1()).isEqualTo("sensitive1");
+		assertThat(entity.getSensitive2()).isEqualTo("sensitive2");
+		assertThat(entity.getSensitiveArray()).containsExactlyElementsOf(values);
+	}
+
+	@Test
+	void shouldRejectThresholdBelowTwo() {
+		EncryptionException exception = catchThrowableOfType(() -> Parallelism.of(pool, 1), EncryptionException.class);
+
+		assertThat(exception).hasMessageContaining("at least 2");
+	}
+
+	private static class RecordingEncryptor implements FieldEncryptor<String> {
+
+		private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String encrypt(String value, String keyName, String algorithm) {
+			return "encrypted " + value;
+		}
+
+		@Override
+		public String decrypt(String value, String keyName, String algorithm) {
+			return value.substring("encrypted ".length());
+		}
+
+		@Override
+		public byte[] hash(String value, String keyName, String algorithm) {
+			return value.getBytes();
+		}
+
+		@Override
+		public List<String> encryptAll(List<String> values, String keyName, String algorithm) {
+			threads.add(Thread.currentThread());
+			batchSizes.add(values.size());
+			return FieldEncryptor.super.encryptAll(values, keyName, algorithm);
+		}
+	}
+
+	@Value
+	private static class Entity {
+
+		@Encrypt
+		String sensitive1;
+		@Encrypt
+		String sensitive2;
+		@Encrypt
+		String[] sensitiveArray;
+	}
+}
@@ -0,0 +1,129 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetainedPlaintextTest {
+
+	private EncryptionFacade encryptionFacade;
+	private BlindIndexHasher blindIndexHasher;
+	private EntityEncryptor<String> entityEncryptor;
+
+	@BeforeEach
+	void setup() {
+		EncryptionKeyProvider keyProvider = new InMemoryStaticKeyProvider();
+		encryptionFacade = new EncryptionFacade(Set.of(new AesGcmNoPaddingMechanism()), keyProvider);
+		blindIndexHasher = new BlindIndexHasher(Set.of(new HmacSha256Mechanism()), keyProvider);
+		StringEncryptor stringEncryptor = new StringEncryptor(encryptionFacade, blindIndexHasher);
+		StaticKeyNameResolver keyNameResolver = new StaticKeyNameResolver();
+		entityEncryptor = new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, "HmacSHA256", String.class);
+	}
+
+	@Test
+	void shouldRestorePlaintexts_whenSavedEntityIsTheEncryptedOne() {
+		Entity entity = new Entity("sensitive", new ArrayList<>(List.of("sensitive1", "sensitive2")), new Embedded("embedded"));
+		List<String> list = entity.getSensitiveList();
+
+		RetainedPlaintext retainedPlaintext = encrypt(entity);
+		boolean restored = retainedPlaintext.restoreOnto(entity);
+
+		assertThat(restored).isTrue();
+		assertThat(entity.getSensitive()).isEqualTo("sensitive");
+		assertThat(entity.getSensitiveList()).isSameAs(list)
+											 .containsExactly("sensitive1", "sensitive2");
+		assertThat(entity.getEmbedded().getSensitive()).isEqualTo("embedded");
+	}
+
+	@Test
+	void shouldRestorePlaintexts_whenSavedEntityIsMergedCopyOfEncryptedOne() {
+		Entity entity = new Entity("sensitive", new ArrayList<>(List.of("sensitive1", "sensitive2")), new Embedded("embedded"));
+
+		RetainedPlaintext retainedPlaintext = encrypt(entity);
+		Entity mergedCopy = new Entity(entity.getSensitive(), new ArrayList<>(entity.getSensitiveList()),
+									   new Embedded(entity.getEmbedded().getSensitive()));
+		boolean restored = retainedPlaintext.restoreOnto(mergedCopy);
+
+		assertThat(restored).isTrue();
+		assertThat(mergedCopy.getSensitive()).isEqualTo("sensitive");
+		assertThat(mergedCopy.getSensitiveList()).containsExactly("sensitive1", "sensitive2");
+		assertThat(mergedCopy.getEmbedded().getSensitive()).isEqualTo("embedded");
+	}
+
+	@Test
+	void shouldLeaveSavedEntityUntouched_whenAnyCiphertextDiffers() {
+		Entity entity = new Entity("sensitive", new ArrayList<>(List.of("sensitive1")), new Embedded("embedded"));
+
+		RetainedPlaintext retainedPlaintext = encrypt(entity);
+		Entity other = new Entity(entity.getSensitive(), new ArrayList<>(entity.getSensitiveList()), new Embedded("other"));
+		entityEncryptor.encryptObject(other.getEmbedded());
+		String encryptedSensitive = other.getSensitive();
+		boolean restored = retainedPlaintext.restoreOnto(other);
+
+		assertThat(restored).isFalse();
+		assertThat(other.getSensitive()).isEqualTo(encryptedSensitive);
+	}
+
+	@Test
+	void shouldLeaveSavedEntityUntouched_whenEncryptedFieldTypesUnknown() {
+		Entity entity = new Entity("sensitive", new ArrayList<>(List.of("sensitive1")), new Embedded("embedded"));
+
+		RetainedPlaintext retainedPlaintext = RetainedPlaintext.capture(entity, List.of());
+		entityEncryptor.encryptObject(entity);
+		retainedPlaintext.captureCiphertexts();
+		String encryptedSensitive = entity.getSensitive();
+		boolean restored = retainedPlaintext.restoreOnto(entity);
+
+		assertThat(restored).isFalse();
+		assertThat(entity.getSensitive()).isEqualTo(encryptedSensitive);
+	}
+
+	@Test
+	void shouldTakeFieldTypesOfAllDelegates_whenEncryptorIsComposite() {
+		EntityEncryptor<?> byteArrayEncryptor = new GenericEntityEncryptor<>(
+				new ByteArrayEncryptor(encryptionFacade, blindIndexHasher), new StaticKeyNameResolver(), "HmacSHA256", byte[].class);
+		CompositeEntityEncryptor compositeEncryptor = new CompositeEntityEncryptor(List.of(entityEncryptor, byteArrayEncryptor));
+
+		assertThat(compositeEncryptor.getEncryptedFieldTypes()).containsExactly(String.class, byte[].class);
+	}
+
+	private RetainedPlaintext encrypt(Entity entity) {
+		RetainedPlaintext retainedPlaintext = RetainedPlaintext.capture(entity, entityEncryptor.getEncryptedFieldTypes());
+		entityEncryptor.encryptObject(entity);
+		retainedPlaintext.captureCiphertexts();
+		return retainedPlaintext;
+	}
+
+	@Data
+	@AllArgsConstructor
+	private static class Entity {
+
+		@Encrypt
+		private String sensitive;
+		@Encrypt
+		private List<String> sensitiveList;
+		@Encrypt
+		private Embedded embedded;
+	}
+
+	@Data
+	@AllArgsConstructor
+	private static class Embedded {
+
+		@Encrypt
+		private String sensitive;
+	}
+}
@@ -0,0 +1,76 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class StringCipherRecordConverterTest {
+
+	private final StringCipherRecordConverter converter = new StringCipherRecordConverter(new KeyNameDictionary(Map.of("encryption-key", 1)));
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1, 127, 128, 16_384, Integer.MAX_VALUE})
+	void shouldConvertBackAndForth(int keyVersion) {
+		CipherRecord cipherRecord = new CipherRecord(new byte[]{0, 1, (byte) 0x80, (byte) 0xFF}, "AES/GCM/NoPadding", "encryption-key", keyVersion);
+
+		CipherRecord converted = converter.convertToCipherRecord(converter.convertToString(cipherRecord));
+
+		assertThat(converted).isEqualTo(cipherRecord);
+	}
+
+	@Test
+	void shouldConvertBackAndForth_whenKeyNameAndMechanismNotKnown() {
+		CipherRecord cipherRecord = new CipherRecord(new byte[]{42}, "ChaCha20-Poly1305", "klucz-szyfrujący", 3);
+
+		CipherRecord converted = converter.convertToCipherRecord(converter.convertToString(cipherRecord));
+
+		assertThat(converted).isEqualTo(cipherRecord);
+	}
+
+	@Test
+	void shouldBeShorterThanLegacyRecord() {
+		CipherRecord cipherRecord = new CipherRecord(new byte[40], "AES/GCM/NoPadding", "encryption-key", 12);
+
+		String record = converter.convertToString(cipherRecord);
+
+		assertThat(record).hasSize(4 + 40);
+		assertThat(new LegacyStringCipherRecordConverter().convertToString(cipherRecord)).hasSize(41 + 40);
+	}
+
+	@Test
+	void shouldReadHeaderOnly() {
+		CipherRecord cipherRecord = new CipherRecord(new byte[40], "AES/GCM/NoPadding", "encryption-key", 300);
+
+		CipherRecordHeader header = converter.convertToHeader(converter.convertToString(cipherRecord));
+
+		assertThat(header).isEqualTo(CipherRecordHeader.of("AES/GCM/NoPadding", "encryption-key", 300));
+	}
+
+	@Test
+	void shouldReadLegacyRecord() {
+		String legacyRecord = "3:11:28:999test_keyAES/GCM/NoPaddingEncryptedFooBoo";
+
+		CipherRecord cipherRecord = converter.convertToCipherRecord(legacyRecord);
+		CipherRecordHeader header = converter.convertToHeader(legacyRecord);
+
+		assertThat(cipherRecord.getCipherContent()).isEqualTo("EncryptedFooBoo".getBytes());
+		assertThat(header).isEqualTo(CipherRecordHeader.of("AES/GCM/NoPadding", "test_key", 999));
+	}
+
+	@Test
+	void shouldThrowEncryptionException_whenKeyNameIdNotInDictionary() {
+		String record = converter.convertToString(new CipherRecord(new byte[1], "AES/GCM/NoPadding", "encryption-key", 1));
+
+		Throwable thrown = catchThrowable(() -> new StringCipherRecordConverter().convertToHeader(record));
+
+		assertThat(thrown).isInstanceOf(EncryptionException.class);
+	}
+}
@@ -0,0 +1,49 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class StringContentSerializerTest {
+
+	private final StringContentSerializer serializer = new StringContentSerializer();
+
+	@Test
+	void shouldUseOneBytePerChar_whenContentFitsLatin1() {
+		byte[] bytes = serializer.serialize("Jenny Smith é");
+
+		assertThat(bytes).hasSize(1 + "Jenny Smith é".length());
+		assertThat(bytes[0]).isEqualTo(StringContentSerializer.LATIN_1_MARKER);
+	}
+
+	@Test
+	void shouldUseUtf8_whenContentDoesNotFitLatin1() {
+		byte[] bytes = serializer.serialize("Zażółć gęślą jaźń");
+
+		assertThat(bytes[0]).isEqualTo(StringContentSerializer.UTF_8_MARKER);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"", "foo_boo", "Zażółć gęślą jaźń", "😀 emoji"})
+	void shouldDeserializeSerializedContent(String content) {
+		assertThat(serializer.deserialize(serializer.serialize(content))).isEqualTo(content);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"", "foo_boo", "Zażółć gęślą jaźń"})
+	void shouldDeserializeLegacyUtf16Content(String content) {
+		assertThat(serializer.deserialize(content.getBytes(UTF_16))).isEqualTo(content);
+	}
+
+	@Test
+	void shouldThrowEncryptionException_whenFormatUnknown() {
+		Throwable thrown = catchThrowable(() -> serializer.deserialize(new byte[]{0x7F, 0x01}));
+
+		assertThat(thrown).isInstanceOf(EncryptionException.class);
+	}
+}
@@ -1,18 +1,23 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
 import com.maciek.wojtaczka.encryption.core.CipherRecord;
 import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Map;
+
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_16;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -22,9 +27,16 @@ class StringEncryptorTest {
 	@Mock
 	private EncryptionFacade encryptionFacade;
 
-	@InjectMocks
+	@Mock
+	private BlindIndexHasher blindIndexHasher;
+
 	private StringEncryptor stringEncryptor;
 
+	@BeforeEach
+	void setup() {
+		stringEncryptor = new StringEncryptor(encryptionFacade, blindIndexHasher, new KeyNameDictionary(Map.of("dictionary_key", 1)));
+	}
+
 	@Test
 	void shouldContainMetadata() {
 		String toBeEncrypted = "foo_boo";
@@ -34,13 +46,26 @@ class StringEncryptorTest {
 		String encrypted = stringEncryptor.encrypt(toBeEncrypted, "test_key", "AES/GCM/NoPadding");
 
 		Assertions.assertAll(
-			() -> assertThat(encrypted).contains("3:11:28:"), //bookmarks
+			() -> assertThat(encrypted).startsWith("\u0001\u0001"), //format version, mechanism id
 			() -> assertThat(encrypted).contains("test_key"),
-			() -> assertThat(encrypted).contains("AES/GCM/NoPadding"),
-			() -> assertThat(encrypted).contains("999")
+			() -> assertThat(encrypted).doesNotContain("AES/GCM/NoPadding"),
+			() -> assertThat(encrypted).endsWith("encryptedFooBoo")
 		);
 	}
 
+	@Test
+	void shouldDecryptRecordInBinaryFormat_whenKeyNameFromDictionary() {
+		CipherRecord cr = new CipherRecord("EncryptedFooBoo".getBytes(ISO_8859_1), "AES/GCM/NoPadding", "dictionary_key", 999);
+		when(encryptionFacade.encryptBytes(any(), any(), any())).thenReturn(cr);
+		when(encryptionFacade.decryptRecord(cr, "dictionary_key", "AES/GCM/NoPadding")).thenReturn("foo_boo".getBytes(UTF_16));
+		String encrypted = stringEncryptor.encrypt("foo_boo", "dictionary_key", "AES/GCM/NoPadding");
+
+		String decrypted = stringEncryptor.decrypt(encrypted, "dictionary_key", "AES/GCM/NoPadding");
+
+		assertThat(encrypted).doesNotContain("dictionary_key");
+		assertThat(decrypted).isEqualTo("foo_boo");
+	}
+
 	@Test
 	void shouldSendRequestToEncryptionFacadeAndDeserializeReturnedDecryptedBytes() {
 		String toBeDecrypted = "3:11:28:999test_keyAES/GCM/NoPaddingEncryptedFooBoo";
@@ -54,4 +79,28 @@ class StringEncryptorTest {
 		verify(encryptionFacade).decryptRecord(cr, "test_key", "AES/GCM/NoPadding");
 	}
 
+	@Test
+	void shouldEncryptAllValuesWithOneBatchRequest() {
+		when(encryptionFacade.encryptBatch(any(), any(), any())).thenReturn(List.of(
+			new CipherRecord("encryptedFoo".getBytes(ISO_8859_1), "AES/GCM/NoPadding", "test_key", 999),
+			new CipherRecord("encryptedBoo".getBytes(ISO_8859_1), "AES/GCM/NoPadding", "test_key", 999)));
+
+		List<String> encrypted = stringEncryptor.encryptAll(List.of("foo", "boo"), "test_key", "AES/GCM/NoPadding");
+
+		assertThat(encrypted).hasSize(2);
+		assertThat(encrypted.get(0)).endsWith("encryptedFoo");
+		assertThat(encrypted.get(1)).endsWith("encryptedBoo");
+		verify(encryptionFacade, never()).encryptBytes(any(), any(), any());
+	}
+
+	@Test
+	void shouldHashWithBlindIndexHasher() {
+		when(blindIndexHasher.hash("foo_boo".getBytes(UTF_16), "blind_id_key", "HmacSHA256")).thenReturn("hashed".getBytes(UTF_16));
+
+		byte[] hash = stringEncryptor.hash("foo_boo", "blind_id_key", "HmacSHA256");
+
+		assertThat(hash).isEqualTo("hashed".getBytes(UTF_16));
+		verify(encryptionFacade, never()).encryptBytes(any(), any(), any());
+	}
+
 }
@@ -1,10 +1,12 @@
 package com.maciek.wojtaczka.encryption.framework.base;
 
 import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
 import com.maciek.wojtaczka.encryption.core.CipherMechanism;
 import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
 import com.maciek.wojtaczka.encryption.core.EncryptionKey;
 import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HashMechanism;
 import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
 import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
 import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
@@ -19,12 +21,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,13 +45,15 @@ class StringEntityEncryptorTest {
 	KeyNameResolver keyNameResolver;
 
 	private EntityEncryptor<String> entityEncryptor;
+	private FieldEncryptor<String> stringEncryptor;
 
 	@BeforeEach
 	void setup() {
 		CipherMechanism aesGcmNoPaddingMechanism = new AesGcmNoPaddingMechanism();
-		CipherMechanism hmacShaMechanism = new HmacSha256Mechanism();
-		EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(aesGcmNoPaddingMechanism, hmacShaMechanism), keyProvider);
-		FieldEncryptor<String> stringEncryptor = new StringEncryptor(encryptionFacade);
+		HashMechanism hmacShaMechanism = new HmacSha256Mechanism();
+		EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(aesGcmNoPaddingMechanism), keyProvider);
+		BlindIndexHasher blindIndexHasher = new BlindIndexHasher(Set.of(hmacShaMechanism), keyProvider);
+		stringEncryptor = new StringEncryptor(encryptionFacade, blindIndexHasher);
 		entityEncryptor = new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, "HmacSHA256", String.class);
 	}
 
@@ -127,6 +137,100 @@ class StringEntityEncryptorTest {
 		);
 	}
 
+	@Test
+	void shouldKeepListInstance_whenEncryptingAndDecryptingListField() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		List<String> sensitiveList = new LinkedList<>(List.of("sensitive1", "sensitive2"));
+		Entity entity = Entity.builder()
+			.sensitiveList(sensitiveList)
+			.build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		assertThat(entity.getSensitiveList()).isSameAs(sensitiveList)
+											 .doesNotContain("sensitive1", "sensitive2");
+
+		entityEncryptor.decryptObject(entity, "test_key");
+		assertThat(entity.getSensitiveList()).isSameAs(sensitiveList)
+											 .containsExactly("sensitive1", "sensitive2");
+	}
+
+	@Test
+	void shouldEncryptSharedCollectionsOnce_whenReferencedByTwoEntities() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		List<String> sharedList = new ArrayList<>(List.of("sensitive1", "sensitive2"));
+		String[] sharedArray = {"sensitive3"};
+		Entity entity1 = Entity.builder()
+			.sensitiveList(sharedList)
+			.sensitiveArray(sharedArray)
+			.build();
+		Entity entity2 = Entity.builder()
+			.sensitiveList(sharedList)
+			.sensitiveArray(sharedArray)
+			.build();
+
+		entityEncryptor.encryptAll(List.of(entity1, entity2), "test_key");
+		entityEncryptor.decryptObject(entity1, "test_key");
+
+		assertThat(entity2.getSensitiveList()).containsExactly("sensitive1", "sensitive2");
+		assertThat(entity2.getSensitiveArray()).containsExactly("sensitive3");
+	}
+
+	@Test
+	void shouldKeepSetInstance_whenEncryptingAndDecryptingSetField() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		Set<String> sensitiveSet = new LinkedHashSet<>(List.of("sensitive1", "sensitive2"));
+		Entity entity = Entity.builder()
+			.sensitiveSet(sensitiveSet)
+			.build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		assertThat(entity.getSensitiveSet()).isSameAs(sensitiveSet)
+											.doesNotContain("sensitive1", "sensitive2");
+
+		entityEncryptor.decryptObject(entity, "test_key");
+		assertThat(entity.getSensitiveSet()).isSameAs(sensitiveSet)
+											.containsExactly("sensitive1", "sensitive2");
+	}
+
+	@Test
+	void shouldReplaceListInstance_whenListIsUnmodifiable() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		List<String> sensitiveList = List.of("sensitive");
+		Entity entity = Entity.builder()
+			.sensitiveList(sensitiveList)
+			.build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+
+		assertThat(entity.getSensitiveList()).isNotSameAs(sensitiveList)
+											 .doesNotContain("sensitive");
+	}
+
+	@Test
+	void shouldEncryptAndDecryptEntityStringArrayFieldInPlace() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		String[] sensitiveArray = { "sensitive1", "sensitive2" };
+		Entity entity = Entity.builder()
+			.sensitiveArray(sensitiveArray)
+			.build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		assertThat(entity.getSensitiveArray()).isSameAs(sensitiveArray)
+											  .doesNotContain("sensitive1", "sensitive2");
+
+		entityEncryptor.decryptObject(entity, "test_key");
+		assertThat(entity.getSensitiveArray()).containsExactly("sensitive1", "sensitive2");
+	}
+
 	@Test
 	void shouldEncryptAndDecryptEntityEmbeddedEntityField() {
 		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
@@ -196,6 +300,29 @@ class StringEntityEncryptorTest {
 		);
 	}
 
+	@Test
+	void shouldEncryptAndDecryptAllEntities_resolvingKeyOncePerBatch() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		List<Entity> entities = List.of(
+			Entity.builder().sensitive1("sensitive1").sensitive2("sensitive2").lazySensitive("lazy1").build(),
+			Entity.builder().sensitive1("sensitive3").sensitive2("sensitive4").lazySensitive("lazy2").build()
+		);
+
+		entityEncryptor.encryptAll(entities, "test_key");
+		assertThat(entities).extracting(Entity::getSensitive1, Entity::getSensitive2)
+							.doesNotContain(tuple("sensitive1", "sensitive2"), tuple("sensitive3", "sensitive4"));
+
+		entityEncryptor.decryptAll(entities, "test_key");
+		assertThat(entities).extracting(Entity::getSensitive1, Entity::getSensitive2)
+							.containsExactly(tuple("sensitive1", "sensitive2"), tuple("sensitive3", "sensitive4"));
+		assertThat(entities).extracting(Entity::getLazySensitive)
+							.doesNotContain("lazy1", "lazy2");
+		verify(keyProvider, times(1)).getLatestKey("test_key", "AES/GCM/NoPadding");
+		verify(keyProvider, times(1)).getKey("test_key", 1, "AES/GCM/NoPadding");
+	}
+
 	@Test
 	void shouldEncryptAndDecryptLazyField() {
 		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
@@ -244,6 +371,267 @@ class StringEntityEncryptorTest {
 		assertThat(decryptedLazySensitiveSet).containsExactly("sensitive");
 	}
 
+	@Test
+	void shouldEncryptLazyListFieldAgain_whenOnlySomeElementsAccessed() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		List<String> originalList = new ArrayList<>(List.of("sensitive1", "sensitive2", "sensitive3"));
+		Entity entity = Entity.builder()
+							  .lazySensitiveList(originalList)
+							  .build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		List<String> lazySensitiveList = entity.getDecryptedLazySensitiveList();
+		String first = lazySensitiveList.get(0);
+		lazySensitiveList.add("sensitive4");
+		entityEncryptor.encryptObject(entity, "test_key");
+
+		assertThat(first).isEqualTo("sensitive1");
+		assertThat(entity.getLazySensitiveList()).isSameAs(originalList)
+												 .hasSize(4)
+												 .doesNotContain("sensitive1", "sensitive2", "sensitive3", "sensitive4");
+		assertThat(entity.getDecryptedLazySensitiveList()).containsExactly("sensitive1", "sensitive2", "sensitive3", "sensitive4");
+	}
+
+	@Test
+	void shouldDecryptLazyListInPlace_whenEntityManaged() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		List<String> originalList = new ArrayList<>(List.of("sensitive1", "sensitive2"));
+		Entity entity = Entity.builder()
+							  .lazySensitiveList(originalList)
+							  .build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		StaticDecryptor.setManagedEntities(managed -> managed == entity);
+		try {
+			List<String> decryptedLazySensitiveList = entity.getDecryptedLazySensitiveList();
+
+			assertThat(decryptedLazySensitiveList).isSameAs(originalList)
+												  .containsExactly("sensitive1", "sensitive2");
+		} finally {
+			StaticDecryptor.setManagedEntities(managed -> false);
+		}
+	}
+
+	@Test
+	void shouldEncryptOnlyAddedElements_whenLazyListChangedInPlaceWithoutAccess() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		Entity entity = Entity.builder()
+							  .lazySensitiveList(new ArrayList<>(List.of("sensitive1", "sensitive2")))
+							  .build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		List<String> ciphertexts = List.copyOf(entity.getLazySensitiveList());
+		entity.getLazySensitiveList().add("sensitive3");
+		entityEncryptor.encryptObject(entity, "test_key");
+
+		assertThat(entity.getLazySensitiveList()).hasSize(3)
+												 .startsWith(ciphertexts.toArray(new String[0]))
+												 .doesNotContain("sensitive3");
+		assertThat(entity.getDecryptedLazySensitiveList()).containsExactly("sensitive1", "sensitive2", "sensitive3");
+	}
+
+	@Test
+	void shouldKeepAddedElementsAsTheyAre_whenLazyListChangedInPlaceAndThenAccessed() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		Entity entity = Entity.builder()
+							  .lazySensitiveList(new ArrayList<>(List.of("sensitive1")))
+							  .build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		entity.getLazySensitiveList().add("sensitive2");
+
+		assertThat(entity.getDecryptedLazySensitiveList()).containsExactly("sensitive1", "sensitive2");
+	}
+
+	@Test
+	void shouldDecryptLazyFieldOnce_whenAccessedTwice() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		Entity entity = Entity.builder()
+			.lazySensitive("sensitive")
+			.build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		entity.getDecryptedLazySensitive();
+		String decryptedLazySensitive = entity.getDecryptedLazySensitive();
+
+		assertThat(decryptedLazySensitive).isEqualTo("sensitive");
+		verify(keyProvider, times(1)).getKey("test_key", 1, "AES/GCM/NoPadding");
+	}
+
+	@Test
+	void shouldNotEncryptLazyFieldAgain_whenNotAccessedSinceDecryption() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		Entity entity = Entity.builder()
+			.sensitive1("sensitive1")
+			.lazySensitive("sensitive")
+			.build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		String encryptedLazySensitive = entity.getLazySensitive();
+		entityEncryptor.decryptObject(entity, "test_key");
+		entityEncryptor.encryptObject(entity, "test_key");
+
+		assertThat(entity.getLazySensitive()).isSameAs(encryptedLazySensitive);
+		assertThat(entity.getDecryptedLazySensitive()).isEqualTo("sensitive");
+	}
+
+	@Test
+	void shouldEncryptLazyFieldAgain_whenDecryptedBeforeSave() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		Entity entity = Entity.builder()
+			.lazySensitive("sensitive")
+			.build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		entity.getDecryptedLazySensitive();
+		entityEncryptor.encryptObject(entity, "test_key");
+
+		assertThat(entity.getLazySensitive()).doesNotContain("sensitive");
+		assertThat(entity.getDecryptedLazySensitive()).isEqualTo("sensitive");
+	}
+
+	@Test
+	void shouldDecryptLazyField_whenKeyNameResolvedForEntity() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		Entity entity = Entity.builder()
+			.lazySensitive("sensitive")
+			.build();
+		when(keyNameResolver.resolveEncryptionKeyName(entity)).thenReturn("test_key");
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		String decryptedLazySensitive = entity.getDecryptedLazySensitiveWithResolvedKey();
+
+		assertThat(decryptedLazySensitive).isEqualTo("sensitive");
+	}
+
+	@Test
+	void shouldReuseCiphertexts_whenPlaintextsUnchangedSinceDecryption() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		EntityEncryptor<String> trackingEncryptor = trackingEntityEncryptor();
+		Entity entity = Entity.builder()
+							  .sensitive1("sensitive1")
+							  .sensitiveList(new ArrayList<>(List.of("sensitive2", "sensitive3")))
+							  .build();
+
+		trackingEncryptor.encryptObject(entity, "test_key");
+		String encryptedSensitive1 = entity.getSensitive1();
+		List<String> encryptedSensitiveList = List.copyOf(entity.getSensitiveList());
+		trackingEncryptor.decryptObject(entity, "test_key");
+		trackingEncryptor.encryptObject(entity, "test_key");
+
+		assertThat(entity.getSensitive1()).isEqualTo(encryptedSensitive1);
+		assertThat(entity.getSensitiveList()).isEqualTo(encryptedSensitiveList);
+	}
+
+	@Test
+	void shouldEncryptOnlyChangedFields_whenSomePlaintextsChangedSinceDecryption() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		EntityEncryptor<String> trackingEncryptor = trackingEntityEncryptor();
+		Entity entity = Entity.builder()
+							  .sensitive1("sensitive1")
+							  .sensitiveList(new ArrayList<>(List.of("sensitive2", "sensitive3")))
+							  .build();
+
+		trackingEncryptor.encryptObject(entity, "test_key");
+		String encryptedSensitive1 = entity.getSensitive1();
+		List<String> encryptedSensitiveList = List.copyOf(entity.getSensitiveList());
+		trackingEncryptor.decryptObject(entity, "test_key");
+		entity.getSensitiveList().set(1, "changed");
+		trackingEncryptor.encryptObject(entity, "test_key");
+		List<String> reencryptedSensitiveList = List.copyOf(entity.getSensitiveList());
+		trackingEncryptor.decryptObject(entity, "test_key");
+
+		assertThat(reencryptedSensitiveList).doesNotContainAnyElementsOf(encryptedSensitiveList);
+		assertThat(entity.getSensitiveList()).containsExactly("sensitive2", "changed");
+		assertThat(entity.getSensitive1()).isEqualTo("sensitive1");
+		trackingEncryptor.encryptObject(entity, "test_key");
+		assertThat(entity.getSensitive1()).isEqualTo(encryptedSensitive1);
+	}
+
+	@Test
+	void shouldEncryptAgain_whenKeyRotatedSinceDecryption() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		EncryptionKey rotatedKey = EncryptionKey.of("test_key", generateAesSecretKey(), 2);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey, rotatedKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		EntityEncryptor<String> trackingEncryptor = trackingEntityEncryptor();
+		Entity entity = Entity.builder()
+							  .sensitive1("sensitive1")
+							  .build();
+
+		trackingEncryptor.encryptObject(entity, "test_key");
+		String encryptedSensitive1 = entity.getSensitive1();
+		trackingEncryptor.decryptObject(entity, "test_key");
+		trackingEncryptor.encryptObject(entity, "test_key");
+
+		assertThat(entity.getSensitive1()).isNotEqualTo(encryptedSensitive1)
+										  .doesNotContain("sensitive1");
+	}
+
+	@Test
+	void shouldFindStaleEntitiesWhileDecrypting_withoutAskingPredicate() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		EncryptionKey rotatedKey = EncryptionKey.of("test_key", generateAesSecretKey(), 2);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey, rotatedKey);
+		when(keyProvider.getKey("test_key", 1, "AES/GCM/NoPadding")).thenReturn(testKey);
+		when(keyProvider.getKey("test_key", 2, "AES/GCM/NoPadding")).thenReturn(rotatedKey);
+		StaleEncryptionPredicate predicate = entity -> {
+			throw new IllegalStateException("Values should be checked while decrypting");
+		};
+		Entity staleEntity = Entity.builder()
+								   .sensitive1("stale")
+								   .embeddedEntity(EmbeddedEntity.builder().sensitive("staleEmbedded").build())
+								   .build();
+		Entity freshEntity = Entity.builder()
+								   .sensitive1("fresh")
+								   .sensitiveList(new ArrayList<>(List.of("fresh1", "fresh2")))
+								   .build();
+
+		entityEncryptor.encryptObject(staleEntity, "test_key");
+		entityEncryptor.encryptObject(freshEntity, "test_key");
+		List<Object> stale = entityEncryptor.decryptAllAndFindStale(List.of(staleEntity, freshEntity), "test_key", predicate);
+
+		assertThat(stale).containsExactly(staleEntity);
+		assertThat(staleEntity.getEmbeddedEntity().getSensitive()).isEqualTo("staleEmbedded");
+		assertThat(freshEntity.getSensitiveList()).containsExactly("fresh1", "fresh2");
+	}
+
+	@Test
+	void shouldReportStale_whenLazyFieldLeftEncryptedWithOlderKey() {
+		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
+		EncryptionKey rotatedKey = EncryptionKey.of("test_key", generateAesSecretKey(), 2);
+		when(keyProvider.getLatestKey("test_key", "AES/GCM/NoPadding")).thenReturn(testKey, rotatedKey);
+		Entity entity = Entity.builder()
+							  .lazySensitive("sensitive")
+							  .build();
+
+		entityEncryptor.encryptObject(entity, "test_key");
+		boolean stale = entityEncryptor.decryptObjectAndCheckStale(entity, "test_key", object -> false);
+
+		assertThat(stale).isTrue();
+		assertThat(entity.getLazySensitive()).isNotEqualTo("sensitive");
+	}
+
 	@Test
 	void shouldThrowEncryptionException_whenFieldNameDoesNotMatchToAnyFields() {
 		EncryptionKey testKey = EncryptionKey.of("test_key", generateAesSecretKey(), 1);
@@ -272,6 +660,11 @@ class StringEntityEncryptorTest {
 		assertThat(entity.getSearchableSensitiveBlindId()).isNotBlank();
 	}
 
+	private EntityEncryptor<String> trackingEntityEncryptor() {
+		return new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, new BlindIdConverter<>(stringEncryptor, keyNameResolver, "HmacSHA256"),
+											String.class, Parallelism.serial(), DecryptionCache.disabled(), true);
+	}
+
 	private SecretKey generateAesSecretKey() {
 		SecureRandom secureRandom = new SecureRandom();
 		byte[] key = new byte[16];
@@ -292,6 +685,8 @@ class StringEntityEncryptorTest {
 		@Encrypt
 		Set<String> sensitiveSet;
 		@Encrypt
+		String[] sensitiveArray;
+		@Encrypt
 		EmbeddedEntity embeddedEntity;
 		@Encrypt
 		List<EmbeddedEntity> embeddedEntityList;
@@ -310,6 +705,11 @@ class StringEntityEncryptorTest {
 			return lazySensitive;
 		}
 
+		String getDecryptedLazySensitiveWithResolvedKey() {
+			StaticDecryptor.decryptField(this, "lazySensitive");
+			return lazySensitive;
+		}
+
 		String getDecryptedLazySensitiveWrongFieldName() {
 			StaticDecryptor.decryptField(this, "wrongName", "test_key");
 			return lazySensitive;
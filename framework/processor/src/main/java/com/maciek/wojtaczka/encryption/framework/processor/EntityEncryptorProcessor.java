@@ -0,0 +1,501 @@
+package com.maciek.wojtaczka.encryption.framework.processor;
+
+import com.maciek.wojtaczka.encryption.framework.base.EncryptionContext;
+import com.maciek.wojtaczka.encryption.framework.base.GeneratedEntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.LazyField;
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Generates a {@link GeneratedEntityEncryptor} with direct field reads and writes for each class with {@link Encrypt} fields.
+ * Values are handed to the context with setters, so the values of many entities are encrypted in batches.
+ * Classes which cannot be accessed that way, e.g. with private or final encrypted fields, are skipped with a warning
+ * and keep being handled by the reflective encryptor. Classes skipped by design, with lazy or cacheable fields, get a note.
+ * Classes with lazy fields get accessors decrypting them on the first read instead, see {@link LazyField}.
+ */
+public class EntityEncryptorProcessor extends AbstractProcessor {
+
+	private static final String STRING = "java.lang.String";
+	private static final String BYTE_ARRAY = "byte[]";
+	private static final List<String> VALUE_TYPES = List.of(STRING, BYTE_ARRAY);
+	private static final String BLIND_ID = "BlindId";
+	private static final String LAZY_FIELDS_SUFFIX = "_LazyFields";
+	private static final Set<String> FIELD_REWRITING_ANNOTATIONS = Set.of("lombok.Value", "lombok.experimental.FieldDefaults");
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Set.of(Encrypt.class.getCanonicalName());
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Map<TypeElement, List<VariableElement>> fieldsByType = new LinkedHashMap<>();
+		for (VariableElement field : ElementFilter.fieldsIn(roundEnv.getElementsAnnotatedWith(Encrypt.class))) {
+			fieldsByType.computeIfAbsent((TypeElement) field.getEnclosingElement(), type -> new ArrayList<>())
+						.add(field);
+		}
+		fieldsByType.forEach(this::generate);
+		return false;
+	}
+
+	private void generate(TypeElement type, List<VariableElement> fields) {
+		generateLazyAccessors(type, fields);
+		List<EncryptedField> encryptedFields = new ArrayList<>();
+		for (VariableElement field : fields) {
+			Optional<String> problem = checkAccessible(field);
+			if (problem.isPresent()) {
+				skip(type, problem.get());
+				return;
+			}
+			EncryptedField encryptedField = classify(type, field);
+			if (encryptedField.getKind() == Kind.UNSUPPORTED) {
+				skip(type, "type of field " + field.getSimpleName() + " is not supported");
+				return;
+			}
+			if (encryptedField.isCacheable()) {
+				note(type, "field " + field.getSimpleName() + " is cacheable, whose decryption cache is used by the reflective encryptor");
+				return;
+			}
+			if (encryptedField.isLazy()) {
+				note(type, "field " + field.getSimpleName() + " is lazy, whose decryption state is tracked by the reflective encryptor");
+				return;
+			}
+			if (encryptedField.isSearchable() && encryptedField.getBlindIdType() == null) {
+				skip(type, "blind id field " + field.getSimpleName() + BLIND_ID + " not found or not accessible");
+				return;
+			}
+			encryptedFields.add(encryptedField);
+		}
+		Optional<String> problem = checkAccessible(type);
+		if (problem.isPresent()) {
+			skip(type, problem.get());
+			return;
+		}
+
+		String packageName = packageNameOf(type);
+		String generatedName = generatedNameOf(type, GeneratedEntityEncryptor.CLASS_NAME_SUFFIX);
+		String source = new SourceWriter(packageName, generatedName, entityNameOf(type), encryptedFields).write();
+		writeSource(type, packageName, generatedName, source);
+	}
+
+	/**
+	 * Lazy fields are read through the generated accessors, which need no direct access to the fields.
+	 */
+	private void generateLazyAccessors(TypeElement type, List<VariableElement> fields) {
+		List<VariableElement> lazyFields = new ArrayList<>();
+		for (VariableElement field : fields) {
+			if (field.getAnnotation(Encrypt.class).lazy()) {
+				lazyFields.add(field);
+			}
+		}
+		if (lazyFields.isEmpty()) {
+			return;
+		}
+		Optional<String> problem = checkAccessible(type);
+		if (problem.isPresent()) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+					"Lazy field accessors not generated for " + type.getQualifiedName() + ", " + problem.get() + ".", type);
+			return;
+		}
+		String packageName = packageNameOf(type);
+		String generatedName = generatedNameOf(type, LAZY_FIELDS_SUFFIX);
+		String source = new LazyAccessorsWriter(packageName, generatedName, entityNameOf(type), lazyFields).write();
+		writeSource(type, packageName, generatedName, source);
+	}
+
+	private String packageNameOf(TypeElement type) {
+		return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+	}
+
+	private String generatedNameOf(TypeElement type, String suffix) {
+		String packageName = packageNameOf(type);
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String simpleBinaryName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+		return simpleBinaryName.replace('$', '_') + suffix;
+	}
+
+	private String entityNameOf(TypeElement type) {
+		return processingEnv.getTypeUtils().erasure(type.asType()).toString();
+	}
+
+	private void writeSource(TypeElement type, String packageName, String generatedName, String source) {
+		String qualifiedGeneratedName = packageName.isEmpty() ? generatedName : packageName + "." + generatedName;
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedGeneratedName, type).openWriter()) {
+			writer.write(source);
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + qualifiedGeneratedName + ": " + e, type);
+		}
+	}
+
+	private void skip(TypeElement type, String reason) {
+		report(Diagnostic.Kind.WARNING, type, reason);
+	}
+
+	private void note(TypeElement type, String reason) {
+		report(Diagnostic.Kind.NOTE, type, reason);
+	}
+
+	private void report(Diagnostic.Kind kind, TypeElement type, String reason) {
+		processingEnv.getMessager().printMessage(kind,
+				"Encryptor not generated for " + type.getQualifiedName() + ", " + reason + ". Reflective encryptor will be used.", type);
+	}
+
+	private Optional<String> checkAccessible(TypeElement type) {
+		if (type.getKind() != ElementKind.CLASS) {
+			return Optional.of("it is not a class");
+		}
+		for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+			String annotationName = annotation.getAnnotationType().toString();
+			if (FIELD_REWRITING_ANNOTATIONS.contains(annotationName)) {
+				return Optional.of("its fields may be made private by " + annotationName);
+			}
+		}
+		Element element = type;
+		while (element instanceof TypeElement) {
+			TypeElement current = (TypeElement) element;
+			if (current.getModifiers().contains(Modifier.PRIVATE)) {
+				return Optional.of("it is not accessible from its package");
+			}
+			if (current.getNestingKind() == NestingKind.MEMBER && !current.getModifiers().contains(Modifier.STATIC)) {
+				return Optional.of("it is an inner class");
+			}
+			if (current.getNestingKind() == NestingKind.LOCAL || current.getNestingKind() == NestingKind.ANONYMOUS) {
+				return Optional.of("it is a local class");
+			}
+			element = current.getEnclosingElement();
+		}
+		return Optional.empty();
+	}
+
+	private Optional<String> checkAccessible(VariableElement field) {
+		Set<Modifier> modifiers = field.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) {
+			return Optional.of("field " + field.getSimpleName() + " is private, final or static");
+		}
+		return Optional.empty();
+	}
+
+	private EncryptedField classify(TypeElement type, VariableElement field) {
+		Encrypt encrypt = field.getAnnotation(Encrypt.class);
+		String name = field.getSimpleName().toString();
+		TypeMirror fieldType = field.asType();
+
+		String valueType = valueTypeOf(fieldType);
+		if (valueType != null) {
+			String blindIdType = encrypt.searchable() ? findBlindIdType(type, name + BLIND_ID) : null;
+			return new EncryptedField(name, Kind.VALUE, valueType, encrypt, blindIdType);
+		}
+		if (fieldType.getKind() == TypeKind.ARRAY) {
+			TypeMirror componentType = ((ArrayType) fieldType).getComponentType();
+			String elementType = valueTypeOf(componentType);
+			if (elementType != null) {
+				return new EncryptedField(name, Kind.ARRAY_OF_VALUES, elementType, encrypt, null);
+			}
+			//arrays of primitives or of other arrays hold no encrypted fields
+			Kind kind = componentType.getKind() != TypeKind.DECLARED || isJdkType(componentType) ? Kind.IGNORED : Kind.ARRAY_OF_EMBEDDED;
+			return new EncryptedField(name, kind, null, encrypt, null);
+		}
+		if (fieldType.getKind() != TypeKind.DECLARED) {
+			return new EncryptedField(name, fieldType.getKind().isPrimitive() ? Kind.IGNORED : Kind.UNSUPPORTED, null, encrypt, null);
+		}
+		DeclaredType declaredType = (DeclaredType) fieldType;
+		if (isIterable(declaredType)) {
+			List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+			if (typeArguments.size() != 1) {
+				return new EncryptedField(name, Kind.UNSUPPORTED, null, encrypt, null);
+			}
+			String elementType = valueTypeOf(typeArguments.get(0));
+			if (elementType != null) {
+				return new EncryptedField(name, Kind.ITERABLE_OF_VALUES, elementType, encrypt, null);
+			}
+			Kind kind = isJdkType(typeArguments.get(0)) ? Kind.IGNORED : Kind.ITERABLE_OF_EMBEDDED;
+			return new EncryptedField(name, kind, null, encrypt, null);
+		}
+		Kind kind = isJdkType(declaredType) ? Kind.IGNORED : Kind.EMBEDDED;
+		return new EncryptedField(name, kind, null, encrypt, null);
+	}
+
+	//JDK types have no encrypted fields
+	private boolean isJdkType(TypeMirror type) {
+		return type.getKind() == TypeKind.DECLARED
+				&& ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString().startsWith("java.");
+	}
+
+	private String valueTypeOf(TypeMirror type) {
+		if (type.getKind() == TypeKind.ARRAY && ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE) {
+			return BYTE_ARRAY;
+		}
+		if (type.getKind() == TypeKind.DECLARED && type.toString().equals(STRING)) {
+			return STRING;
+		}
+		return null;
+	}
+
+	private boolean isIterable(DeclaredType type) {
+		TypeMirror iterable = processingEnv.getTypeUtils().erasure(
+				processingEnv.getElementUtils().getTypeElement(Iterable.class.getCanonicalName()).asType());
+		return processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type), iterable);
+	}
+
+	private String findBlindIdType(TypeElement type, String blindIdFieldName) {
+		for (VariableElement candidate : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			if (candidate.getSimpleName().contentEquals(blindIdFieldName)) {
+				if (checkAccessible(candidate).isPresent()) {
+					return null;
+				}
+				TypeMirror blindIdType = candidate.asType();
+				if (blindIdType.getKind().isPrimitive()) {
+					return processingEnv.getTypeUtils().boxedClass((PrimitiveType) blindIdType).getQualifiedName().toString();
+				}
+				return processingEnv.getTypeUtils().erasure(blindIdType).toString();
+			}
+		}
+		return null;
+	}
+
+	enum Kind {
+		VALUE, ITERABLE_OF_VALUES, ARRAY_OF_VALUES, EMBEDDED, ITERABLE_OF_EMBEDDED, ARRAY_OF_EMBEDDED, IGNORED, UNSUPPORTED
+	}
+
+	static final class EncryptedField {
+
+		private final String name;
+		private final Kind kind;
+		private final String valueType;
+		private final String algorithm;
+		private final boolean lazy;
+		private final boolean cacheable;
+		private final boolean searchable;
+		private final String blindIdType;
+
+		EncryptedField(String name, Kind kind, String valueType, Encrypt encrypt, String blindIdType) {
+			this.name = name;
+			this.kind = kind;
+			this.valueType = valueType;
+			this.algorithm = encrypt.algorithm();
+			this.lazy = encrypt.lazy();
+			this.cacheable = encrypt.cacheable();
+			this.searchable = encrypt.searchable() && kind == Kind.VALUE;
+			this.blindIdType = blindIdType;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		Kind getKind() {
+			return kind;
+		}
+
+		String getValueType() {
+			return valueType;
+		}
+
+		String getAlgorithm() {
+			return algorithm;
+		}
+
+		boolean isLazy() {
+			return lazy;
+		}
+
+		boolean isCacheable() {
+			return cacheable;
+		}
+
+		boolean isSearchable() {
+			return searchable;
+		}
+
+		String getBlindIdType() {
+			return blindIdType;
+		}
+	}
+
+	private static final class SourceWriter {
+
+		private final String packageName;
+		private final String generatedName;
+		private final String entityName;
+		private final List<EncryptedField> fields;
+		private final StringBuilder source = new StringBuilder();
+
+		private SourceWriter(String packageName, String generatedName, String entityName, List<EncryptedField> fields) {
+			this.packageName = packageName;
+			this.generatedName = generatedName;
+			this.entityName = entityName;
+			this.fields = fields;
+		}
+
+		String write() {
+			if (!packageName.isEmpty()) {
+				line(0, "package " + packageName + ";");
+				line(0, "");
+			}
+			line(0, "@javax.annotation.processing.Generated(\"" + EntityEncryptorProcessor.class.getName() + "\")");
+			line(0, "public final class " + generatedName + " implements " + GeneratedEntityEncryptor.class.getName() + " {");
+			line(0, "");
+			writeMethod(true);
+			line(0, "");
+			writeMethod(false);
+			line(0, "}");
+			return source.toString();
+		}
+
+		private void writeMethod(boolean encrypt) {
+			String operation = encrypt ? "encrypt" : "decrypt";
+			line(1, "@Override");
+			line(1, "public <F> void " + operation + "(Object object, String keyName, "
+					+ EncryptionContext.class.getName() + "<F> context) {");
+			line(2, entityName + " entity = (" + entityName + ") object;");
+			for (String valueType : VALUE_TYPES) {
+				List<EncryptedField> valueFields = fieldsOfValueType(valueType);
+				if (valueFields.isEmpty()) {
+					continue;
+				}
+				line(2, "if (context.handles(" + valueType + ".class)) {");
+				line(3, EncryptionContext.class.getName() + "<" + valueType + "> values = context.as(" + valueType + ".class);");
+				for (EncryptedField field : valueFields) {
+					writeValueField(field, operation, encrypt);
+				}
+				line(2, "}");
+			}
+			for (EncryptedField field : fields) {
+				String entityField = "entity." + field.getName();
+				if (field.getKind() == Kind.EMBEDDED) {
+					line(2, "if (" + entityField + " != null) {");
+					line(3, "context." + operation + "Embedded(" + entityField + ", keyName);");
+					line(2, "}");
+				} else if (field.getKind() == Kind.ITERABLE_OF_EMBEDDED || field.getKind() == Kind.ARRAY_OF_EMBEDDED) {
+					line(2, "if (" + entityField + " != null) {");
+					line(3, "for (Object element : " + entityField + ") {");
+					line(4, "if (element != null) {");
+					line(5, "context." + operation + "Embedded(element, keyName);");
+					line(4, "}");
+					line(3, "}");
+					line(2, "}");
+				}
+			}
+			line(1, "}");
+		}
+
+		private List<EncryptedField> fieldsOfValueType(String valueType) {
+			List<EncryptedField> valueFields = new ArrayList<>();
+			for (EncryptedField field : fields) {
+				boolean holdsValues = field.getKind() == Kind.VALUE || field.getKind() == Kind.ITERABLE_OF_VALUES
+						|| field.getKind() == Kind.ARRAY_OF_VALUES;
+				if (holdsValues && valueType.equals(field.getValueType())) {
+					valueFields.add(field);
+				}
+			}
+			return valueFields;
+		}
+
+		private void writeValueField(EncryptedField field, String operation, boolean encrypt) {
+			String entityField = "entity." + field.getName();
+			String algorithm = "\"" + field.getAlgorithm().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+			line(3, "if (" + entityField + " != null) {");
+			if (field.getKind() == Kind.VALUE) {
+				if (encrypt && field.isSearchable()) {
+					line(4, entityField + BLIND_ID + " = (" + field.getBlindIdType() + ") values.blindId(" + entityField + ");");
+				}
+				line(4, "values." + operation + "(" + entityField + ", keyName, " + algorithm + ", value -> " + entityField + " = value);");
+			} else {
+				line(4, "values." + operation + "All(" + entityField + ", keyName, " + algorithm + ", value -> " + entityField + " = value);");
+			}
+			line(3, "}");
+		}
+
+		private void line(int indent, String text) {
+			source.append("\t".repeat(indent)).append(text).append('\n');
+		}
+	}
+
+	private static final class LazyAccessorsWriter {
+
+		private final String packageName;
+		private final String generatedName;
+		private final String entityName;
+		private final List<VariableElement> fields;
+		private final StringBuilder source = new StringBuilder();
+
+		private LazyAccessorsWriter(String packageName, String generatedName, String entityName, List<VariableElement> fields) {
+			this.packageName = packageName;
+			this.generatedName = generatedName;
+			this.entityName = entityName;
+			this.fields = fields;
+		}
+
+		String write() {
+			if (!packageName.isEmpty()) {
+				line(0, "package " + packageName + ";");
+				line(0, "");
+			}
+			line(0, "@javax.annotation.processing.Generated(\"" + EntityEncryptorProcessor.class.getName() + "\")");
+			line(0, "public final class " + generatedName + " {");
+			line(0, "");
+			for (VariableElement field : fields) {
+				line(1, "private static final " + lazyFieldType(field) + " " + constantName(field) + " = "
+						+ LazyField.class.getName() + ".of(" + entityName + ".class, \"" + field.getSimpleName() + "\");");
+			}
+			line(0, "");
+			line(1, "private " + generatedName + "() {");
+			line(1, "}");
+			for (VariableElement field : fields) {
+				String fieldType = field.asType().toString();
+				line(0, "");
+				line(1, "public static " + fieldType + " " + field.getSimpleName() + "(" + entityName + " entity) {");
+				line(2, "return " + constantName(field) + ".get(entity);");
+				line(1, "}");
+				line(0, "");
+				line(1, "public static " + fieldType + " " + field.getSimpleName() + "(" + entityName + " entity, String keyName) {");
+				line(2, "return " + constantName(field) + ".get(entity, keyName);");
+				line(1, "}");
+			}
+			line(0, "}");
+			return source.toString();
+		}
+
+		private String lazyFieldType(VariableElement field) {
+			return LazyField.class.getName() + "<" + entityName + ", " + field.asType() + ">";
+		}
+
+		private static String constantName(VariableElement field) {
+			return field.getSimpleName().toString().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+		}
+
+		private void line(int indent, String text) {
+			source.append("\t".repeat(indent)).append(text).append('\n');
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package com.maciek.wojtaczka.encryption.framework.processor;
+
+import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import com.maciek.wojtaczka.encryption.framework.base.BlindIdConverter;
+import com.maciek.wojtaczka.encryption.framework.base.EntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.InMemoryStaticKeyProvider;
+import com.maciek.wojtaczka.encryption.framework.base.PreferGeneratedEntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.StaticKeyNameResolver;
+import com.maciek.wojtaczka.encryption.framework.base.StringEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityEncryptorProcessorTest {
+
+	private static final String ENTITY = "package sample;\n"
+			+ "import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;\n"
+			+ "import java.util.List;\n"
+			+ "public class Entity {\n"
+			+ "	@Encrypt(searchable = true) String surname;\n"
+			+ "	String surnameBlindId;\n"
+			+ "	@Encrypt List<String> nicknames;\n"
+			+ "	@Encrypt String[] aliases;\n"
+			+ "	@Encrypt Embedded embedded;\n"
+			+ "	@Encrypt List<Embedded> embeddedList;\n"
+			+ "	String notEncrypted;\n"
+			+ "	public static class Embedded {\n"
+			+ "		@Encrypt String secret;\n"
+			+ "	}\n"
+			+ "}\n";
+
+	private static final String PRIVATE_FIELD_ENTITY = "package sample;\n"
+			+ "import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;\n"
+			+ "public class PrivateEntity {\n"
+			+ "	@Encrypt private String surname;\n"
+			+ "}\n";
+
+	private static final String LAZY_ENTITY = "package sample;\n"
+			+ "import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;\n"
+			+ "import java.util.List;\n"
+			+ "public class LazyEntity {\n"
+			+ "	@Encrypt(lazy = true) private String secret;\n"
+			+ "	@Encrypt(lazy = true) private List<String> secrets;\n"
+			+ "	public String getSecret() {\n"
+			+ "		return LazyEntity_LazyFields.secret(this);\n"
+			+ "	}\n"
+			+ "	public List<String> getSecrets() {\n"
+			+ "		return LazyEntity_LazyFields.secrets(this);\n"
+			+ "	}\n"
+			+ "}\n";
+
+	@TempDir
+	Path workDir;
+
+	private final EncryptionKeyProvider keyProvider = new InMemoryStaticKeyProvider();
+
+	@Test
+	void shouldGenerateEncryptor_whenEncryptedFieldsAccessibleFromPackage() throws Exception {
+		ClassLoader classLoader = compile("Entity", ENTITY, new DiagnosticCollector<>());
+
+		assertThat(classLoader.loadClass("sample.Entity_EntityEncryptor")).isNotNull();
+		assertThat(classLoader.loadClass("sample.Entity_Embedded_EntityEncryptor")).isNotNull();
+	}
+
+	@Test
+	void shouldEncryptAndDecryptThroughGeneratedEncryptor() throws Exception {
+		ClassLoader classLoader = compile("Entity", ENTITY, new DiagnosticCollector<>());
+		Object entity = classLoader.loadClass("sample.Entity").getDeclaredConstructor().newInstance();
+		Object embedded = classLoader.loadClass("sample.Entity$Embedded").getDeclaredConstructor().newInstance();
+		set(entity, "surname", "Doe");
+		set(entity, "nicknames", List.of("Johnny"));
+		set(entity, "aliases", new String[] { "JD" });
+		set(entity, "embedded", embedded);
+		set(entity, "notEncrypted", "plain");
+		set(embedded, "secret", "secret");
+		EntityEncryptor<String> entityEncryptor = createEntityEncryptor();
+
+		entityEncryptor.encryptObject(entity);
+		Object encryptedSurname = get(entity, "surname");
+		Object encryptedNicknames = List.copyOf((List<?>) get(entity, "nicknames"));
+		String encryptedAlias = ((String[]) get(entity, "aliases"))[0];
+		Object encryptedSecret = get(embedded, "secret");
+		Object blindId = get(entity, "surnameBlindId");
+		entityEncryptor.decryptObject(entity);
+
+		assertThat(encryptedSurname).isNotEqualTo("Doe");
+		assertThat(encryptedNicknames).isNotEqualTo(List.of("Johnny"));
+		assertThat(encryptedAlias).isNotEqualTo("JD");
+		assertThat(encryptedSecret).isNotEqualTo("secret");
+		assertThat(blindId).isNotNull();
+		assertThat(get(entity, "surname")).isEqualTo("Doe");
+		assertThat(get(entity, "nicknames")).isEqualTo(List.of("Johnny"));
+		assertThat((String[]) get(entity, "aliases")).containsExactly("JD");
+		assertThat(get(embedded, "secret")).isEqualTo("secret");
+		assertThat(get(entity, "notEncrypted")).isEqualTo("plain");
+	}
+
+	@Test
+	void shouldEncryptSharedEmbeddedInstanceOnce() throws Exception {
+		ClassLoader classLoader = compile("Entity", ENTITY, new DiagnosticCollector<>());
+		Object entity = classLoader.loadClass("sample.Entity").getDeclaredConstructor().newInstance();
+		Object embedded = classLoader.loadClass("sample.Entity$Embedded").getDeclaredConstructor().newInstance();
+		set(entity, "embedded", embedded);
+		set(entity, "embeddedList", List.of(embedded));
+		set(embedded, "secret", "secret");
+		EntityEncryptor<String> entityEncryptor = createEntityEncryptor();
+
+		entityEncryptor.encryptObject(entity);
+		entityEncryptor.decryptObject(entity);
+
+		assertThat(get(embedded, "secret")).isEqualTo("secret");
+	}
+
+	@Test
+	void shouldEncryptValuesOfAllEntitiesInOneBatch_whenEncryptedTogether() throws Exception {
+		ClassLoader classLoader = compile("Entity", ENTITY, new DiagnosticCollector<>());
+		Class<?> entityClass = classLoader.loadClass("sample.Entity");
+		List<Object> entities = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Object entity = entityClass.getDeclaredConstructor().newInstance();
+			set(entity, "surname", "Doe" + i);
+			set(entity, "nicknames", new ArrayList<>(List.of("Johnny" + i)));
+			entities.add(entity);
+		}
+		List<List<String>> encryptedBatches = new ArrayList<>();
+		List<List<String>> decryptedBatches = new ArrayList<>();
+		StringEncryptor stringEncryptor = new StringEncryptor(encryptionFacade(), blindIndexHasher()) {
+			@Override
+			public List<String> encryptAll(List<String> contents, String keyName, String algorithm) {
+				encryptedBatches.add(contents);
+				return super.encryptAll(contents, keyName, algorithm);
+			}
+
+			@Override
+			public List<String> decryptAll(List<String> encryptedContents, String keyName, String algorithm) {
+				decryptedBatches.add(encryptedContents);
+				return super.decryptAll(encryptedContents, keyName, algorithm);
+			}
+		};
+		EntityEncryptor<String> entityEncryptor = createEntityEncryptor(stringEncryptor);
+
+		entityEncryptor.encryptAll(entities);
+		entityEncryptor.decryptAll(entities);
+
+		assertThat(encryptedBatches).hasSize(1);
+		assertThat(encryptedBatches.get(0)).containsExactly("Doe0", "Johnny0", "Doe1", "Johnny1", "Doe2", "Johnny2");
+		assertThat(decryptedBatches).hasSize(1);
+		assertThat(get(entities.get(2), "surname")).isEqualTo("Doe2");
+		assertThat(get(entities.get(2), "nicknames")).isEqualTo(List.of("Johnny2"));
+	}
+
+	@Test
+	void shouldDecryptLazyFieldsThroughGeneratedAccessors_whenGettersCalled() throws Exception {
+		ClassLoader classLoader = compile("LazyEntity", LAZY_ENTITY, new DiagnosticCollector<>());
+		Class<?> entityClass = classLoader.loadClass("sample.LazyEntity");
+		Object entity = entityClass.getDeclaredConstructor().newInstance();
+		set(entity, "secret", "secret");
+		set(entity, "secrets", new ArrayList<>(List.of("secret1", "secret2")));
+		EntityEncryptor<String> entityEncryptor = createEntityEncryptor();
+
+		entityEncryptor.encryptObject(entity);
+		entityEncryptor.decryptObject(entity);
+		Object encryptedSecret = get(entity, "secret");
+
+		assertThat(encryptedSecret).isNotEqualTo("secret");
+		assertThat(entityClass.getMethod("getSecret").invoke(entity)).isEqualTo("secret");
+		assertThat(entityClass.getMethod("getSecrets").invoke(entity)).isEqualTo(List.of("secret1", "secret2"));
+	}
+
+	@Test
+	void shouldSkipGeneration_whenEncryptedFieldIsPrivate() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+		ClassLoader classLoader = compile("PrivateEntity", PRIVATE_FIELD_ENTITY, diagnostics);
+
+		assertThat(classLoader.getResource("sample/PrivateEntity_EntityEncryptor.class")).isNull();
+		assertThat(diagnostics.getDiagnostics())
+				.filteredOn(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.WARNING)
+				.anyMatch(diagnostic -> diagnostic.getMessage(null).contains("Encryptor not generated for sample.PrivateEntity"));
+	}
+
+	private ClassLoader compile(String className, String source, DiagnosticCollector<JavaFileObject> diagnostics) throws Exception {
+		Path sourceFile = workDir.resolve("sample").resolve(className + ".java");
+		Files.createDirectories(sourceFile.getParent());
+		Files.writeString(sourceFile, source);
+		Path classes = Files.createDirectories(workDir.resolve("classes"));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+			List<String> options = List.of("-classpath", classpath(), "-d", classes.toString());
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+																 fileManager.getJavaFileObjects(sourceFile.toFile()));
+			task.setProcessors(List.of(new EntityEncryptorProcessor()));
+			assertThat(task.call()).as(diagnostics.getDiagnostics().toString()).isTrue();
+		}
+		return new URLClassLoader(new URL[] { classes.toUri().toURL() }, getClass().getClassLoader());
+	}
+
+	private String classpath() throws Exception {
+		List<String> entries = new ArrayList<>();
+		for (Class<?> type : List.of(Encrypt.class, EncryptionFacade.class)) {
+			entries.add(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+		}
+		return entries.stream().collect(Collectors.joining(File.pathSeparator));
+	}
+
+	private EncryptionFacade encryptionFacade() {
+		return new EncryptionFacade(Set.of(new AesGcmNoPaddingMechanism()), keyProvider);
+	}
+
+	private BlindIndexHasher blindIndexHasher() {
+		return new BlindIndexHasher(Set.of(new HmacSha256Mechanism()), keyProvider);
+	}
+
+	private EntityEncryptor<String> createEntityEncryptor() {
+		return createEntityEncryptor(new StringEncryptor(encryptionFacade(), blindIndexHasher()));
+	}
+
+	private EntityEncryptor<String> createEntityEncryptor(StringEncryptor stringEncryptor) {
+		StaticKeyNameResolver keyNameResolver = new StaticKeyNameResolver();
+		BlindIdConverter<String> blindIdConverter = new BlindIdConverter<>(stringEncryptor, keyNameResolver, "HmacSHA256");
+		return new PreferGeneratedEntityEncryptor<>(stringEncryptor, keyNameResolver, blindIdConverter, String.class);
+	}
+
+	private static void set(Object object, String fieldName, Object value) throws ReflectiveOperationException {
+		Field field = object.getClass().getDeclaredField(fieldName);
+		field.setAccessible(true);
+		field.set(object, value);
+	}
+
+	private static Object get(Object object, String fieldName) throws ReflectiveOperationException {
+		Field field = object.getClass().getDeclaredField(fieldName);
+		field.setAccessible(true);
+		return field.get(object);
+	}
+}
@@ -1,52 +1,153 @@
 package com.maciek.wojtaczka.encryption.framework.spring.autoconfigure;
 
 import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.CachingEncryptionKeyProvider;
 import com.maciek.wojtaczka.encryption.core.CipherMechanism;
+import com.maciek.wojtaczka.encryption.core.CounterInitialVectorGenerator;
 import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
 import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HashMechanism;
 import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import com.maciek.wojtaczka.encryption.core.InitialVectorGenerator;
+import com.maciek.wojtaczka.encryption.core.SecureRandomInitialVectorGenerator;
 import com.maciek.wojtaczka.encryption.framework.base.AsyncReencryptDecorator;
 import com.maciek.wojtaczka.encryption.framework.base.BlindIdConverter;
+import com.maciek.wojtaczka.encryption.framework.base.BlindIdEncoding;
+import com.maciek.wojtaczka.encryption.framework.base.BlindIdFormat;
+import com.maciek.wojtaczka.encryption.framework.base.ByteArrayEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.ByteArrayStaleEncryptionPredicate;
+import com.maciek.wojtaczka.encryption.framework.base.CompositeEntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.CompositeStaleEncryptionPredicate;
+import com.maciek.wojtaczka.encryption.framework.base.DecryptionCache;
 import com.maciek.wojtaczka.encryption.framework.base.EntityEncryptor;
 import com.maciek.wojtaczka.encryption.framework.base.EntityUpdater;
 import com.maciek.wojtaczka.encryption.framework.base.FieldEncryptor;
 import com.maciek.wojtaczka.encryption.framework.base.GenericEntityEncryptor;
 import com.maciek.wojtaczka.encryption.framework.base.InMemoryStaticKeyProvider;
+import com.maciek.wojtaczka.encryption.framework.base.KeyNameDictionary;
 import com.maciek.wojtaczka.encryption.framework.base.KeyNameResolver;
+import com.maciek.wojtaczka.encryption.framework.base.Parallelism;
+import com.maciek.wojtaczka.encryption.framework.base.PreferGeneratedEntityEncryptor;
 import com.maciek.wojtaczka.encryption.framework.base.StaleEncryptionPredicate;
 import com.maciek.wojtaczka.encryption.framework.base.StaticKeyNameResolver;
 import com.maciek.wojtaczka.encryption.framework.base.StringEncryptor;
 import com.maciek.wojtaczka.encryption.framework.base.StringStaleEncryptionPredicate;
 import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 @ConditionalOnClass(Encrypt.class)
 public class EncryptionConfiguration {
 
+	private static final String PARALLELISM_POOL = "encryptionParallelismPool";
 
+	/**
+	 * Handles both String fields, stored as text records, and byte[] fields, stored as binary records.
+	 * With encryption.framework.generated-encryptors.enabled=true, encryptors generated by encryption-framework-processor
+	 * are used for the entities which have them.
+	 * With encryption.framework.parallelism.enabled=true, the work on a single entity is split across a fork join pool.
+	 * With encryption.framework.decryption-cache.enabled=true, values of cacheable fields are decrypted once per ciphertext.
+	 * With encryption.framework.reuse-unchanged-ciphertexts=true, fields whose plaintext has not changed since they were
+	 * decrypted keep their ciphertext on save, as long as it has been encrypted with the latest key.
+	 */
 	@Bean
-	public EntityEncryptor<String> encryptor(FieldEncryptor<String> stringFieldEncryptor, KeyNameResolver keyNameResolver,
+	public EntityEncryptor<Object> encryptor(FieldEncryptor<String> stringFieldEncryptor, FieldEncryptor<byte[]> byteArrayFieldEncryptor,
+											 KeyNameResolver keyNameResolver, BlindIdConverter<String> blindIdConverter,
+											 BlindIdFormat blindIdFormat, EncryptionKeyProvider keyProvider, KeyNameDictionary keyNameDictionary,
 											 @Value("${encryption.framework.blindId.algorithm:HmacSHA256}") String hashingAlgorithm,
-											 EncryptionKeyProvider keyProvider, @Autowired(required = false) EntityUpdater entityUpdater) {
+											 @Value("${encryption.framework.generated-encryptors.enabled:false}") boolean preferGenerated,
+											 @Value("${encryption.framework.blindId.memo-size:0}") int blindIdMemoSize,
+											 @Value("${encryption.framework.reuse-unchanged-ciphertexts:false}") boolean reuseUnchangedCiphertexts,
+											 Parallelism parallelism, DecryptionCache decryptionCache,
+											 @Autowired(required = false) EntityUpdater entityUpdater) {
 
-		GenericEntityEncryptor<String> encryptor =
-				new GenericEntityEncryptor<>(stringFieldEncryptor, keyNameResolver, hashingAlgorithm, String.class);
+		BlindIdConverter<byte[]> byteArrayBlindIdConverter =
+				newBlindIdConverter(byteArrayFieldEncryptor, keyNameResolver, hashingAlgorithm, blindIdFormat, keyProvider, blindIdMemoSize);
+		EntityEncryptor<Object> encryptor = new CompositeEntityEncryptor(List.of(
+				entityEncryptor(stringFieldEncryptor, keyNameResolver, blindIdConverter, String.class, preferGenerated, parallelism,
+								decryptionCache, reuseUnchangedCiphertexts),
+				entityEncryptor(byteArrayFieldEncryptor, keyNameResolver, byteArrayBlindIdConverter, byte[].class, preferGenerated, parallelism,
+								decryptionCache, reuseUnchangedCiphertexts)
+		));
 		if (entityUpdater != null) {
-			StaleEncryptionPredicate predicate = new StringStaleEncryptionPredicate(keyProvider);
+			StaleEncryptionPredicate predicate = new CompositeStaleEncryptionPredicate(List.of(
+					new StringStaleEncryptionPredicate(keyProvider, keyNameDictionary),
+					new ByteArrayStaleEncryptionPredicate(keyProvider, keyNameDictionary)
+			));
 			return new AsyncReencryptDecorator<>(encryptor, predicate, entityUpdater);
 		} else {
 			return encryptor;
 		}
 	}
 
+	private static <F> EntityEncryptor<F> entityEncryptor(FieldEncryptor<F> fieldEncryptor, KeyNameResolver keyNameResolver,
+														  BlindIdConverter<F> blindIdConverter, Class<F> fieldType, boolean preferGenerated,
+														  Parallelism parallelism, DecryptionCache decryptionCache,
+														  boolean reuseUnchangedCiphertexts) {
+		if (preferGenerated) {
+			return new PreferGeneratedEntityEncryptor<>(fieldEncryptor, keyNameResolver, blindIdConverter, fieldType, parallelism,
+														decryptionCache, reuseUnchangedCiphertexts);
+		}
+		return new GenericEntityEncryptor<>(fieldEncryptor, keyNameResolver, blindIdConverter, fieldType, parallelism, decryptionCache,
+											reuseUnchangedCiphertexts);
+	}
+
+	/**
+	 * Fields of an entity graph and collection elements are split across the pool once there are at least
+	 * encryption.framework.parallelism.threshold of them.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(Parallelism.class)
+	public Parallelism parallelism(@Value("${encryption.framework.parallelism.enabled:false}") boolean enabled,
+								   @Value("${encryption.framework.parallelism.threshold:64}") int threshold,
+								   @Autowired(required = false) @Qualifier(PARALLELISM_POOL) ForkJoinPool pool) {
+		if (!enabled || pool == null) {
+			return Parallelism.serial();
+		}
+		return Parallelism.of(pool, threshold);
+	}
+
+	/**
+	 * Pool size 0 means the common pool, which is left running on shutdown, as it ignores it.
+	 */
+	@Bean(name = PARALLELISM_POOL, destroyMethod = "shutdown")
+	@ConditionalOnProperty(name = "encryption.framework.parallelism.enabled", havingValue = "true")
+	public ForkJoinPool parallelismPool(@Value("${encryption.framework.parallelism.pool-size:0}") int poolSize) {
+		return poolSize > 0 ? new ForkJoinPool(poolSize) : ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Shared by String and byte[] fields. Its hit, miss and eviction counts can be read from the bean.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(DecryptionCache.class)
+	public DecryptionCache decryptionCache(@Value("${encryption.framework.decryption-cache.enabled:false}") boolean enabled,
+										   @Value("${encryption.framework.decryption-cache.maximum-size:10000}") int maximumSize,
+										   @Value("${encryption.framework.decryption-cache.time-to-live:10m}") Duration timeToLive) {
+		if (!enabled) {
+			return DecryptionCache.disabled();
+		}
+		return DecryptionCache.of(maximumSize, timeToLive);
+	}
+
 	@Bean
 	@ConditionalOnMissingBean(KeyNameResolver.class)
 	public KeyNameResolver keyNameResolver() {
@@ -55,20 +156,56 @@ public class EncryptionConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean(name = "aesGcmNoPaddingMechanism")
-	public CipherMechanism aesGcmNoPaddingMechanism() {
-		return new AesGcmNoPaddingMechanism();
+	public CipherMechanism aesGcmNoPaddingMechanism(InitialVectorGenerator initialVectorGenerator) {
+		return new AesGcmNoPaddingMechanism(initialVectorGenerator);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(InitialVectorGenerator.class)
+	public InitialVectorGenerator initialVectorGenerator(@Value("${encryption.framework.iv.deterministic:false}") boolean deterministic) {
+		if (deterministic) {
+			return new CounterInitialVectorGenerator();
+		} else {
+			return new SecureRandomInitialVectorGenerator();
+		}
 	}
 
 	@Bean
 	@ConditionalOnMissingBean(name = "hmacSha256Mechanism")
-	public CipherMechanism hmacSha256Mechanism() {
+	public HashMechanism hmacSha256Mechanism() {
 		return new HmacSha256Mechanism();
 	}
 
 	@Bean
-	public FieldEncryptor<String> stringFieldEncryptor(EncryptionKeyProvider encryptionKeyProvider, Set<CipherMechanism> cipherMechanisms) {
+	public BlindIndexHasher blindIndexHasher(EncryptionKeyProvider encryptionKeyProvider, Set<HashMechanism> hashMechanisms) {
+		return new BlindIndexHasher(hashMechanisms, encryptionKeyProvider);
+	}
+
+	@Bean
+	public FieldEncryptor<String> stringFieldEncryptor(EncryptionKeyProvider encryptionKeyProvider, Set<CipherMechanism> cipherMechanisms,
+													   BlindIndexHasher blindIndexHasher, KeyNameDictionary keyNameDictionary) {
+		EncryptionFacade encryptionFacade = new EncryptionFacade(cipherMechanisms, encryptionKeyProvider);
+		return new StringEncryptor(encryptionFacade, blindIndexHasher, keyNameDictionary);
+	}
+
+	@Bean
+	public FieldEncryptor<byte[]> byteArrayFieldEncryptor(EncryptionKeyProvider encryptionKeyProvider, Set<CipherMechanism> cipherMechanisms,
+														  BlindIndexHasher blindIndexHasher, KeyNameDictionary keyNameDictionary) {
 		EncryptionFacade encryptionFacade = new EncryptionFacade(cipherMechanisms, encryptionKeyProvider);
-		return new StringEncryptor(encryptionFacade);
+		return new ByteArrayEncryptor(encryptionFacade, blindIndexHasher, keyNameDictionary);
+	}
+
+	/**
+	 * Ids are stored within the records, e.g. encryption.framework.key-name-ids.encryption-key=1,
+	 * so an id once used must never be assigned to another key name.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(KeyNameDictionary.class)
+	public KeyNameDictionary keyNameDictionary(Environment environment) {
+		Map<String, Integer> keyNameIds = Binder.get(environment)
+												.bind("encryption.framework.key-name-ids", Bindable.mapOf(String.class, Integer.class))
+												.orElse(Map.of());
+		return new KeyNameDictionary(keyNameIds);
 	}
 
 	@Bean
@@ -77,8 +214,60 @@ public class EncryptionConfiguration {
 		return new InMemoryStaticKeyProvider();
 	}
 
+	/**
+	 * The key provider bean is wrapped with a cache unless encryption.framework.key-cache.enabled=false, so it has to be
+	 * injected as EncryptionKeyProvider or as CachingEncryptionKeyProvider. Latest keys are reloaded after
+	 * encryption.framework.key-cache.latest-key-ttl (1 minute by default), a rotation can be picked up at once with
+	 * {@link CachingEncryptionKeyProvider#invalidateAll()}.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "encryption.framework.key-cache.enabled", havingValue = "true", matchIfMissing = true)
+	public static BeanPostProcessor cachingEncryptionKeyProviderPostProcessor(
+		@Value("${encryption.framework.key-cache.maximum-size:" + CachingEncryptionKeyProvider.DEFAULT_MAXIMUM_SIZE + "}") int maximumSize,
+		@Value("${encryption.framework.key-cache.latest-key-ttl:PT1M}") Duration latestKeyTtl,
+		@Value("${encryption.framework.key-cache.refresh-ahead-time:PT10S}") Duration refreshAheadTime) {
+
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof EncryptionKeyProvider && !(bean instanceof CachingEncryptionKeyProvider)) {
+					return new CachingEncryptionKeyProvider((EncryptionKeyProvider) bean, maximumSize, latestKeyTtl,
+															refreshAheadTime, ForkJoinPool.commonPool());
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * With encryption.framework.blindId.memo-size above 0, blind ids of that many values are remembered
+	 * until the blind id key rotates, e.g. for the values queried over and over.
+	 */
+	@Bean
+	public BlindIdConverter<String> blindIdConverter(FieldEncryptor<String> stringFieldEncryptor, KeyNameResolver keyNameResolver,
+													 @Value("${encryption.framework.blindId.algorithm:HmacSHA256}") String hashingAlgorithm,
+													 BlindIdFormat blindIdFormat, EncryptionKeyProvider encryptionKeyProvider,
+													 @Value("${encryption.framework.blindId.memo-size:0}") int memoSize) {
+		return newBlindIdConverter(stringFieldEncryptor, keyNameResolver, hashingAlgorithm, blindIdFormat, encryptionKeyProvider, memoSize);
+	}
+
+	private static <C> BlindIdConverter<C> newBlindIdConverter(FieldEncryptor<C> fieldEncryptor, KeyNameResolver keyNameResolver,
+															   String hashingAlgorithm, BlindIdFormat blindIdFormat,
+															   EncryptionKeyProvider keyProvider, int memoSize) {
+		if (memoSize > 0) {
+			return new BlindIdConverter<>(fieldEncryptor, keyNameResolver, hashingAlgorithm, blindIdFormat, keyProvider, memoSize);
+		}
+		return new BlindIdConverter<>(fieldEncryptor, keyNameResolver, hashingAlgorithm, blindIdFormat);
+	}
+
+	/**
+	 * Blind id fields have to match the encoding: String for UTF_16, HEX and BASE64_URL, byte[] for BYTES, Long for LONG.
+	 * Changing the format of already stored blind ids requires recomputing them.
+	 */
 	@Bean
-	public BlindIdConverter<String> blindIdConverter(FieldEncryptor<String> stringFieldEncryptor, KeyNameResolver keyNameResolver) {
-		return new BlindIdConverter<>(stringFieldEncryptor, keyNameResolver, "HmacSHA256");
+	@ConditionalOnMissingBean(BlindIdFormat.class)
+	public BlindIdFormat blindIdFormat(@Value("${encryption.framework.blindId.encoding:UTF_16}") BlindIdEncoding encoding,
+									   @Value("${encryption.framework.blindId.length:" + BlindIdFormat.FULL_LENGTH + "}") int length) {
+		return BlindIdFormat.of(encoding, length);
 	}
 }
@@ -2,8 +2,13 @@ package com.maciek.wojtaczka.encryption.framework.spring.autoconfigure;
 
 import com.maciek.wojtaczka.encryption.framework.base.BlindIdConverter;
 import com.maciek.wojtaczka.encryption.framework.base.EntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.StaticDecryptor;
+import com.maciek.wojtaczka.encryption.framework.spring.JpaManagedEntityPredicate;
 import com.maciek.wojtaczka.encryption.framework.spring.aspect.BlindIdSearchAspect;
 import com.maciek.wojtaczka.encryption.framework.spring.aspect.EncryptionJpaAspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -11,15 +16,65 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import javax.persistence.EntityManager;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 @ConditionalOnClass(JpaRepository.class)
 @EnableAspectJAutoProxy
 public class SpringDataProxiesConfiguration {
 
+	private static final String RESULT_DECRYPTION_EXECUTOR = "encryptionResultDecryptionExecutor";
+
+	/**
+	 * Lazy collections of managed entities are decrypted in place, so Hibernate keeps tracking them.
+	 */
+	@Autowired(required = false)
+	public void keepPersistentCollectionsOfManagedEntities(EntityManager entityManager) {
+		StaticDecryptor.setManagedEntities(new JpaManagedEntityPredicate(entityManager));
+	}
+
+	/**
+	 * With encryption.framework.spring-data.proxy.parallel-decryption.enabled=true, results longer than
+	 * encryption.framework.spring-data.proxy.parallel-decryption.threshold are decrypted on the result decryption executor.
+	 * Only the detached entities are, the ones managed by the persistence context, i.e. results of transactional reads,
+	 * are decrypted on the calling thread and are sped up by encryption.framework.parallelism.enabled=true only.
+	 */
 	@Bean
 	@ConditionalOnProperty(name = "encryption.framework.spring-data.proxy.encrypt.enabled", havingValue = "true", matchIfMissing = true)
-	public EncryptionJpaAspect<String> encryptionJpaAspect(EntityEncryptor<String> encryptor) {
-		return new EncryptionJpaAspect<>(encryptor);
+	public EncryptionJpaAspect<Object> encryptionJpaAspect(EntityEncryptor<Object> encryptor,
+			@Value("${encryption.framework.spring-data.proxy.parallel-decryption.threshold:1000}") int threshold,
+			@Autowired(required = false) @Qualifier(RESULT_DECRYPTION_EXECUTOR) ExecutorService resultDecryptionExecutor,
+			@Autowired(required = false) EntityManager entityManager) {
+		if (resultDecryptionExecutor == null || entityManager == null) {
+			return new EncryptionJpaAspect<>(encryptor);
+		}
+		return new EncryptionJpaAspect<>(encryptor, resultDecryptionExecutor, threshold, new JpaManagedEntityPredicate(entityManager));
+	}
+
+	/**
+	 * Bounded both in threads, by default one per processor, and in queued chunks. When saturated,
+	 * chunks are decrypted on the calling thread, so the common pool is never used.
+	 */
+	@Bean(name = RESULT_DECRYPTION_EXECUTOR, destroyMethod = "shutdown")
+	@ConditionalOnProperty(name = "encryption.framework.spring-data.proxy.parallel-decryption.enabled", havingValue = "true")
+	public ExecutorService resultDecryptionExecutor(
+			@Value("${encryption.framework.spring-data.proxy.parallel-decryption.pool-size:0}") int poolSize,
+			@Value("${encryption.framework.spring-data.proxy.parallel-decryption.queue-capacity:64}") int queueCapacity) {
+		int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, RESULT_DECRYPTION_EXECUTOR + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+									  threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
 	}
 
 
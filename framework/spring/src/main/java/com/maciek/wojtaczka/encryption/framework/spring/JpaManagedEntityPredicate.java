@@ -0,0 +1,26 @@
+package com.maciek.wojtaczka.encryption.framework.spring;
+
+import javax.persistence.EntityManager;
+import java.util.function.Predicate;
+
+/**
+ * Tells whether an object is managed by the persistence context of the current transaction.
+ * Objects which are not entities, e.g. projections, are not managed.
+ */
+public class JpaManagedEntityPredicate implements Predicate<Object> {
+
+	private final EntityManager entityManager;
+
+	public JpaManagedEntityPredicate(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	public boolean test(Object object) {
+		try {
+			return entityManager.contains(object);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+}
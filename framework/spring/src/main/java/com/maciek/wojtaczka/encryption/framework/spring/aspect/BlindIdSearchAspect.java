@@ -7,6 +7,8 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 
+import java.util.Collection;
+
 @Experimental
 @Aspect
 public class BlindIdSearchAspect<C> {
@@ -31,6 +33,7 @@ public class BlindIdSearchAspect<C> {
 	 * Example:
 	 * findByNameAndAgeAndSurnameBlindIdAndPersonalNumberBlindId(String name, int age, String surname, String personalNumber)
 	 * in above, surname and personalNumber will be hashed.
+	 * Collection arguments, e.g. findBySurnameBlindIdIn(Collection&lt;String&gt; surnames), are hashed element by element in one batch.
 	 *
 	 * @param joinPoint joinPoint
 	 * @return result of the proxied method with new (hashed) arguments
@@ -45,12 +48,19 @@ public class BlindIdSearchAspect<C> {
 		int blindIdCount = countBlindIds(joinPoint);
 		if (args.length - blindIdCount >= 0) System.arraycopy(args, 0, newArgs, 0, args.length - blindIdCount);
 		for (int i = args.length - blindIdCount; i < args.length; i++) {
-			newArgs[i] = blindIdConverter.hash((C) args[i]);
+			newArgs[i] = hashBlindId(args[i]);
 		}
 
 		return joinPoint.proceed(newArgs);
 	}
 
+	private Object hashBlindId(Object arg) {
+		if (arg instanceof Collection) {
+			return blindIdConverter.hashAll((Collection<C>) arg);
+		}
+		return blindIdConverter.hash((C) arg);
+	}
+
 	private int countBlindIds(ProceedingJoinPoint jp) {
 		return jp.getSignature()
 				 .toShortString()
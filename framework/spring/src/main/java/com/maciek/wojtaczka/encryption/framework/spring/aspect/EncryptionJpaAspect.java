@@ -1,21 +1,51 @@
 package com.maciek.wojtaczka.encryption.framework.spring.aspect;
 
+import com.maciek.wojtaczka.encryption.core.exception.EncryptionException;
 import com.maciek.wojtaczka.encryption.framework.base.EntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.RetainedPlaintext;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Aspect
 public class EncryptionJpaAspect <C> {
 
 	private final EntityEncryptor<C> encryptor;
+	private final List<Class<?>> encryptedFieldTypes;
+	private final Executor decryptionExecutor;
+	private final int parallelDecryptionThreshold;
+	private final Predicate<Object> managedEntities;
 
 	public EncryptionJpaAspect(EntityEncryptor<C> encryptor) {
+		this(encryptor, Runnable::run, Integer.MAX_VALUE, entity -> true);
+	}
+
+	/**
+	 * Detached entities of results longer than the threshold are decrypted in chunks of the threshold size on the executor,
+	 * which should be bounded and dedicated, so that decryption does not starve other work. Entities managed by
+	 * a persistence context, as told by managedEntities, are walked on the calling thread, as neither the session nor
+	 * its persistent collections may be used by other threads. Only their cipher work may run on other threads,
+	 * when the entity encryptor is given a {@link com.maciek.wojtaczka.encryption.framework.base.Parallelism}.
+	 */
+	public EncryptionJpaAspect(EntityEncryptor<C> encryptor, Executor decryptionExecutor, int parallelDecryptionThreshold,
+							   Predicate<Object> managedEntities) {
 		this.encryptor = encryptor;
+		this.encryptedFieldTypes = encryptor.getEncryptedFieldTypes();
+		this.decryptionExecutor = decryptionExecutor;
+		this.parallelDecryptionThreshold = parallelDecryptionThreshold;
+		this.managedEntities = managedEntities;
 	}
 
 	@Pointcut("target(org.springframework.data.jpa.repository.JpaRepository)")
@@ -27,35 +57,71 @@ public class EncryptionJpaAspect <C> {
 	@Pointcut("execution(* *..saveAll(*))")
 	public void saveAll() {}
 
+	/**
+	 * Plaintexts captured before encryption are put back onto the saved entity, which is decrypted only when
+	 * it does not match the encrypted one.
+	 */
 	@Around("jpaRepository() && save() && !saveAll()")
 	public <S> S saveProxy(ProceedingJoinPoint joinPoint) throws Throwable {
 
 		Object entity = joinPoint.getArgs()[0];
+		RetainedPlaintext retainedPlaintext = RetainedPlaintext.capture(entity, encryptedFieldTypes);
 		encryptor.encryptObject(entity);
+		retainedPlaintext.captureCiphertexts();
 
 		Object savedEntity = joinPoint.proceed();
 
-		encryptor.decryptObject(savedEntity);
+		if (!retainedPlaintext.restoreOnto(savedEntity)) {
+			encryptor.decryptObject(savedEntity);
+		}
 		return (S) savedEntity;
 	}
 
 	@Around("jpaRepository() && saveAll()")
 	public <S> List<S> saveAllProxy(ProceedingJoinPoint joinPoint) throws Throwable {
 
-		Iterable entities = (Iterable) joinPoint.getArgs()[0];
-		for (Object entity: entities) {
-			encryptor.encryptObject(entity);
-		}
+		List<Object> entities = toList((Iterable<?>) joinPoint.getArgs()[0]);
+		List<RetainedPlaintext> retainedPlaintexts = entities.stream()
+															 .map(entity -> RetainedPlaintext.capture(entity, encryptedFieldTypes))
+															 .collect(Collectors.toList());
+		encryptor.encryptAll(entities);
+		retainedPlaintexts.forEach(RetainedPlaintext::captureCiphertexts);
 
 		List<S> savedEntities = (List<S>) joinPoint.proceed();
 
-		for (S savedEntity: savedEntities) {
-			encryptor.decryptObject(savedEntity);
-		}
+		decryptAll(notRestored(entities, savedEntities, retainedPlaintexts));
 
 		return savedEntities;
 	}
 
+	/**
+	 * Saved entities are matched with the passed ones by identity. Merged copies are matched by their positions,
+	 * which requires as many saved entities as passed ones.
+	 */
+	private static List<Object> notRestored(List<Object> entities, List<?> savedEntities,
+											List<RetainedPlaintext> retainedPlaintexts) {
+		Map<Object, RetainedPlaintext> retainedByEntity = new IdentityHashMap<>();
+		for (int i = 0; i < entities.size(); i++) {
+			retainedByEntity.put(entities.get(i), retainedPlaintexts.get(i));
+		}
+		List<Object> notRestored = new ArrayList<>();
+		for (int i = 0; i < savedEntities.size(); i++) {
+			Object savedEntity = savedEntities.get(i);
+			RetainedPlaintext retainedPlaintext = retainedByEntity.get(savedEntity);
+			if (retainedPlaintext == null) {
+				if (savedEntities.size() != entities.size()) {
+					throw new EncryptionException("Cannot match " + savedEntities.size() + " saved entities with "
+												  + entities.size() + " passed ones");
+				}
+				retainedPlaintext = retainedPlaintexts.get(i);
+			}
+			if (!retainedPlaintext.restoreOnto(savedEntity)) {
+				notRestored.add(savedEntity);
+			}
+		}
+		return notRestored;
+	}
+
 	@Pointcut("execution(* *..findById(*))")
 	public void findById() {}
 
@@ -78,7 +144,7 @@ public class EncryptionJpaAspect <C> {
 	public <S> List<S> findAllProxy(ProceedingJoinPoint joinPoint) throws Throwable {
 
 		List<S> list = (List<S>) joinPoint.proceed();
-		list.forEach(encryptor::decryptObject);
+		decryptAll(list);
 
 		return list;
 	}
@@ -97,9 +163,37 @@ public class EncryptionJpaAspect <C> {
 			return (T) optionalEntity;
 		} else {
 			Iterable<S> iterable = (Iterable<S>) result;
-			iterable.forEach(encryptor::decryptObject);
+			decryptAll(toList(iterable));
 
 			return (T) iterable;
 		}
 	}
+
+	private void decryptAll(List<?> entities) throws Throwable {
+		if (entities.size() <= parallelDecryptionThreshold) {
+			encryptor.decryptAll(entities);
+			return;
+		}
+
+		Map<Boolean, List<Object>> entitiesByManaged = entities.stream()
+															   .collect(Collectors.partitioningBy(managedEntities));
+		List<Object> detached = entitiesByManaged.get(false);
+		List<CompletableFuture<Void>> chunks = new ArrayList<>();
+		for (int from = 0; from < detached.size(); from += parallelDecryptionThreshold) {
+			List<?> chunk = detached.subList(from, Math.min(from + parallelDecryptionThreshold, detached.size()));
+			chunks.add(CompletableFuture.runAsync(() -> encryptor.decryptAll(chunk), decryptionExecutor));
+		}
+		try {
+			encryptor.decryptAll(entitiesByManaged.get(true));
+			CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+		} catch (CompletionException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static List<Object> toList(Iterable<?> entities) {
+		List<Object> list = new ArrayList<>();
+		entities.forEach(list::add);
+		return list;
+	}
 }
@@ -0,0 +1,72 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.core.CipherRecord;
+import com.maciek.wojtaczka.encryption.core.CipherRecordHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.SecureRandom;
+import java.util.Map;
+
+/**
+ * Placed in the framework package, as the converters are package private.
+ * Record length in bytes is printed on setup, since the stored string holds one byte per char.
+ */
+public class CipherRecordFormatBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class AppState {
+
+		@Param({"binary", "legacy"})
+		public String format;
+
+		public CipherRecord cipherRecord;
+		public String stringRecord;
+		public StringCipherRecordConverter binaryConverter;
+		public LegacyStringCipherRecordConverter legacyConverter;
+
+		@Setup
+		public void setup() {
+			byte[] cipherContent = new byte[12 + 20 + 16];
+			new SecureRandom().nextBytes(cipherContent);
+			cipherRecord = new CipherRecord(cipherContent, "AES/GCM/NoPadding", "encryption-key", 12);
+			binaryConverter = new StringCipherRecordConverter(new KeyNameDictionary(Map.of("encryption-key", 1)));
+			legacyConverter = new LegacyStringCipherRecordConverter();
+			stringRecord = "binary".equals(format) ? binaryConverter.convertToString(cipherRecord) : legacyConverter.convertToString(cipherRecord);
+
+			System.out.println("\n" + format + " record: " + stringRecord.length() + " bytes, "
+									   + (stringRecord.length() - cipherContent.length) + " bytes of header");
+		}
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public String aSerialize(AppState state) {
+		if ("binary".equals(state.format)) {
+			return state.binaryConverter.convertToString(state.cipherRecord);
+		}
+		return state.legacyConverter.convertToString(state.cipherRecord);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public CipherRecord bParse(AppState state) {
+		if ("binary".equals(state.format)) {
+			return state.binaryConverter.convertToCipherRecord(state.stringRecord);
+		}
+		return state.legacyConverter.convertToCipherRecord(state.stringRecord);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public CipherRecordHeader cParseHeader(AppState state) {
+		if ("binary".equals(state.format)) {
+			return state.binaryConverter.convertToHeader(state.stringRecord);
+		}
+		return state.legacyConverter.convertToHeader(state.stringRecord);
+	}
+}
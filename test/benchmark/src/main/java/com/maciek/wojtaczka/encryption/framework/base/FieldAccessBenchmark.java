@@ -0,0 +1,60 @@
+package com.maciek.wojtaczka.encryption.framework.base;
+
+import com.maciek.wojtaczka.encryption.framework.base.annotation.Encrypt;
+import com.maciek.wojtaczka.encryption.test.benchmark.framework.DummyEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Compares reading and writing back the encrypted fields of {@link DummyEntity}
+ * through the cached method handles of {@link EncryptionPlan} and through per-call reflection.
+ */
+public class FieldAccessBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class AppState {
+
+		public DummyEntity entity;
+
+		@Setup
+		public void setup() {
+			entity = DummyEntity.builder()
+								.sensitive1("sensitive1")
+								.sensitive2("sensitive2")
+								.sensitive3("sensitive3")
+								.sensitive4("sensitive4")
+								.sensitiveList(List.of("sensitive5"))
+								.build();
+		}
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public void aReflection(AppState state, Blackhole blackhole) throws Exception {
+		for (Field field : DummyEntity.class.getDeclaredFields()) {
+			if (field.isAnnotationPresent(Encrypt.class)) {
+				field.setAccessible(true);
+				Object value = field.get(state.entity);
+				blackhole.consume(field.getDeclaredAnnotation(Encrypt.class).algorithm());
+				field.set(state.entity, value);
+			}
+		}
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public void bEncryptionPlan(AppState state, Blackhole blackhole) {
+		for (EncryptionPlan.FieldPlan field : EncryptionPlan.of(DummyEntity.class).getFields()) {
+			Object value = field.getValue(state.entity);
+			blackhole.consume(field.getMetadata().getAlgorithm());
+			field.setValue(state.entity, value);
+		}
+	}
+}
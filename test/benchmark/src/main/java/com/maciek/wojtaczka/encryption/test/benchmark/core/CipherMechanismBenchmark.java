@@ -0,0 +1,194 @@
+package com.maciek.wojtaczka.encryption.test.benchmark.core;
+
+import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.CipherMechanism;
+import com.maciek.wojtaczka.encryption.core.HashMechanism;
+import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Compares mechanisms creating {@link Cipher}/{@link Mac} on every call ("unpooled", behaviour before pooling)
+ * with the pooled ones shipped in encryption-core. Run with e.g. {@code -p implementation=pooled,unpooled}.
+ */
+public class CipherMechanismBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class AppState {
+
+		@Param({"pooled", "unpooled"})
+		public String implementation;
+
+		public CipherMechanism aesMechanism;
+		public HashMechanism hmacMechanism;
+		public SecretKey secretKey;
+		public byte[] content;
+		public byte[] encryptedContent;
+
+		@Setup
+		public void setup() {
+			if ("pooled".equals(implementation)) {
+				aesMechanism = new AesGcmNoPaddingMechanism();
+				hmacMechanism = new HmacSha256Mechanism();
+			} else {
+				aesMechanism = new UnpooledAesGcmNoPaddingMechanism();
+				hmacMechanism = new UnpooledHmacSha256Mechanism();
+			}
+			secretKey = generateAesSecretKey();
+			content = "sensitive value of a typical length".getBytes();
+			encryptedContent = aesMechanism.encrypt(content, secretKey);
+		}
+
+		private SecretKey generateAesSecretKey() {
+			SecureRandom secureRandom = new SecureRandom();
+			byte[] key = new byte[16];
+			secureRandom.nextBytes(key);
+			return new SecretKeySpec(key, "AES");
+		}
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(1)
+	public byte[] aEncryptOneThread(AppState state) {
+		return state.aesMechanism.encrypt(state.content, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(4)
+	public byte[] bEncryptFourThreads(AppState state) {
+		return state.aesMechanism.encrypt(state.content, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(16)
+	public byte[] cEncryptSixteenThreads(AppState state) {
+		return state.aesMechanism.encrypt(state.content, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(1)
+	public byte[] dDecryptOneThread(AppState state) {
+		return state.aesMechanism.decrypt(state.encryptedContent, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(4)
+	public byte[] eDecryptFourThreads(AppState state) {
+		return state.aesMechanism.decrypt(state.encryptedContent, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(16)
+	public byte[] fDecryptSixteenThreads(AppState state) {
+		return state.aesMechanism.decrypt(state.encryptedContent, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(1)
+	public byte[] gHashOneThread(AppState state) {
+		return state.hmacMechanism.hash(state.content, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(4)
+	public byte[] hHashFourThreads(AppState state) {
+		return state.hmacMechanism.hash(state.content, state.secretKey);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	@Threads(16)
+	public byte[] iHashSixteenThreads(AppState state) {
+		return state.hmacMechanism.hash(state.content, state.secretKey);
+	}
+
+	static class UnpooledAesGcmNoPaddingMechanism implements CipherMechanism {
+
+		private static final String ENCRYPTION_MECHANISM = "AES/GCM/NoPadding";
+		private static final int GCM_IV_SIZE = 12;
+		private static final int AUTH_TAG_SIZE = 128;
+
+		@Override
+		public String getType() {
+			return ENCRYPTION_MECHANISM;
+		}
+
+		@Override
+		public int getEncryptedSize(int contentLength) {
+			return GCM_IV_SIZE + contentLength + AUTH_TAG_SIZE / Byte.SIZE;
+		}
+
+		@Override
+		public int getDecryptedSize(int cipherContentLength) {
+			return Math.max(0, cipherContentLength - GCM_IV_SIZE - AUTH_TAG_SIZE / Byte.SIZE);
+		}
+
+		@Override
+		public byte[] encrypt(byte[] content, SecretKey secretKey) {
+			try {
+				byte[] iv = new byte[GCM_IV_SIZE];
+				new SecureRandom().nextBytes(iv);
+				Cipher cipher = Cipher.getInstance(ENCRYPTION_MECHANISM);
+				cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(AUTH_TAG_SIZE, iv));
+				byte[] cipherContent = cipher.doFinal(content);
+				byte[] ivAndContent = new byte[iv.length + cipherContent.length];
+				System.arraycopy(iv, 0, ivAndContent, 0, iv.length);
+				System.arraycopy(cipherContent, 0, ivAndContent, iv.length, cipherContent.length);
+				return ivAndContent;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public byte[] decrypt(byte[] ivAndCipherContent, SecretKey secretKey) {
+			try {
+				Cipher cipher = Cipher.getInstance(ENCRYPTION_MECHANISM);
+				cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(AUTH_TAG_SIZE, ivAndCipherContent, 0, GCM_IV_SIZE));
+				return cipher.doFinal(ivAndCipherContent, GCM_IV_SIZE, ivAndCipherContent.length - GCM_IV_SIZE);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	static class UnpooledHmacSha256Mechanism implements HashMechanism {
+
+		@Override
+		public String getType() {
+			return HmacSha256Mechanism.HMAC_SHA_256;
+		}
+
+		@Override
+		public byte[] hash(byte[] content, SecretKey secretKey) {
+			try {
+				Mac sha256Hmac = Mac.getInstance(HmacSha256Mechanism.HMAC_SHA_256);
+				sha256Hmac.init(secretKey);
+				return sha256Hmac.doFinal(content);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -1,9 +1,11 @@
 package com.maciek.wojtaczka.encryption.test.benchmark.framework;
 
 import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
 import com.maciek.wojtaczka.encryption.core.CipherMechanism;
 import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
 import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HashMechanism;
 import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
 import com.maciek.wojtaczka.encryption.framework.base.EntityEncryptor;
 import com.maciek.wojtaczka.encryption.framework.base.FieldEncryptor;
@@ -74,10 +76,11 @@ public class EntityEncryptorBenchmark {
 
 		public void setupEntityEncryptor() {
 			CipherMechanism aesGcmNoPaddingMechanism = new AesGcmNoPaddingMechanism();
-			CipherMechanism hmacShaMechanism = new HmacSha256Mechanism();
+			HashMechanism hmacShaMechanism = new HmacSha256Mechanism();
 			EncryptionKeyProvider keyProvider = new InMemoryStaticKeyProvider();
-			EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(aesGcmNoPaddingMechanism, hmacShaMechanism), keyProvider);
-			FieldEncryptor<String> stringEncryptor = new StringEncryptor(encryptionFacade);
+			EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(aesGcmNoPaddingMechanism), keyProvider);
+			BlindIndexHasher blindIndexHasher = new BlindIndexHasher(Set.of(hmacShaMechanism), keyProvider);
+			FieldEncryptor<String> stringEncryptor = new StringEncryptor(encryptionFacade, blindIndexHasher);
 			KeyNameResolver keyNameResolver = new StaticKeyNameResolver();
 			entityEncryptor = new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, "HmacSHA256", String.class);
 		}
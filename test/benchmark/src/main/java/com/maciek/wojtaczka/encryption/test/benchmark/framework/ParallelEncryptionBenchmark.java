@@ -0,0 +1,89 @@
+package com.maciek.wojtaczka.encryption.test.benchmark.framework;
+
+import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import com.maciek.wojtaczka.encryption.framework.base.BlindIdConverter;
+import com.maciek.wojtaczka.encryption.framework.base.EntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.FieldEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.GenericEntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.InMemoryStaticKeyProvider;
+import com.maciek.wojtaczka.encryption.framework.base.KeyNameResolver;
+import com.maciek.wojtaczka.encryption.framework.base.Parallelism;
+import com.maciek.wojtaczka.encryption.framework.base.StaticKeyNameResolver;
+import com.maciek.wojtaczka.encryption.framework.base.StringEncryptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares serial and parallel encryption of a list field of the given size, to validate the default threshold
+ * of {@link Parallelism} used by the Spring configuration.
+ */
+public class ParallelEncryptionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class AppState {
+
+		@Param({"10", "100", "10000"})
+		public int listSize;
+
+		@Param({"64"})
+		public int threshold;
+
+		public EntityEncryptor<String> serialEncryptor;
+		public EntityEncryptor<String> parallelEncryptor;
+		public List<String> values;
+
+		@Setup
+		public void setup() {
+			EncryptionKeyProvider keyProvider = new InMemoryStaticKeyProvider();
+			EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(new AesGcmNoPaddingMechanism()), keyProvider);
+			BlindIndexHasher blindIndexHasher = new BlindIndexHasher(Set.of(new HmacSha256Mechanism()), keyProvider);
+			FieldEncryptor<String> stringEncryptor = new StringEncryptor(encryptionFacade, blindIndexHasher);
+			KeyNameResolver keyNameResolver = new StaticKeyNameResolver();
+			BlindIdConverter<String> blindIdConverter = new BlindIdConverter<>(stringEncryptor, keyNameResolver, "HmacSHA256");
+
+			serialEncryptor = new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, blindIdConverter, String.class);
+			parallelEncryptor = new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, blindIdConverter, String.class,
+															 Parallelism.of(ForkJoinPool.commonPool(), threshold));
+			values = IntStream.range(0, listSize)
+							  .mapToObj(i -> "sensitive" + i)
+							  .collect(Collectors.toList());
+		}
+
+		DummyEntity newEntity() {
+			return DummyEntity.builder()
+							  .sensitiveList(new ArrayList<>(values))
+							  .build();
+		}
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public DummyEntity aEncryptListSerially(AppState state) {
+		DummyEntity entity = state.newEntity();
+		state.serialEncryptor.encryptObject(entity);
+		return entity;
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public DummyEntity bEncryptListInParallel(AppState state) {
+		DummyEntity entity = state.newEntity();
+		state.parallelEncryptor.encryptObject(entity);
+		return entity;
+	}
+}
@@ -0,0 +1,132 @@
+package com.maciek.wojtaczka.encryption.test.benchmark.framework;
+
+import com.maciek.wojtaczka.encryption.core.AesGcmNoPaddingMechanism;
+import com.maciek.wojtaczka.encryption.core.BlindIndexHasher;
+import com.maciek.wojtaczka.encryption.core.EncryptionFacade;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.HmacSha256Mechanism;
+import com.maciek.wojtaczka.encryption.framework.base.BlindIdConverter;
+import com.maciek.wojtaczka.encryption.framework.base.EntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.FieldEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.GenericEntityEncryptor;
+import com.maciek.wojtaczka.encryption.framework.base.InMemoryStaticKeyProvider;
+import com.maciek.wojtaczka.encryption.framework.base.KeyNameResolver;
+import com.maciek.wojtaczka.encryption.framework.base.Parallelism;
+import com.maciek.wojtaczka.encryption.framework.base.StaticKeyNameResolver;
+import com.maciek.wojtaczka.encryption.framework.base.StringEncryptor;
+import com.maciek.wojtaczka.encryption.framework.spring.aspect.EncryptionJpaAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares serial and parallel decryption of a findAll() result of the given size by {@link EncryptionJpaAspect},
+ * with all the entities detached, to validate the default parallel decryption threshold of the Spring configuration.
+ * Managed entities, i.e. results of transactional reads, are not sped up by the executor, the last benchmark measures
+ * them with the cipher work split by {@link Parallelism} instead.
+ */
+public class ResultDecryptionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class AppState {
+
+		@Param({"100", "5000"})
+		public int resultSize;
+
+		@Param({"1000"})
+		public int threshold;
+
+		@Param({"4"})
+		public int poolSize;
+
+		public EncryptionJpaAspect<String> serialAspect;
+		public EncryptionJpaAspect<String> parallelAspect;
+		public EncryptionJpaAspect<String> managedAspect;
+		public ProceedingJoinPoint findAll;
+		private ExecutorService executor;
+		private ForkJoinPool pool;
+
+		@Setup
+		public void setup() {
+			EncryptionKeyProvider keyProvider = new InMemoryStaticKeyProvider();
+			EncryptionFacade encryptionFacade = new EncryptionFacade(Set.of(new AesGcmNoPaddingMechanism()), keyProvider);
+			BlindIndexHasher blindIndexHasher = new BlindIndexHasher(Set.of(new HmacSha256Mechanism()), keyProvider);
+			FieldEncryptor<String> stringEncryptor = new StringEncryptor(encryptionFacade, blindIndexHasher);
+			KeyNameResolver keyNameResolver = new StaticKeyNameResolver();
+			BlindIdConverter<String> blindIdConverter = new BlindIdConverter<>(stringEncryptor, keyNameResolver, "HmacSHA256");
+			EntityEncryptor<String> encryptor = new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, blindIdConverter, String.class);
+
+			executor = Executors.newFixedThreadPool(poolSize);
+			serialAspect = new EncryptionJpaAspect<>(encryptor);
+			parallelAspect = new EncryptionJpaAspect<>(encryptor, executor, threshold, entity -> false);
+			pool = new ForkJoinPool(poolSize);
+			EntityEncryptor<String> parallelismEncryptor = new GenericEntityEncryptor<>(stringEncryptor, keyNameResolver, blindIdConverter,
+																						String.class, Parallelism.of(pool, 64));
+			managedAspect = new EncryptionJpaAspect<>(parallelismEncryptor, executor, threshold, entity -> true);
+
+			List<DummyEntity> encrypted = IntStream.range(0, resultSize)
+												   .mapToObj(i -> DummyEntity.builder()
+																			 .sensitive1("John" + i)
+																			 .sensitive2("Doe" + i)
+																			 .sensitive3("single")
+																			 .sensitive4("Main Street " + i)
+																			 .build())
+												   .collect(Collectors.toList());
+			encryptor.encryptAll(encrypted);
+			findAll = (ProceedingJoinPoint) Proxy.newProxyInstance(
+				ProceedingJoinPoint.class.getClassLoader(),
+				new Class<?>[]{ProceedingJoinPoint.class},
+				(proxy, method, args) -> {
+					if (!method.getName().equals("proceed")) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					return encrypted.stream()
+									.map(entity -> DummyEntity.builder()
+															  .sensitive1(entity.getSensitive1())
+															  .sensitive2(entity.getSensitive2())
+															  .sensitive3(entity.getSensitive3())
+															  .sensitive4(entity.getSensitive4())
+															  .build())
+									.collect(Collectors.toList());
+				});
+		}
+
+		@TearDown
+		public void tearDown() {
+			executor.shutdown();
+			pool.shutdown();
+		}
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public List<DummyEntity> aDecryptResultSerially(AppState state) throws Throwable {
+		return state.serialAspect.findAllProxy(state.findAll);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public List<DummyEntity> bDecryptResultInParallel(AppState state) throws Throwable {
+		return state.parallelAspect.findAllProxy(state.findAll);
+	}
+
+	@Benchmark
+	@Fork(value = 1, warmups = 2)
+	public List<DummyEntity> cDecryptManagedResultWithParallelism(AppState state) throws Throwable {
+		return state.managedAspect.findAllProxy(state.findAll);
+	}
+}
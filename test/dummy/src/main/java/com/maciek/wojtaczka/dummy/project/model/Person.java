@@ -12,5 +12,6 @@ public class Person {
 	String surname;
 	String nickname;
 	String maritalStatus;
+	byte[] document;
 
 }
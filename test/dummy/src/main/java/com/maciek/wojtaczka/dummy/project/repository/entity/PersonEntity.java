@@ -32,5 +32,8 @@ public class PersonEntity {
 	@Encrypt(searchable = true)
 	String maritalStatus;
 	String maritalStatusBlindId;
+	@Encrypt
+	@Column(length = 1024)
+	byte[] document;
 
 }
@@ -52,14 +52,24 @@ class PersonRepositoryServiceAutoReencryptTest {
 
 		//when
 		repositoryService.findById(saved.getId());
-		sleep();
+		waitUntilSurnameKeyVersion(saved.getId(), 2);
 
 		//then
-		Object[] args = { saved.getId() };
+		assertThat(readSurnameKeyVersion(saved.getId())).isEqualTo(2);
+	}
+
+	private int readSurnameKeyVersion(Object id) {
+		Object[] args = { id };
 		String surnameColumnValue = jdbcTemplate.queryForObject("SELECT surname FROM person WHERE id=?", args, String.class);
 		assertThat(surnameColumnValue).isNotBlank();
-		String keyVersion = surnameColumnValue.split(":")[3].substring(0, 1);
-		assertThat(keyVersion).isEqualTo("2");
+		return surnameColumnValue.charAt(2); //format version, mechanism id, key version as single byte varint
+	}
+
+	private void waitUntilSurnameKeyVersion(Object id, int keyVersion) {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (readSurnameKeyVersion(id) != keyVersion && System.currentTimeMillis() < deadline) {
+			sleep();
+		}
 	}
 
 	private void keyProviderWillReturnNewKeys() {
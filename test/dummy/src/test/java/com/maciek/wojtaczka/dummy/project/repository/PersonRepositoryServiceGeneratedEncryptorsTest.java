@@ -0,0 +1,73 @@
+package com.maciek.wojtaczka.dummy.project.repository;
+
+import com.maciek.wojtaczka.dummy.project.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "encryption.framework.generated-encryptors.enabled=true")
+class PersonRepositoryServiceGeneratedEncryptorsTest {
+
+	@Autowired
+	private PersonRepositoryService repositoryService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void cleanup() {
+		repositoryService.deleteAll();
+	}
+
+	@Test
+	void shouldEncryptColumns_whenEntitySaved() {
+		//given
+		byte[] document = "scanned passport".getBytes(StandardCharsets.UTF_8);
+		Person person = Person.builder()
+							  .name("John")
+							  .surname("Doe")
+							  .document(document)
+							  .build();
+
+		//when
+		Person saved = repositoryService.save(person);
+		Object[] args = { saved.getId() };
+		String surnameColumnValue = jdbcTemplate.queryForObject("SELECT surname FROM person WHERE id=?", args, String.class);
+		byte[] documentColumnValue = jdbcTemplate.queryForObject("SELECT document FROM person WHERE id=?", args, byte[].class);
+
+		//then
+		assertThat(saved.getSurname()).isEqualTo("Doe");
+		assertThat(saved.getDocument()).isEqualTo(document);
+		assertThat(surnameColumnValue).doesNotContain("Doe");
+		assertThat(new String(documentColumnValue, StandardCharsets.ISO_8859_1)).doesNotContain("scanned passport");
+	}
+
+	@Test
+	void shouldDecryptColumns_whenFindById() {
+		//given
+		byte[] document = { 0, 1, 2, (byte) 0xFF, (byte) 0xFE };
+		Person person = Person.builder()
+							  .name("John")
+							  .surname("Doe")
+							  .document(document)
+							  .build();
+		Person saved = repositoryService.save(person);
+
+		//when
+		Person found = repositoryService.findById(saved.getId())
+										.get();
+
+		//then
+		assertThat(found.getSurname()).isEqualTo("Doe");
+		assertThat(found.getDocument()).isEqualTo(document);
+	}
+}
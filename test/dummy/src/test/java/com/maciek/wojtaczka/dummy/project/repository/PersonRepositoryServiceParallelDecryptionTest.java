@@ -0,0 +1,57 @@
+package com.maciek.wojtaczka.dummy.project.repository;
+
+import com.maciek.wojtaczka.dummy.project.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {
+	"encryption.framework.spring-data.proxy.parallel-decryption.enabled=true",
+	"encryption.framework.spring-data.proxy.parallel-decryption.threshold=2",
+	"encryption.framework.spring-data.proxy.parallel-decryption.pool-size=2"
+})
+class PersonRepositoryServiceParallelDecryptionTest {
+
+	@Autowired
+	private PersonRepositoryService repositoryService;
+
+	@AfterEach
+	void cleanup() {
+		repositoryService.deleteAll();
+	}
+
+	@Test
+	void shouldDecryptAllEntities_whenResultAboveParallelDecryptionThreshold() {
+		//given
+		List<Person> people = IntStream.range(0, 7)
+									   .mapToObj(i -> Person.builder()
+															.name("John")
+															.surname("Doe" + i)
+															.build())
+									   .collect(Collectors.toList());
+		repositoryService.saveAll(people);
+
+		//when
+		List<Person> all = repositoryService.findAll();
+		List<Person> byName = repositoryService.findByName("John");
+
+		//then
+		List<String> surnames = people.stream()
+									  .map(Person::getSurname)
+									  .collect(Collectors.toList());
+		assertThat(all).extracting(Person::getSurname)
+					   .containsExactlyInAnyOrderElementsOf(surnames);
+		assertThat(byName).extracting(Person::getSurname)
+						  .containsExactlyInAnyOrderElementsOf(surnames);
+	}
+}
@@ -1,6 +1,8 @@
 package com.maciek.wojtaczka.dummy.project.repository;
 
 import com.maciek.wojtaczka.dummy.project.model.Person;
+import com.maciek.wojtaczka.encryption.core.CachingEncryptionKeyProvider;
+import com.maciek.wojtaczka.encryption.core.EncryptionKeyProvider;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,6 +11,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,6 +26,9 @@ class PersonRepositoryServiceTest {
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
 
+	@Autowired
+	private EncryptionKeyProvider encryptionKeyProvider;
+
 	@AfterEach
 	void cleanup() {
 		repositoryService.deleteAll();
@@ -46,6 +52,23 @@ class PersonRepositoryServiceTest {
 		assertThat(surnameColumnValue).doesNotContain("Doe");
 	}
 
+	@Test
+	void shouldServeKeysFromCache_byDefault() {
+		//given
+		Person person = Person.builder()
+							  .name("John")
+							  .surname("Doe")
+							  .build();
+
+		//when
+		repositoryService.save(person);
+		repositoryService.save(Person.builder().name("Jane").surname("Doe").build());
+
+		//then
+		assertThat(encryptionKeyProvider).isInstanceOf(CachingEncryptionKeyProvider.class);
+		assertThat(((CachingEncryptionKeyProvider) encryptionKeyProvider).getStats().getHitCount()).isPositive();
+	}
+
 	@Test
 	void shouldEncryptSurnameColumn_whenEntityModified() {
 		//given
@@ -114,6 +137,46 @@ class PersonRepositoryServiceTest {
 		assertThat(found.getSurname()).isEqualTo("Doe");
 	}
 
+	@Test
+	void shouldEncryptDocumentIntoBinaryColumn_whenEntitySaved() {
+		//given
+		byte[] document = "scanned passport".getBytes(StandardCharsets.UTF_8);
+		Person person = Person.builder()
+							  .name("John")
+							  .document(document)
+							  .build();
+
+		//when
+		Person saved = repositoryService.save(person);
+		Object[] args = { saved.getId() };
+		byte[] documentColumnValue = jdbcTemplate.queryForObject("SELECT document FROM person WHERE id=?", args, byte[].class);
+
+		//then
+		assertThat(saved.getDocument()).isEqualTo(document);
+		assertThat(documentColumnValue).isNotEqualTo(document);
+		assertThat(new String(documentColumnValue, StandardCharsets.ISO_8859_1)).doesNotContain("scanned passport");
+	}
+
+	@Test
+	void shouldDecryptDocument_whenFindById() {
+		//given
+		byte[] document = { 0, 1, 2, (byte) 0xFF, (byte) 0xFE };
+		Person person = Person.builder()
+							  .name("John")
+							  .surname("Doe")
+							  .document(document)
+							  .build();
+		Person saved = repositoryService.save(person);
+
+		//when
+		Person found = repositoryService.findById(saved.getId())
+										.get();
+
+		//then
+		assertThat(found.getDocument()).isEqualTo(document);
+		assertThat(found.getSurname()).isEqualTo("Doe");
+	}
+
 	//TODO: create case with findOne()
 
 	@Test